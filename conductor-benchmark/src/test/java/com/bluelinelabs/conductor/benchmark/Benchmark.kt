@@ -0,0 +1,90 @@
+package com.bluelinelabs.conductor.benchmark
+
+import java.io.File
+import java.lang.management.ManagementFactory
+
+/**
+ * A small, repeatable benchmark harness. Each measurement runs a number of warmup iterations followed by measured
+ * ones, with a fresh state created outside of the measured section for every iteration. Reported times are the
+ * median of the measured iterations, and allocations are the average number of bytes allocated by the benchmark
+ * thread per iteration, as counted by the JVM.
+ */
+object Benchmark {
+
+  private const val OUTPUT_DIR_PROPERTY = "conductor.benchmark.outputDir"
+
+  private val threadBean = ManagementFactory.getThreadMXBean() as? com.sun.management.ThreadMXBean
+
+  data class Result(
+    val name: String,
+    val params: String,
+    val medianNanos: Long,
+    val allocatedBytes: Long,
+  ) {
+    override fun toString(): String {
+      val allocations = if (allocatedBytes >= 0) "$allocatedBytes B" else "n/a"
+      return String.format("%-40s %-24s %12.3f us %14s", name, params, medianNanos / 1000.0, allocations)
+    }
+  }
+
+  /**
+   * Measures [block] against a state created by [setup] for each iteration. [teardown] runs after every iteration,
+   * outside of the measured section, to release anything the iteration created.
+   */
+  fun <T> measure(
+    name: String,
+    params: String,
+    warmupIterations: Int = 5,
+    iterations: Int = 20,
+    setup: () -> T,
+    teardown: (T) -> Unit = {},
+    block: (T) -> Unit,
+  ): Result {
+    repeat(warmupIterations) {
+      val state = setup()
+      block(state)
+      teardown(state)
+    }
+
+    val times = LongArray(iterations)
+    var totalAllocated = 0L
+    val threadId = Thread.currentThread().id
+    for (i in 0 until iterations) {
+      val state = setup()
+
+      val allocatedBefore = allocatedBytes(threadId)
+      val start = System.nanoTime()
+      block(state)
+      times[i] = System.nanoTime() - start
+      totalAllocated += allocatedBytes(threadId) - allocatedBefore
+
+      teardown(state)
+    }
+
+    times.sort()
+    val result = Result(
+      name = name,
+      params = params,
+      medianNanos = times[iterations / 2],
+      allocatedBytes = if (threadBean != null) totalAllocated / iterations else -1,
+    )
+    report(result)
+    return result
+  }
+
+  private fun allocatedBytes(threadId: Long): Long {
+    return threadBean?.getThreadAllocatedBytes(threadId) ?: 0
+  }
+
+  private fun report(result: Result) {
+    println(result)
+
+    val outputDir = System.getProperty(OUTPUT_DIR_PROPERTY) ?: return
+    val file = File(outputDir, "results.csv")
+    file.parentFile?.mkdirs()
+    if (!file.exists()) {
+      file.writeText("name,params,median_ns,allocated_bytes\n")
+    }
+    file.appendText("${result.name},${result.params},${result.medianNanos},${result.allocatedBytes}\n")
+  }
+}
@@ -0,0 +1,83 @@
+package com.bluelinelabs.conductor.benchmark
+
+import android.os.Bundle
+import android.view.LayoutInflater
+import android.view.View
+import android.view.ViewGroup
+import android.widget.FrameLayout
+import androidx.fragment.app.FragmentActivity
+import com.bluelinelabs.conductor.Conductor
+import com.bluelinelabs.conductor.Controller
+import com.bluelinelabs.conductor.Router
+import com.bluelinelabs.conductor.RouterTransaction
+import com.bluelinelabs.conductor.changehandler.SimpleSwapChangeHandler
+
+class BenchmarkActivity : FragmentActivity() {
+
+  lateinit var router: Router
+
+  override fun onCreate(savedInstanceState: Bundle?) {
+    super.onCreate(savedInstanceState)
+
+    router = Conductor.attachRouter(this, findViewById(android.R.id.content), savedInstanceState)
+  }
+}
+
+/**
+ * A Controller with a plain view. When created with a nesting depth, its view hosts a child Router holding a
+ * backstack of the same depth, whose top Controller nests one level less, and so on.
+ */
+class BenchmarkController(args: Bundle) : Controller(args) {
+
+  constructor(nesting: Int = 0, depth: Int = 1) : this(
+    Bundle().apply {
+      putInt(KEY_NESTING, nesting)
+      putInt(KEY_DEPTH, depth)
+    }
+  )
+
+  private val nesting = args.getInt(KEY_NESTING)
+  private val depth = args.getInt(KEY_DEPTH)
+
+  override fun onCreateView(inflater: LayoutInflater, container: ViewGroup, savedViewState: Bundle?): View {
+    val view = FrameLayout(container.context)
+    view.id = CONTAINER_ID_BASE + nesting
+
+    if (nesting > 0) {
+      val childRouter = getChildRouter(view)
+      if (!childRouter.hasRootController()) {
+        childRouter.setBackstack(backstackOf(depth, nesting - 1), SimpleSwapChangeHandler())
+      }
+    }
+    return view
+  }
+
+  companion object {
+    private const val KEY_NESTING = "BenchmarkController.nesting"
+    private const val KEY_DEPTH = "BenchmarkController.depth"
+    private const val CONTAINER_ID_BASE = 0x7f0a0000
+  }
+}
+
+fun transactionFor(controller: Controller, tag: String? = null): RouterTransaction {
+  return RouterTransaction.with(controller)
+    .tag(tag)
+    .pushChangeHandler(SimpleSwapChangeHandler())
+    .popChangeHandler(SimpleSwapChangeHandler())
+}
+
+/**
+ * Builds a backstack of [depth] Controllers whose top Controller nests [topNesting] levels of child Routers. The
+ * root is tagged [ROOT_TAG].
+ */
+fun backstackOf(depth: Int, topNesting: Int = 0): List<RouterTransaction> {
+  return List(depth) { index ->
+    val isTop = index == depth - 1
+    transactionFor(
+      controller = BenchmarkController(nesting = if (isTop) topNesting else 0, depth = depth),
+      tag = if (index == 0) ROOT_TAG else null,
+    )
+  }
+}
+
+const val ROOT_TAG = "root"
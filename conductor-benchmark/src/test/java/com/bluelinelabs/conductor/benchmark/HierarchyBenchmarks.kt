@@ -0,0 +1,75 @@
+package com.bluelinelabs.conductor.benchmark
+
+import com.bluelinelabs.conductor.Controller
+import com.bluelinelabs.conductor.Router
+import com.bluelinelabs.conductor.changehandler.SimpleSwapChangeHandler
+import org.junit.After
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.robolectric.ParameterizedRobolectricTestRunner
+import org.robolectric.ParameterizedRobolectricTestRunner.Parameters
+import org.robolectric.Robolectric
+import org.robolectric.android.controller.ActivityController
+import org.robolectric.annotation.Config
+
+/**
+ * Measures operations that walk the whole Router hierarchy, for backstacks of increasing depth nested inside
+ * increasing levels of child Routers.
+ */
+@RunWith(ParameterizedRobolectricTestRunner::class)
+@Config(manifest = Config.NONE)
+class HierarchyBenchmarks(private val depth: Int, private val nesting: Int) {
+
+  private val params = "depth=$depth nesting=$nesting"
+
+  private val activityController = Robolectric.buildActivity(BenchmarkActivity::class.java).setup()
+
+  @After
+  fun teardown() {
+    activityController.destroy()
+  }
+
+  @Test
+  fun getControllerWithInstanceId() {
+    Benchmark.measure(
+      "getControllerWithInstanceId",
+      params,
+      setup = {
+        val router = startedActivity().get().router
+        router to deepestController(router).instanceId
+      },
+    ) { (router, instanceId) ->
+      checkNotNull(router.getControllerWithInstanceId(instanceId))
+    }
+  }
+
+  @Test
+  fun lifecycleFanOut() {
+    Benchmark.measure("lifecycleFanOut", params, setup = ::startedActivity) { activityController ->
+      activityController.pause().stop().start().resume()
+    }
+  }
+
+  private fun startedActivity(): ActivityController<BenchmarkActivity> {
+    activityController.get().router.setBackstack(backstackOf(depth, nesting), SimpleSwapChangeHandler())
+    return activityController
+  }
+
+  private fun deepestController(router: Router): Controller {
+    var controller = router.backstack.last().controller
+    while (controller.childRouters.isNotEmpty()) {
+      controller = controller.childRouters.first().backstack.last().controller
+    }
+    return controller
+  }
+
+  companion object {
+    @JvmStatic
+    @Parameters(name = "depth={0}, nesting={1}")
+    fun parameters(): List<Array<Any>> {
+      return listOf(1, 10, 100, 500).flatMap { depth ->
+        listOf(1, 3, 5).map { nesting -> arrayOf<Any>(depth, nesting) }
+      }
+    }
+  }
+}
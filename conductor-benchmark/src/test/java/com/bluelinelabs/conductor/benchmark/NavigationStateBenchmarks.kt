@@ -0,0 +1,80 @@
+package com.bluelinelabs.conductor.benchmark
+
+import com.bluelinelabs.conductor.navigation.BackstackDiff
+import com.bluelinelabs.conductor.navigation.NavigationStack
+import com.bluelinelabs.conductor.navigation.RevealsEntryBelow
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.junit.runners.Parameterized
+import org.junit.runners.Parameterized.Parameters
+
+/**
+ * Measures the platform-independent navigation state on plain JVM stacks, far deeper than a Router would hold.
+ */
+@RunWith(Parameterized::class)
+class NavigationStateBenchmarks(private val depth: Int) {
+
+  private val params = "depth=$depth"
+
+  @Test
+  fun stackPushAndPop() {
+    Benchmark.measure("stackPushAndPop", params, setup = { stackOf(depth) }) { stack ->
+      stack.push(Entry(depth))
+      stack.pop()
+    }
+  }
+
+  @Test
+  fun stackSnapshot() {
+    Benchmark.measure("stackSnapshot", params, setup = { stackOf(depth).also { it.push(Entry(depth)) } }) { stack ->
+      stack.snapshot()
+    }
+  }
+
+  @Test
+  fun diffReplaceTop() {
+    Benchmark.measure(
+      "diffReplaceTop",
+      params,
+      setup = {
+        val oldStack = entriesOf(depth)
+        oldStack to oldStack.dropLast(1) + Entry(depth)
+      },
+    ) { (oldStack, newStack) ->
+      BackstackDiff.calculate(oldStack, newStack, REVEALS_BELOW) { it }
+    }
+  }
+
+  @Test
+  fun diffRearrange() {
+    Benchmark.measure(
+      "diffRearrange",
+      params,
+      setup = {
+        val oldStack = entriesOf(depth)
+        oldStack to oldStack.reversed()
+      },
+    ) { (oldStack, newStack) ->
+      BackstackDiff.calculate(oldStack, newStack, REVEALS_BELOW) { it }
+    }
+  }
+
+  private fun entriesOf(depth: Int): List<Entry> = List(depth) { Entry(it) }
+
+  private fun stackOf(depth: Int): NavigationStack<Entry> {
+    return NavigationStack(emptyArray<Entry>()).also { it.setEntries(entriesOf(depth)) }
+  }
+
+  private class Entry(val index: Int) {
+    // Every tenth entry is shown as a dialog over the one below it.
+    val revealsBelow = index % 10 == 9
+  }
+
+  companion object {
+    private val REVEALS_BELOW = RevealsEntryBelow<Entry> { it.revealsBelow }
+
+    @JvmStatic
+    @Parameters(name = "depth={0}")
+    fun depths(): List<Array<Any>> = listOf(100, 10_000, 1_000_000).map { arrayOf<Any>(it) }
+  }
+}
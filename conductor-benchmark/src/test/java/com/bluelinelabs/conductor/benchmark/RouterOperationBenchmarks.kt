@@ -0,0 +1,103 @@
+package com.bluelinelabs.conductor.benchmark
+
+import android.os.Bundle
+import com.bluelinelabs.conductor.Router
+import com.bluelinelabs.conductor.changehandler.SimpleSwapChangeHandler
+import org.junit.After
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.robolectric.ParameterizedRobolectricTestRunner
+import org.robolectric.ParameterizedRobolectricTestRunner.Parameters
+import org.robolectric.Robolectric
+import org.robolectric.android.controller.ActivityController
+import org.robolectric.annotation.Config
+
+/**
+ * Measures single Router operations against backstacks of increasing depth.
+ */
+@RunWith(ParameterizedRobolectricTestRunner::class)
+@Config(manifest = Config.NONE)
+class RouterOperationBenchmarks(private val depth: Int) {
+
+  private val params = "depth=$depth"
+
+  // Every iteration reuses the same activity with a fresh backstack, rather than leaving a new one behind each time.
+  private val activityController = Robolectric.buildActivity(BenchmarkActivity::class.java).setup()
+
+  @After
+  fun teardown() {
+    activityController.destroy()
+  }
+
+  @Test
+  fun pushAndPop() {
+    Benchmark.measure("pushAndPop", params, setup = ::routerWithBackstack) { router ->
+      router.pushController(transactionFor(BenchmarkController()))
+      router.popCurrentController()
+    }
+  }
+
+  @Test
+  fun replaceTopController() {
+    Benchmark.measure("replaceTopController", params, setup = ::routerWithBackstack) { router ->
+      router.replaceTopController(transactionFor(BenchmarkController()))
+    }
+  }
+
+  @Test
+  fun setBackstack() {
+    Benchmark.measure(
+      "setBackstack",
+      params,
+      setup = { routerWithBackstack() to backstackOf(depth) },
+    ) { (router, backstack) ->
+      router.setBackstack(backstack, SimpleSwapChangeHandler())
+    }
+  }
+
+  @Test
+  fun popToTag() {
+    Benchmark.measure("popToTag", params, setup = ::routerWithBackstack) { router ->
+      router.popToTag(ROOT_TAG)
+    }
+  }
+
+  @Test
+  fun saveInstanceState() {
+    Benchmark.measure("saveInstanceState", params, setup = ::startedActivity) { activityController ->
+      activityController.saveInstanceState(Bundle())
+    }
+  }
+
+  @Test
+  fun restoreInstanceState() {
+    var restoredActivity: ActivityController<BenchmarkActivity>? = null
+    Benchmark.measure(
+      "restoreInstanceState",
+      params,
+      setup = {
+        val savedState = Bundle()
+        startedActivity().saveInstanceState(savedState)
+        savedState
+      },
+      teardown = { restoredActivity?.destroy() },
+    ) { savedState ->
+      restoredActivity = Robolectric.buildActivity(BenchmarkActivity::class.java).create(savedState)
+    }
+  }
+
+  private fun startedActivity(): ActivityController<BenchmarkActivity> {
+    activityController.get().router.setBackstack(backstackOf(depth), SimpleSwapChangeHandler())
+    return activityController
+  }
+
+  private fun routerWithBackstack(): Router {
+    return startedActivity().get().router
+  }
+
+  companion object {
+    @JvmStatic
+    @Parameters(name = "depth={0}")
+    fun depths(): List<Array<Any>> = listOf(1, 10, 100, 500).map { arrayOf<Any>(it) }
+  }
+}
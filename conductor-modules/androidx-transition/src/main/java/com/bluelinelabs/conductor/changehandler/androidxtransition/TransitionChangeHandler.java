@@ -1,5 +1,6 @@
 package com.bluelinelabs.conductor.changehandler.androidxtransition;
 
+import android.animation.Animator;
 import android.view.View;
 import android.view.ViewGroup;
 
@@ -10,6 +11,7 @@ import androidx.transition.TransitionManager;
 
 import com.bluelinelabs.conductor.Controller;
 import com.bluelinelabs.conductor.ControllerChangeHandler;
+import com.bluelinelabs.conductor.internal.AnimatorSeeker;
 
 /**
  * A base {@link ControllerChangeHandler} that facilitates using {@link Transition}s to replace Controller Views.
@@ -25,6 +27,8 @@ public abstract class TransitionChangeHandler extends ControllerChangeHandler {
 
     boolean canceled;
     private boolean needsImmediateCompletion;
+    @Nullable
+    private BackGesture backGesture;
 
     /**
      * Should be overridden to return the Transition to use while replacing Views.
@@ -48,15 +52,83 @@ public abstract class TransitionChangeHandler extends ControllerChangeHandler {
     public void completeImmediately() {
         super.completeImmediately();
 
+        if (backGesture != null) {
+            backGesture.seeker.end();
+        }
         needsImmediateCompletion = true;
     }
 
+    /**
+     * Transitions can't be seeked, so predictive back gestures scrub an Animator instead. Overriding this to return
+     * an Animator that plays the same pop as this handler's Transition lets the gesture preview it. When the gesture
+     * is committed, the Animator finishes from wherever it was left and the views are changed without running the
+     * Transition. Defaults to {@code null}, in which case back gestures aren't previewed and the Transition plays as
+     * usual once the pop is committed.
+     *
+     * @param container The container these Views are hosted in
+     * @param from      The View being popped
+     * @param to        The View being revealed, which has already been added below the "from" View, or {@code null} if
+     *                  there is no Controller to reveal. It may not have been laid out yet.
+     */
+    @Nullable
+    protected Animator getBackAnimator(@NonNull ViewGroup container, @NonNull View from, @Nullable View to) {
+        return null;
+    }
+
+    /**
+     * Will be called after a back gesture previewed with {@link #getBackAnimator} ends to reset the View that was
+     * removed, or kept if the gesture was cancelled, to its pre-animation state.
+     */
+    protected void resetFromView(@NonNull View from) { }
+
+    @Override
+    public void handleOnBackStarted(@NonNull ViewGroup container, @Nullable View to, @NonNull View from, int swipeEdge) {
+        if (backGesture != null) {
+            return;
+        }
+
+        boolean addedTo = to != null && to.getParent() == null;
+        if (addedTo) {
+            container.addView(to, container.indexOfChild(from));
+        }
+
+        Animator animator = getBackAnimator(container, from, to);
+        if (animator == null) {
+            if (addedTo) {
+                container.removeView(to);
+            }
+            return;
+        }
+
+        backGesture = new BackGesture(container, from, to, addedTo, new AnimatorSeeker(animator));
+        backGesture.seeker.seekTo(0);
+    }
+
+    @Override
+    public void handleOnBackProgressed(@NonNull ViewGroup container, @Nullable View to, @NonNull View from, float progress, int swipeEdge) {
+        if (backGesture != null) {
+            backGesture.seeker.seekTo(progress);
+        }
+    }
+
+    @Override
+    public void handleOnBackCancelled(@NonNull ViewGroup container, @Nullable View to, @NonNull View from) {
+        if (backGesture != null) {
+            backGesture.seeker.settleTo(0, backGesture);
+        }
+    }
+
     @Nullable
     private ControllerChangeCompletedListener listener;
 
     @Override
     public void performChange(@NonNull final ViewGroup container, @Nullable final View from, @Nullable final View to, final boolean isPush, @NonNull final ControllerChangeCompletedListener changeListener) {
         listener = changeListener;
+        if (backGesture != null && !isPush && backGesture.from == from && backGesture.to == to) {
+            backGesture.changeListener = changeListener;
+            backGesture.seeker.settleTo(1, backGesture);
+            return;
+        }
         if (canceled) {
             changeListener.onChangeCompleted();
             return;
@@ -150,4 +222,37 @@ public abstract class TransitionChangeHandler extends ControllerChangeHandler {
         }
     }
 
+    private class BackGesture implements Runnable {
+        final ViewGroup container;
+        final View from;
+        final View to;
+        final boolean addedTo;
+        final AnimatorSeeker seeker;
+        ControllerChangeCompletedListener changeListener;
+
+        BackGesture(ViewGroup container, View from, View to, boolean addedTo, AnimatorSeeker seeker) {
+            this.container = container;
+            this.from = from;
+            this.to = to;
+            this.addedTo = addedTo;
+            this.seeker = seeker;
+        }
+
+        // Runs once the seeker settles, either on the committed pop or back where the gesture started.
+        @Override
+        public void run() {
+            backGesture = null;
+            if (changeListener != null) {
+                executePropertyChanges(container, from, to, null, false);
+                resetFromView(from);
+                changeListener.onChangeCompleted();
+            } else {
+                resetFromView(from);
+                if (addedTo && to.getParent() == container) {
+                    container.removeView(to);
+                }
+            }
+        }
+    }
+
 }
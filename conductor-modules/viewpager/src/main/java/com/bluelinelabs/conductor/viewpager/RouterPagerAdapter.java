@@ -1,5 +1,6 @@
 package com.bluelinelabs.conductor.viewpager;
 
+import android.content.ComponentCallbacks2;
 import android.os.Bundle;
 import android.os.Parcelable;
 import android.util.SparseArray;
@@ -15,9 +16,12 @@ import com.bluelinelabs.conductor.Router;
 import com.bluelinelabs.conductor.RouterTransaction;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
 
 /**
  * An ViewPager adapter that uses Routers as pages
@@ -30,6 +34,9 @@ public abstract class RouterPagerAdapter extends PagerAdapter {
     private static final String KEY_MAX_PAGES_TO_STATE_SAVE = "RouterPagerAdapter.maxPagesToStateSave";
     private static final String KEY_SAVE_PAGE_HISTORY = "RouterPagerAdapter.savedPageHistory";
 
+    // One listener per host, shared by all of the adapters created for it.
+    private static final Map<Controller, TrimMemoryListener> trimMemoryListeners = new WeakHashMap<>();
+
     private final Controller host;
     private int maxPagesToStateSave = Integer.MAX_VALUE;
     private final Map<Integer, String> tags = new HashMap<>();
@@ -43,6 +50,14 @@ public abstract class RouterPagerAdapter extends PagerAdapter {
      */
     public RouterPagerAdapter(@NonNull Controller host) {
         this.host = host;
+
+        TrimMemoryListener trimMemoryListener = trimMemoryListeners.get(host);
+        if (trimMemoryListener == null) {
+            trimMemoryListener = new TrimMemoryListener();
+            trimMemoryListeners.put(host, trimMemoryListener);
+            host.addLifecycleListener(trimMemoryListener);
+        }
+        trimMemoryListener.adapters.add(this);
     }
 
     /**
@@ -198,14 +213,37 @@ public abstract class RouterPagerAdapter extends PagerAdapter {
     }
 
     private void ensurePagesSaved() {
-        while (savedPages.size() > maxPagesToStateSave) {
+        trimSavedPages(maxPagesToStateSave);
+    }
+
+    private void trimSavedPages(int maxPages) {
+        while (savedPages.size() > maxPages) {
             int positionToRemove = savedPageHistory.remove(0);
             savedPages.remove(positionToRemove);
         }
     }
 
+    void onTrimMemory(int level) {
+        // Under memory pressure, drop the least recently saved half of the off-screen pages' states.
+        if (level >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW && level != ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN) {
+            trimSavedPages(savedPages.size() / 2);
+        }
+    }
+
     private static String makeRouterName(int viewId, long id) {
         return viewId + ":" + id;
     }
 
+    // Adapters are often recreated along with their host's view, so the host must not keep old ones alive.
+    private static class TrimMemoryListener extends Controller.LifecycleListener {
+        final Set<RouterPagerAdapter> adapters = Collections.newSetFromMap(new WeakHashMap<>());
+
+        @Override
+        public void onTrimMemory(@NonNull Controller controller, int level) {
+            for (RouterPagerAdapter adapter : new ArrayList<>(adapters)) {
+                adapter.onTrimMemory(level);
+            }
+        }
+    }
+
 }
@@ -1,5 +1,7 @@
 package com.bluelinelabs.conductor.viewpager
 
+import android.content.ComponentCallbacks2
+import com.bluelinelabs.conductor.Router
 import com.bluelinelabs.conductor.viewpager.util.TestActivity
 import org.junit.Assert.assertEquals
 import org.junit.Test
@@ -75,4 +77,41 @@ class StateSaveTests {
     assertEquals(destroyedItems[destroyedItems.lastIndex - 1], savedPages.keyAt(1))
     assertEquals(destroyedItems[destroyedItems.lastIndex - 2], savedPages.keyAt(2))
   }
-}
\ No newline at end of file
+
+  @Test
+  fun testTrimMemory() {
+    // Load all pages
+    for (i in 0 until pagerAdapter.count) {
+      pager.currentItem = i
+    }
+
+    val savedPageCount = pagerAdapter.savedPages.size()
+    testController.router.onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_RUNNING_MODERATE)
+    assertEquals(savedPageCount, pagerAdapter.savedPages.size())
+
+    testController.router.onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW)
+    assertEquals(savedPageCount / 2, pagerAdapter.savedPages.size())
+
+    // The most recently saved pages are kept
+    assertEquals(destroyedItems[destroyedItems.lastIndex], pagerAdapter.savedPages.keyAt(pagerAdapter.savedPages.size() - 1))
+  }
+
+  @Test
+  fun testTrimMemoryWithSharedHost() {
+    // Load all pages
+    for (i in 0 until pagerAdapter.count) {
+      pager.currentItem = i
+    }
+
+    // Another adapter for the same host shares its listener rather than adding one of its own.
+    val otherAdapter = object : RouterPagerAdapter(testController) {
+      override fun configureRouter(router: Router, position: Int) { }
+      override fun getCount(): Int = 0
+    }
+
+    val savedPageCount = pagerAdapter.savedPages.size()
+    testController.router.onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW)
+    assertEquals(savedPageCount / 2, pagerAdapter.savedPages.size())
+    assertEquals(0, otherAdapter.savedPages.size())
+  }
+}
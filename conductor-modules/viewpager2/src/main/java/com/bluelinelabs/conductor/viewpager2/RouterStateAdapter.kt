@@ -1,5 +1,6 @@
 package com.bluelinelabs.conductor.viewpager2
 
+import android.content.ComponentCallbacks2
 import android.os.Bundle
 import android.os.Parcelable
 import android.util.LongSparseArray
@@ -11,6 +12,8 @@ import androidx.viewpager2.widget.ViewPager2
 import com.bluelinelabs.conductor.Controller
 import com.bluelinelabs.conductor.Router
 import kotlinx.parcelize.Parcelize
+import java.util.Collections
+import java.util.WeakHashMap
 
 /**
  * An ViewPager2 adapter that uses Routers as pages
@@ -27,6 +30,10 @@ abstract class RouterStateAdapter(private val host: Controller) :
 
   init {
     super.setHasStableIds(true)
+    val trimMemoryListener = trimMemoryListeners.getOrPut(host) {
+      TrimMemoryListener().also { host.addLifecycleListener(it) }
+    }
+    trimMemoryListener.adapters.add(this)
   }
 
   /**
@@ -219,12 +226,23 @@ abstract class RouterStateAdapter(private val host: Controller) :
   }
 
   private fun ensurePagesSaved() {
-    while (savedPages.size() > maxPagesToStateSave) {
+    trimSavedPages(maxPagesToStateSave)
+  }
+
+  private fun trimSavedPages(maxPages: Int) {
+    while (savedPages.size() > maxPages) {
       val routerIdToRemove = savedPageHistory.removeAt(0)
       savedPages.remove(routerIdToRemove)
     }
   }
 
+  internal fun onTrimMemory(level: Int) {
+    // Under memory pressure, drop the least recently saved half of the off-screen pages' states.
+    if (level >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW && level != ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN) {
+      trimSavedPages(savedPages.size() / 2)
+    }
+  }
+
   /**
    * Returns the already instantiated Router in the specified position or `null` if there
    * is no router associated with this position.
@@ -246,6 +264,20 @@ abstract class RouterStateAdapter(private val host: Controller) :
     }
   }
 
+  // Adapters are often recreated along with their host's view, so the host must not keep old ones alive.
+  private class TrimMemoryListener : Controller.LifecycleListener() {
+    val adapters: MutableSet<RouterStateAdapter> = Collections.newSetFromMap(WeakHashMap())
+
+    override fun onTrimMemory(controller: Controller, level: Int) {
+      adapters.toList().forEach { it.onTrimMemory(level) }
+    }
+  }
+
+  private companion object {
+    // One listener per host, shared by all of the adapters created for it.
+    val trimMemoryListeners = WeakHashMap<Controller, TrimMemoryListener>()
+  }
+
   @Parcelize
   private data class SavedState(
     val savedPagesKeys: List<Long>,
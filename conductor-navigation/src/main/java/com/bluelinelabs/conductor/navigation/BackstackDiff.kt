@@ -0,0 +1,157 @@
+package com.bluelinelabs.conductor.navigation
+
+import java.util.Collections
+import java.util.IdentityHashMap
+
+/**
+ * The plan for replacing one backstack with another: which entries leave the stack, and which visible entries need
+ * to be changed to get from the old visible entries to the new ones. Changes are meant to be performed in order:
+ * first the visible root is replaced (see [replacesVisibleRoot]), then [visibleRemovals] are removed and finally
+ * [visibleAdditions] are added.
+ *
+ * Two entries show the same screen when their [EntryKey]s are identical. Otherwise entries are compared with
+ * `equals`.
+ */
+class BackstackDiff<T> private constructor(
+  /** The old visible entries, ordered from the lowest visible entry to the top. */
+  val oldVisible: List<T>,
+
+  /** The new visible entries, ordered from the lowest visible entry to the top. */
+  val newVisible: List<T>,
+
+  /** Entries of the old stack whose screen is not part of the new stack, ordered from the root to the top. */
+  val removed: List<T>,
+
+  /** Whether the new visible entries differ from the old ones. */
+  val visibleChanged: Boolean,
+
+  /**
+   * Whether the change to the new lowest visible entry is a push, which is the case unless that entry was already
+   * on the old stack.
+   */
+  val newRootRequiresPush: Boolean,
+
+  /** Whether the lowest visible entry is replaced by a different screen. */
+  val replacesVisibleRoot: Boolean,
+
+  /** Old visible entries that have to be removed, ordered from the top down. */
+  val visibleRemovals: List<T>,
+
+  /** New visible entries that have to be added, ordered from the bottom up. */
+  val visibleAdditions: List<Addition<T>>,
+) {
+
+  /** The lowest old visible entry, or `null` if nothing was visible. */
+  val oldVisibleRoot: T? get() = oldVisible.firstOrNull()
+
+  /** The lowest new visible entry, or `null` if nothing will be visible. */
+  val newVisibleRoot: T? get() = newVisible.firstOrNull()
+
+  /** A visible entry to be added on top of the entry below it. */
+  class Addition<T>(val entry: T, val below: T)
+
+  companion object {
+    /**
+     * Calculates the plan for replacing [oldStack] with [newStack].
+     *
+     * @param oldStack     The current stack, ordered from the root to the top.
+     * @param newStack     The new stack, ordered from the root to the top.
+     * @param revealsBelow Whether an entry leaves the entry below it visible.
+     * @param key          Returns the screen an entry shows.
+     */
+    @JvmStatic
+    fun <T> calculate(
+      oldStack: List<T>,
+      newStack: List<T>,
+      revealsBelow: RevealsEntryBelow<T>,
+      key: EntryKey<T>,
+    ): BackstackDiff<T> {
+      val oldVisible = visibleEntries(oldStack.asReversed().iterator(), false, revealsBelow)
+      val newVisible = visibleEntries(newStack.asReversed().iterator(), false, revealsBelow)
+
+      val newKeys = Collections.newSetFromMap(IdentityHashMap<Any, Boolean>(newStack.size))
+      newStack.mapTo(newKeys) { key.keyOf(it) }
+      val removed = oldStack.filter { key.keyOf(it) !in newKeys }
+
+      if (newVisible.isEmpty()) {
+        return BackstackDiff(
+          oldVisible = oldVisible,
+          newVisible = newVisible,
+          removed = removed,
+          visibleChanged = oldVisible.isNotEmpty(),
+          newRootRequiresPush = false,
+          replacesVisibleRoot = false,
+          visibleRemovals = oldVisible.asReversed().toList(),
+          visibleAdditions = emptyList(),
+        )
+      }
+
+      val newRoot = newVisible[0]
+      val visibleChanged = !sameScreens(newVisible, oldVisible, key)
+      if (!visibleChanged) {
+        return BackstackDiff(
+          oldVisible = oldVisible,
+          newVisible = newVisible,
+          removed = removed,
+          visibleChanged = false,
+          newRootRequiresPush = newRoot !in oldStack,
+          replacesVisibleRoot = false,
+          visibleRemovals = emptyList(),
+          visibleAdditions = emptyList(),
+        )
+      }
+
+      val oldRoot = oldVisible.firstOrNull()
+
+      val newVisibleEntries = newVisible.toHashSet()
+      val visibleRemovals = ArrayList<T>()
+      for (i in oldVisible.size - 1 downTo 1) {
+        val entry = oldVisible[i]
+        if (entry !in newVisibleEntries) {
+          visibleRemovals.add(entry)
+        }
+      }
+
+      val oldVisibleEntries = oldVisible.toHashSet()
+      val visibleAdditions = ArrayList<Addition<T>>()
+      for (i in 1 until newVisible.size) {
+        val entry = newVisible[i]
+        if (entry !in oldVisibleEntries) {
+          visibleAdditions.add(Addition(entry, newVisible[i - 1]))
+        }
+      }
+
+      return BackstackDiff(
+        oldVisible = oldVisible,
+        newVisible = newVisible,
+        removed = removed,
+        visibleChanged = true,
+        newRootRequiresPush = newRoot !in oldStack,
+        replacesVisibleRoot = oldRoot == null || key.keyOf(oldRoot) !== key.keyOf(newRoot),
+        visibleRemovals = visibleRemovals,
+        visibleAdditions = visibleAdditions,
+      )
+    }
+
+    private fun <T> sameScreens(lhs: List<T>, rhs: List<T>, key: EntryKey<T>): Boolean {
+      if (lhs.size != rhs.size) {
+        return false
+      }
+
+      for (i in rhs.indices) {
+        if (key.keyOf(rhs[i]) !== key.keyOf(lhs[i])) {
+          return false
+        }
+      }
+
+      return true
+    }
+  }
+}
+
+/**
+ * Returns what a navigation entry shows, so that different entries showing the same screen can be recognized.
+ */
+fun interface EntryKey<T> {
+  fun keyOf(entry: T): Any
+}
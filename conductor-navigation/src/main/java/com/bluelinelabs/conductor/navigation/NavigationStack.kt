@@ -0,0 +1,89 @@
+package com.bluelinelabs.conductor.navigation
+
+import java.util.ArrayDeque
+import java.util.Deque
+
+/**
+ * A stack of navigation entries, independent of what the entries are. Iteration runs from the top of the stack to
+ * its root over a snapshot, so the stack can safely be changed while it's being iterated.
+ *
+ * @param emptyArray An empty array of the entry type, used to create snapshots.
+ */
+class NavigationStack<T : Any>(private val emptyArray: Array<T>) : Iterable<T> {
+
+  private val entries: Deque<T> = ArrayDeque()
+
+  // A copy of the entries for iterating them while they may change, rebuilt only after they have changed.
+  private var snapshot: Array<T>? = null
+
+  val isEmpty: Boolean get() = entries.isEmpty()
+
+  val size: Int get() = entries.size
+
+  /** Returns the top entry, or `null` if the stack is empty. */
+  fun peek(): T? = entries.peek()
+
+  /** Returns the root entry, or `null` if the stack is empty. */
+  fun root(): T? = entries.peekLast()
+
+  override fun iterator(): Iterator<T> = snapshot().iterator()
+
+  fun reverseIterator(): Iterator<T> = toListFromRoot().iterator()
+
+  /**
+   * Returns the entries from top to root. The returned array is shared until the stack next changes, so it must not
+   * be modified.
+   */
+  fun snapshot(): Array<T> {
+    snapshot?.let { return it }
+
+    val copy = emptyArray.copyOf(entries.size)
+    var index = 0
+    for (entry in entries) {
+      copy[index++] = entry
+    }
+
+    @Suppress("UNCHECKED_CAST")
+    return (copy as Array<T>).also { snapshot = it }
+  }
+
+  operator fun contains(entry: T): Boolean = entries.contains(entry)
+
+  fun push(entry: T) {
+    snapshot = null
+    entries.push(entry)
+  }
+
+  fun pop(): T {
+    snapshot = null
+    return entries.pop()
+  }
+
+  fun remove(entry: T): Boolean {
+    snapshot = null
+    return entries.remove(entry)
+  }
+
+  /**
+   * Replaces all entries with the passed ones, ordered from root to top.
+   */
+  fun setEntries(entries: List<T>) {
+    snapshot = null
+    this.entries.clear()
+    for (entry in entries) {
+      this.entries.push(entry)
+    }
+  }
+
+  /**
+   * Returns the entries ordered from root to top.
+   */
+  fun toListFromRoot(): List<T> {
+    val snapshot = snapshot()
+    val list = ArrayList<T>(snapshot.size)
+    for (index in snapshot.size - 1 downTo 0) {
+      list.add(snapshot[index])
+    }
+    return list
+  }
+}
@@ -0,0 +1,37 @@
+package com.bluelinelabs.conductor.navigation
+
+/**
+ * Hands out increasing indices for navigation entries, so that the order in which entries were added can be
+ * restored along with them.
+ */
+class TransactionIndices {
+
+  var currentIndex = 0
+
+  fun nextIndex(): Int {
+    return ++currentIndex
+  }
+
+  companion object {
+    /**
+     * Reassigns the indices already used by the passed entries in increasing order from the root entry to the top
+     * one, so that rearranging a stack doesn't leave its indices out of order.
+     *
+     * @param rootFirst The entries, ordered from the root to the top.
+     */
+    @JvmStatic
+    fun <T> reorder(rootFirst: List<T>, indices: IndexAccessor<T>) {
+      val sorted = IntArray(rootFirst.size) { indices.getIndex(rootFirst[it]) }
+      sorted.sort()
+
+      for (i in rootFirst.indices) {
+        indices.setIndex(rootFirst[i], sorted[i])
+      }
+    }
+  }
+
+  interface IndexAccessor<T> {
+    fun getIndex(entry: T): Int
+    fun setIndex(entry: T, index: Int)
+  }
+}
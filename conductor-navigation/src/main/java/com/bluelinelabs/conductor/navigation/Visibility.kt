@@ -0,0 +1,40 @@
+@file:JvmName("Visibility")
+
+package com.bluelinelabs.conductor.navigation
+
+/**
+ * Tells whether the entry below a navigation entry stays visible while that entry is on top of it, such as when an
+ * entry is pushed as a dialog.
+ */
+fun interface RevealsEntryBelow<T> {
+  fun revealsEntryBelow(entry: T): Boolean
+}
+
+/**
+ * Returns the entries of a stack that are currently visible, ordered from the lowest visible entry to the top.
+ *
+ * @param topFirst      The stack's entries, ordered from the top to the root.
+ * @param onlyTop       Whether to stop at the first entry that hides the ones below it.
+ * @param revealsBelow  Whether an entry leaves the entry below it visible.
+ */
+fun <T> visibleEntries(topFirst: Iterator<T>, onlyTop: Boolean, revealsBelow: RevealsEntryBelow<T>): List<T> {
+  var visible = true
+
+  val entries = ArrayList<T>()
+  while (topFirst.hasNext()) {
+    val entry = topFirst.next()
+
+    if (visible) {
+      entries.add(entry)
+    }
+
+    visible = revealsBelow.revealsEntryBelow(entry)
+
+    if (onlyTop && !visible) {
+      break
+    }
+  }
+
+  entries.reverse()
+  return entries
+}
@@ -0,0 +1,159 @@
+package com.bluelinelabs.conductor.navigation
+
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertTrue
+import org.junit.Test
+import kotlin.random.Random
+
+class BackstackDiffTests {
+
+  @Test
+  fun testVisibleEntries() {
+    val root = Entry(Screen())
+    val screen = Entry(Screen())
+    val dialog = Entry(Screen(), revealsBelow = true)
+    val top = Entry(Screen(), revealsBelow = true)
+
+    assertEquals(listOf(root, dialog, top), visible(root, dialog, top))
+    assertEquals(listOf(screen, dialog, top), visible(root, screen, dialog, top))
+    assertEquals(listOf(screen), visible(root, screen))
+    assertEquals(
+      listOf(screen, dialog),
+      visibleEntries(listOf(root, screen, dialog).asReversed().iterator(), true, REVEALS_BELOW)
+    )
+  }
+
+  @Test
+  fun testPush() {
+    val root = Entry(Screen())
+    val top = Entry(Screen())
+    val diff = calculate(listOf(root), listOf(root, top))
+
+    assertTrue(diff.visibleChanged)
+    assertTrue(diff.replacesVisibleRoot)
+    assertTrue(diff.newRootRequiresPush)
+    assertEquals(root, diff.oldVisibleRoot)
+    assertEquals(top, diff.newVisibleRoot)
+    assertTrue(diff.removed.isEmpty())
+  }
+
+  @Test
+  fun testPop() {
+    val root = Entry(Screen())
+    val top = Entry(Screen())
+    val diff = calculate(listOf(root, top), listOf(root))
+
+    assertTrue(diff.replacesVisibleRoot)
+    assertFalse(diff.newRootRequiresPush)
+    assertEquals(listOf(top), diff.removed)
+  }
+
+  @Test
+  fun testUnchangedTop() {
+    val root = Entry(Screen())
+    val top = Entry(Screen())
+    val diff = calculate(listOf(root, top), listOf(Entry(Screen()), top))
+
+    assertFalse(diff.visibleChanged)
+    assertEquals(listOf(root), diff.removed)
+  }
+
+  @Test
+  fun testSameScreenInNewEntry() {
+    val screen = Screen()
+    val diff = calculate(listOf(Entry(screen)), listOf(Entry(screen)))
+
+    assertFalse(diff.visibleChanged)
+    assertTrue(diff.newRootRequiresPush)
+    assertTrue(diff.removed.isEmpty())
+  }
+
+  @Test
+  fun testDialogs() {
+    val root = Entry(Screen())
+    val oldDialog = Entry(Screen(), revealsBelow = true)
+    val newDialog = Entry(Screen(), revealsBelow = true)
+    val diff = calculate(listOf(root, oldDialog), listOf(root, newDialog))
+
+    assertTrue(diff.visibleChanged)
+    assertFalse(diff.replacesVisibleRoot)
+    assertEquals(listOf(oldDialog), diff.visibleRemovals)
+    assertEquals(listOf(newDialog), diff.visibleAdditions.map { it.entry })
+    assertEquals(listOf(root), diff.visibleAdditions.map { it.below })
+  }
+
+  @Test
+  fun testClear() {
+    val root = Entry(Screen())
+    val dialog = Entry(Screen(), revealsBelow = true)
+    val diff = calculate(listOf(root, dialog), emptyList())
+
+    assertTrue(diff.visibleChanged)
+    assertEquals(listOf(dialog, root), diff.visibleRemovals)
+    assertEquals(listOf(root, dialog), diff.removed)
+  }
+
+  @Test
+  fun testRandomStacks() {
+    val random = Random(seed = 42)
+    val entries = List(1_000) { Entry(Screen(), revealsBelow = random.nextInt(4) == 0) }
+
+    repeat(500) {
+      val oldStack = entries.shuffled(random).take(random.nextInt(0, 100))
+      val newStack = entries.shuffled(random).take(random.nextInt(0, 100))
+      val diff = calculate(oldStack, newStack)
+
+      // Exactly the old entries whose screen isn't in the new stack are removed.
+      val newScreens = newStack.map { it.screen }.toSet()
+      assertEquals(oldStack.filter { it.screen !in newScreens }, diff.removed)
+
+      val visibleChanged = diff.oldVisible.map { it.screen } != diff.newVisible.map { it.screen }
+      assertEquals(visibleChanged, diff.visibleChanged)
+
+      if (!visibleChanged) {
+        assertTrue(diff.visibleRemovals.isEmpty())
+        assertTrue(diff.visibleAdditions.isEmpty())
+      } else if (newStack.isEmpty()) {
+        assertEquals(diff.oldVisible.asReversed(), diff.visibleRemovals)
+      } else {
+        // Only entries above the visible roots are removed or added, each on top of its new neighbor.
+        diff.visibleRemovals.forEach { entry ->
+          assertTrue(entry in diff.oldVisible.drop(1) && entry !in diff.newVisible)
+        }
+        diff.visibleAdditions.forEach { addition ->
+          val index = diff.newVisible.indexOf(addition.entry)
+          assertTrue(index > 0 && addition.entry !in diff.oldVisible)
+          assertEquals(diff.newVisible[index - 1], addition.below)
+        }
+        assertEquals(diff.oldVisibleRoot?.screen !== diff.newVisibleRoot?.screen, diff.replacesVisibleRoot)
+      }
+    }
+  }
+
+  @Test
+  fun testLargeStacks() {
+    val oldStack = List(50_000) { Entry(Screen(), revealsBelow = it % 2 == 0) }
+    val newStack = oldStack.filterIndexed { index, _ -> index % 3 != 0 }
+    val diff = calculate(oldStack, newStack)
+
+    assertEquals(oldStack.size - newStack.size, diff.removed.size)
+    assertEquals(newStack.last(), diff.newVisible.last())
+  }
+
+  private fun visible(vararg rootFirst: Entry): List<Entry> {
+    return visibleEntries(rootFirst.toList().asReversed().iterator(), false, REVEALS_BELOW)
+  }
+
+  private fun calculate(oldStack: List<Entry>, newStack: List<Entry>): BackstackDiff<Entry> {
+    return BackstackDiff.calculate(oldStack, newStack, REVEALS_BELOW) { it.screen }
+  }
+
+  private class Screen
+
+  private class Entry(val screen: Screen, val revealsBelow: Boolean = false)
+
+  companion object {
+    private val REVEALS_BELOW = RevealsEntryBelow<Entry> { it.revealsBelow }
+  }
+}
@@ -0,0 +1,73 @@
+package com.bluelinelabs.conductor.navigation
+
+import org.junit.Assert.assertArrayEquals
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertNull
+import org.junit.Assert.assertSame
+import org.junit.Test
+
+class NavigationStackTests {
+
+  private val stack = NavigationStack(emptyArray<String>())
+
+  @Test
+  fun testPushAndPop() {
+    assertNull(stack.peek())
+
+    stack.push("a")
+    stack.push("b")
+    assertEquals(2, stack.size)
+    assertEquals("b", stack.peek())
+    assertEquals("a", stack.root())
+
+    assertEquals("b", stack.pop())
+    assertEquals("a", stack.pop())
+    assertEquals(true, stack.isEmpty)
+  }
+
+  @Test
+  fun testOrdering() {
+    stack.setEntries(listOf("a", "b", "c"))
+
+    assertArrayEquals(arrayOf("c", "b", "a"), stack.snapshot())
+    assertEquals(listOf("c", "b", "a"), stack.toList())
+    assertEquals(listOf("a", "b", "c"), stack.toListFromRoot())
+    assertEquals(listOf("a", "b", "c"), stack.reverseIterator().asSequence().toList())
+  }
+
+  @Test
+  fun testSnapshotIsReusedUntilChanged() {
+    stack.setEntries(listOf("a", "b"))
+
+    val snapshot = stack.snapshot()
+    assertSame(snapshot, stack.snapshot())
+
+    stack.push("c")
+    assertArrayEquals(arrayOf("b", "a"), snapshot)
+    assertArrayEquals(arrayOf("c", "b", "a"), stack.snapshot())
+  }
+
+  @Test
+  fun testChangesWhileIterating() {
+    stack.setEntries(listOf("a", "b", "c"))
+
+    val visited = mutableListOf<String>()
+    for (entry in stack) {
+      visited.add(entry)
+      stack.remove(entry)
+    }
+
+    assertEquals(listOf("c", "b", "a"), visited)
+    assertEquals(true, stack.isEmpty)
+  }
+
+  @Test
+  fun testLargeStack() {
+    val entries = List(100_000) { "entry$it" }
+    stack.setEntries(entries)
+
+    assertEquals(entries.size, stack.size)
+    assertEquals(entries.last(), stack.peek())
+    assertEquals(entries, stack.toListFromRoot())
+  }
+}
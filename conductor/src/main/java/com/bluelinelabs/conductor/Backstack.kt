@@ -1,24 +1,30 @@
 package com.bluelinelabs.conductor
 
 import android.os.Bundle
-import java.util.ArrayDeque
-import java.util.Deque
+import com.bluelinelabs.conductor.internal.traceSection
+import com.bluelinelabs.conductor.navigation.NavigationStack
 
 internal class Backstack : Iterable<RouterTransaction> {
 
-  private val backstack: Deque<RouterTransaction> = ArrayDeque()
+  private val backstack = NavigationStack(emptyArray<RouterTransaction>())
 
-  val isEmpty: Boolean get() = backstack.isEmpty()
+  val isEmpty: Boolean get() = backstack.isEmpty
 
   val size: Int get() = backstack.size
 
   var onBackstackUpdatedListener: OnBackstackUpdatedListener? = null
 
-  fun root(): RouterTransaction? = backstack.lastOrNull()
+  fun root(): RouterTransaction? = backstack.root()
 
-  override fun iterator(): Iterator<RouterTransaction> = backstack.toTypedArray().iterator()
+  override fun iterator(): Iterator<RouterTransaction> = backstack.iterator()
 
-  fun reverseIterator(): Iterator<RouterTransaction> = backstack.reversed().iterator()
+  /**
+   * Returns the transactions in this backstack from top to root. The returned array is shared until the backstack
+   * next changes, so it must not be modified.
+   */
+  fun snapshot(): Array<RouterTransaction> = backstack.snapshot()
+
+  fun reverseIterator(): Iterator<RouterTransaction> = backstack.reverseIterator()
 
   fun remove(transaction: RouterTransaction) = backstack.remove(transaction)
 
@@ -58,16 +64,13 @@ internal class Backstack : Iterable<RouterTransaction> {
   }
 
   fun setBackstack(backstack: List<RouterTransaction>) {
-    this.backstack.clear()
-    backstack.forEach { transaction ->
-      this.backstack.push(transaction)
-    }
+    this.backstack.setEntries(backstack)
 
     onBackstackUpdatedListener?.onBackstackUpdated()
   }
 
   operator fun contains(controller: Controller): Boolean {
-    return backstack.any {
+    return backstack.snapshot().any {
       it.controller == controller
     }
   }
@@ -75,7 +78,7 @@ internal class Backstack : Iterable<RouterTransaction> {
   fun saveInstanceState(outState: Bundle) {
     val entryBundles = ArrayList<Bundle>(backstack.size)
     backstack.mapTo(entryBundles) {
-      it.saveInstanceState()
+      traceSection("Router.saveController", it.controller) { it.saveInstanceState() }
     }
     outState.putParcelableArrayList(KEY_ENTRIES, entryBundles)
   }
@@ -98,5 +101,12 @@ internal class Backstack : Iterable<RouterTransaction> {
 
   companion object {
     private const val KEY_ENTRIES = "Backstack.entries"
+
+    @JvmStatic
+    fun prefetchInstanceState(savedInstanceState: Bundle) {
+      savedInstanceState.getParcelableArrayList<Bundle?>(KEY_ENTRIES)?.forEach { transactionBundle ->
+        transactionBundle?.let { RouterTransaction.prefetchInstanceState(it) }
+      }
+    }
   }
 }
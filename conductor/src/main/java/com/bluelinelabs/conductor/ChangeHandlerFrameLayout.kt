@@ -2,21 +2,43 @@ package com.bluelinelabs.conductor
 
 import android.annotation.TargetApi
 import android.content.Context
+import android.graphics.Bitmap
+import android.graphics.Canvas
 import android.os.Build
 import android.util.AttributeSet
 import android.view.MotionEvent
+import android.view.View
 import android.view.ViewGroup
 import android.widget.FrameLayout
+import androidx.annotation.RestrictTo
 import com.bluelinelabs.conductor.ControllerChangeHandler.ControllerChangeListener
 
 /**
  * A FrameLayout implementation that can be used to block user interactions while
  * [ControllerChangeHandler]s are performing changes. It is not required to use this
- * ViewGroup, but it can be helpful.
+ * ViewGroup, but it can be helpful. It also skips drawing Controller views that are fully
+ * covered by an opaque Controller view, as declared through [Controller.setViewOpaque], and
+ * draws covered views from snapshots when requested through [Controller.setSnapshotWhileCovered].
  */
 open class ChangeHandlerFrameLayout : FrameLayout, ControllerChangeListener {
 
   private var inProgressTransactionCount = 0
+  private val culledViews = mutableListOf<View>()
+  private val snapshots = mutableMapOf<View, Bitmap>()
+
+  /**
+   * The number of child views currently skipped while drawing because an opaque Controller view
+   * covers them. Nothing is culled while a change is in progress.
+   */
+  val culledLayerCount: Int
+    get() = if (inProgressTransactionCount > 0) 0 else culledViews.size
+
+  /**
+   * The number of child views currently drawn from a snapshot instead of their live view hierarchy.
+   * Live views are drawn while a change is in progress.
+   */
+  val snapshotCount: Int
+    get() = if (inProgressTransactionCount > 0) 0 else snapshots.size
 
   constructor(context: Context) : super(context)
   constructor(context: Context, attrs: AttributeSet?) : super(context, attrs)
@@ -38,6 +60,89 @@ open class ChangeHandlerFrameLayout : FrameLayout, ControllerChangeListener {
     return inProgressTransactionCount > 0 || super.onInterceptTouchEvent(ev)
   }
 
+  override fun drawChild(canvas: Canvas, child: View, drawingTime: Long): Boolean {
+    if (inProgressTransactionCount == 0) {
+      if (culledViews.contains(child)) {
+        return false
+      }
+
+      val snapshot = snapshots[child]
+      if (snapshot != null) {
+        canvas.drawBitmap(snapshot, child.left.toFloat(), child.top.toFloat(), null)
+        return false
+      }
+    }
+    return super.drawChild(canvas, child, drawingTime)
+  }
+
+  override fun onViewRemoved(child: View) {
+    super.onViewRemoved(child)
+    culledViews.remove(child)
+    snapshots.remove(child)?.recycle()
+  }
+
+  @RestrictTo(RestrictTo.Scope.LIBRARY)
+  fun setCulledViews(views: List<View>) {
+    if (culledViews != views) {
+      culledViews.clear()
+      culledViews.addAll(views)
+      invalidate()
+    }
+  }
+
+  @RestrictTo(RestrictTo.Scope.LIBRARY)
+  fun setSnapshotViews(views: List<View>) {
+    var changed = false
+
+    val iterator = snapshots.entries.iterator()
+    while (iterator.hasNext()) {
+      val entry = iterator.next()
+      if (entry.key !in views) {
+        entry.value.recycle()
+        iterator.remove()
+        changed = true
+      }
+    }
+
+    views.forEach { view ->
+      if (view !in snapshots) {
+        captureSnapshot(view)?.let {
+          snapshots[view] = it
+          changed = true
+        }
+      }
+    }
+
+    if (changed) {
+      invalidate()
+    }
+  }
+
+  /**
+   * Releases all snapshots, falling back to drawing the live views they replaced.
+   */
+  fun releaseSnapshots() {
+    if (snapshots.isNotEmpty()) {
+      snapshots.values.forEach { it.recycle() }
+      snapshots.clear()
+      invalidate()
+    }
+  }
+
+  private fun captureSnapshot(view: View): Bitmap? {
+    if (view.width <= 0 || view.height <= 0) {
+      return null
+    }
+
+    return try {
+      Bitmap.createBitmap(view.width, view.height, Bitmap.Config.ARGB_8888).also {
+        view.draw(Canvas(it))
+      }
+    } catch (e: OutOfMemoryError) {
+      null
+    }
+  }
+
   override fun onChangeStarted(
     to: Controller?,
     from: Controller?,
@@ -46,6 +151,10 @@ open class ChangeHandlerFrameLayout : FrameLayout, ControllerChangeListener {
     handler: ControllerChangeHandler
   ) {
     inProgressTransactionCount++
+    if (culledViews.isNotEmpty()) {
+      // Changes can reveal culled views, so draw everything until they're done.
+      invalidate()
+    }
   }
 
   override fun onChangeCompleted(
@@ -1,11 +1,18 @@
 package com.bluelinelabs.conductor
 
 import android.app.Activity
+import android.content.Context
 import android.os.Bundle
+import android.view.LayoutInflater
 import android.view.ViewGroup
+import android.widget.FrameLayout
+import androidx.annotation.LayoutRes
 import androidx.annotation.UiThread
+import com.bluelinelabs.conductor.internal.ClassUtils
 import com.bluelinelabs.conductor.internal.LifecycleHandler
+import com.bluelinelabs.conductor.internal.Tracing
 import com.bluelinelabs.conductor.internal.ensureMainThread
+import java.util.concurrent.Executor
 
 object Conductor {
 
@@ -38,4 +45,111 @@ object Conductor {
       .also { it.rebindIfNeeded() }
       .setPopRootControllerMode(Router.PopRootControllerMode.NEVER)
   }
+
+  /**
+   * Starts decoding the saved state of any [Router]s contained in the passed savedInstanceState on the passed
+   * [Executor]. This unparcels the saved backstacks and resolves the [Controller] and [ControllerChangeHandler]
+   * classes they reference, leaving only Controller instantiation and view creation for the main thread when
+   * [attachRouter] is called with the same Bundle. [attachRouter] will wait for the decode to finish if it has
+   * not yet completed.
+   *
+   * This should be called as early as possible in the Activity's onCreate method, ideally before calling through
+   * to super. It must be called from the main thread.
+   *
+   * @param savedInstanceState The savedInstanceState passed into the hosting Activity's onCreate method.
+   * @param executor The Executor on which the saved state should be decoded.
+   */
+  @UiThread
+  @JvmStatic
+  fun prefetchRestoredState(savedInstanceState: Bundle?, executor: Executor) {
+    ensureMainThread()
+    savedInstanceState ?: return
+    LifecycleHandler.prefetchRouterStates(savedInstanceState, executor)
+  }
+
+  /**
+   * Loads and initializes the passed [Controller] and [ControllerChangeHandler] classes on the passed [Executor],
+   * caching the constructors Conductor uses to instantiate them. This moves class loading and static
+   * initialization out of the first navigation to each screen. Passing a [Context] along with layout resources
+   * also inflates each layout once, which loads the view classes they use and warms the resource caches.
+   *
+   * This is meant to be called at app start or when the app is idle. Failures to load a class or inflate a
+   * layout are ignored here, and will instead surface when the class or layout is actually used.
+   *
+   * @param controllerClasses The Controller classes to prewarm.
+   * @param changeHandlerClasses The ControllerChangeHandler classes to prewarm.
+   * @param executor The Executor on which the prewarming should happen.
+   * @param context The Context used to inflate layouts, ideally an Activity so that its theme is applied.
+   * @param layouts The layouts to inflate once, typically those inflated by the prewarmed Controllers.
+   */
+  @JvmStatic
+  @JvmOverloads
+  fun prewarm(
+    controllerClasses: Collection<Class<out Controller>>,
+    changeHandlerClasses: Collection<Class<out ControllerChangeHandler>>,
+    executor: Executor,
+    context: Context? = null,
+    @LayoutRes layouts: IntArray = IntArray(0),
+  ) {
+    val classes = controllerClasses.toList() + changeHandlerClasses.toList()
+    val layoutIds = layouts.copyOf()
+
+    executor.execute {
+      classes.forEach {
+        try {
+          ClassUtils.prewarm(it)
+        } catch (e: Throwable) {
+          // Surfaces when the class is used. Static initializer failures are LinkageErrors, so Throwable is caught
+          // to keep them from taking down the executor's thread.
+        }
+      }
+
+      if (context != null && layoutIds.isNotEmpty()) {
+        // LayoutInflater isn't thread safe, so use an instance that the main thread will never touch.
+        val inflater = LayoutInflater.from(context).cloneInContext(context)
+        val parent = FrameLayout(context)
+        layoutIds.forEach {
+          try {
+            inflater.inflate(it, parent, false)
+          } catch (e: Throwable) {
+            // Surfaces when the layout is inflated for real.
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Enables or disables Systrace/Perfetto trace sections for Conductor's navigation pipeline. While enabled,
+   * pushes, pops, backstack changes, view inflation (split into onCreateView and view state restoration),
+   * attach, detach and state saving and restoring are all traced, with section names that include the
+   * [Controller] class involved. Each change also emits an async slice that spans from the start of the change
+   * to its completion. Disabled by default.
+   */
+  @JvmStatic
+  fun setTracingEnabled(enabled: Boolean) {
+    Tracing.isEnabled = enabled
+  }
+
+  /** Returns whether Conductor's trace sections are enabled. See [setTracingEnabled]. */
+  @JvmStatic
+  fun isTracingEnabled(): Boolean = Tracing.isEnabled
+
+  /**
+   * The [ControllerLeakWatcher] that destroyed [Controller]s and their released views are reported to, or `null` to
+   * not watch for leaks. Only objects destroyed while a watcher is installed are watched. Not installed by default.
+   */
+  @Volatile
+  @JvmStatic
+  var leakWatcher: ControllerLeakWatcher? = null
+
+  /**
+   * The [ConductorStrictMode] policy applied to every [Router] that doesn't have its own, or `null` to not apply
+   * one. Not set by default.
+   *
+   * @see Router.setStrictMode
+   */
+  @Volatile
+  @JvmStatic
+  var strictMode: ConductorStrictMode? = null
 }
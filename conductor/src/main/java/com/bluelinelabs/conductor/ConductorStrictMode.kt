@@ -0,0 +1,177 @@
+package com.bluelinelabs.conductor
+
+import android.util.Log
+import androidx.annotation.RestrictTo
+import androidx.annotation.RestrictTo.Scope.LIBRARY_GROUP
+import java.util.concurrent.TimeUnit
+
+/**
+ * Receives the violations detected by a [ConductorStrictMode] policy.
+ */
+fun interface StrictModeViolationListener {
+  /** Called on the main thread for every violation, before the policy's [ConductorStrictMode.Penalty] applies. */
+  fun onViolation(violation: StrictModeViolation)
+}
+
+/**
+ * A single violation of a [ConductorStrictMode] policy.
+ */
+class StrictModeViolation internal constructor(
+  /** What was violated. */
+  val type: Type,
+
+  /** The fully qualified class name of the Controller involved, or `null` if there was none. */
+  val controllerClassName: String?,
+
+  /**
+   * The lifecycle callback that was slow for [Type.SLOW_CALLBACK] violations (ex: "onAttach"), or the fully qualified
+   * class name of the change handler for [Type.SLOW_CHANGE] violations.
+   */
+  val source: String?,
+
+  /** The measured value: milliseconds for slow callbacks and changes, bytes for oversized state. */
+  val value: Long,
+
+  /** The limit [value] exceeded, in the same unit. */
+  val limit: Long,
+) {
+
+  enum class Type {
+    /** A Controller lifecycle callback took longer than [ConductorStrictMode.callbackThresholdMillis]. */
+    SLOW_CALLBACK,
+
+    /** A Controller saved more state than [ConductorStrictMode.savedStateLimitBytes]. */
+    OVERSIZED_STATE,
+
+    /** A change handler took longer than [ConductorStrictMode.changeCompletionLimitMillis] to complete. */
+    SLOW_CHANGE,
+  }
+
+  override fun toString(): String {
+    val controller = controllerClassName?.substringAfterLast('.') ?: "-"
+    return when (type) {
+      Type.SLOW_CALLBACK -> "$controller.$source took ${value}ms (threshold: ${limit}ms)"
+      Type.OVERSIZED_STATE -> "$controller saved $value bytes of state (limit: $limit bytes)"
+      Type.SLOW_CHANGE -> "${source?.substringAfterLast('.')} took ${value}ms to complete the change to $controller " +
+        "(limit: ${limit}ms)"
+    }
+  }
+}
+
+/**
+ * A policy that catches heavy work done in [Controller]s before it ships. While a policy applies to a Router, it
+ * flags:
+ *
+ * - `onCreateView`, `onAttach`, `onDetach`, `onSaveViewState`, `onRestoreViewState`, `onSaveInstanceState` and
+ *   `onRestoreInstanceState` calls that take longer than [callbackThresholdMillis].
+ * - Controllers whose saved instance and view state together take up more than [savedStateLimitBytes] once
+ *   parceled.
+ * - Change handlers that take longer than [changeCompletionLimitMillis] to report that their change has completed.
+ *
+ * Every violation is passed to the [listener], then [penalty] applies. Measuring saved state parcels it, so policies
+ * are meant for debug builds. Policies are set globally with [Conductor.setStrictMode] or per Router with
+ * [Router.setStrictMode]. A child Router without its own policy uses its parent's.
+ *
+ * @param callbackThresholdMillis The longest a lifecycle callback may take.
+ * @param savedStateLimitBytes The most state a Controller may save.
+ * @param changeCompletionLimitMillis The longest a change handler may take to complete a change.
+ * @param penalty What happens once a violation has been passed to the [listener].
+ * @param listener Receives every violation, or `null` to only apply the [penalty].
+ */
+class ConductorStrictMode @JvmOverloads constructor(
+  val callbackThresholdMillis: Long = DEFAULT_CALLBACK_THRESHOLD_MILLIS,
+  val savedStateLimitBytes: Int = DEFAULT_SAVED_STATE_LIMIT_BYTES,
+  val changeCompletionLimitMillis: Long = DEFAULT_CHANGE_COMPLETION_LIMIT_MILLIS,
+  val penalty: Penalty = Penalty.LOG,
+  private val listener: StrictModeViolationListener? = null,
+) {
+
+  private val callbackThresholdNanos = TimeUnit.MILLISECONDS.toNanos(callbackThresholdMillis)
+  private val changeCompletionLimitNanos = TimeUnit.MILLISECONDS.toNanos(changeCompletionLimitMillis)
+
+  init {
+    require(callbackThresholdMillis >= 0) { "callbackThresholdMillis must not be negative, was $callbackThresholdMillis" }
+    require(savedStateLimitBytes >= 0) { "savedStateLimitBytes must not be negative, was $savedStateLimitBytes" }
+    require(changeCompletionLimitMillis >= 0) {
+      "changeCompletionLimitMillis must not be negative, was $changeCompletionLimitMillis"
+    }
+  }
+
+  enum class Penalty {
+    /** Only notify the listener. */
+    NONE,
+
+    /** Log violations as warnings. */
+    LOG,
+
+    /** Throw an [IllegalStateException] for violations, which is best limited to debug builds. */
+    THROW,
+  }
+
+  /** Checks the duration of a lifecycle callback, such as "onAttach". */
+  @RestrictTo(LIBRARY_GROUP)
+  fun checkCallback(controller: Controller, callback: String, durationNanos: Long) {
+    if (durationNanos > callbackThresholdNanos) {
+      onViolation(
+        StrictModeViolation(
+          type = StrictModeViolation.Type.SLOW_CALLBACK,
+          controllerClassName = controller.javaClass.name,
+          source = callback,
+          value = TimeUnit.NANOSECONDS.toMillis(durationNanos),
+          limit = callbackThresholdMillis,
+        )
+      )
+    }
+  }
+
+  /** Checks the size of the state saved by a Controller. */
+  @RestrictTo(LIBRARY_GROUP)
+  fun checkSavedState(controller: Controller, sizeBytes: Int) {
+    if (sizeBytes > savedStateLimitBytes) {
+      onViolation(
+        StrictModeViolation(
+          type = StrictModeViolation.Type.OVERSIZED_STATE,
+          controllerClassName = controller.javaClass.name,
+          source = null,
+          value = sizeBytes.toLong(),
+          limit = savedStateLimitBytes.toLong(),
+        )
+      )
+    }
+  }
+
+  /** Checks how long a change handler took to complete its change. */
+  @RestrictTo(LIBRARY_GROUP)
+  fun checkChange(handler: ControllerChangeHandler, to: Controller?, from: Controller?, durationNanos: Long) {
+    if (durationNanos > changeCompletionLimitNanos) {
+      onViolation(
+        StrictModeViolation(
+          type = StrictModeViolation.Type.SLOW_CHANGE,
+          controllerClassName = (to ?: from)?.javaClass?.name,
+          source = handler.javaClass.name,
+          value = TimeUnit.NANOSECONDS.toMillis(durationNanos),
+          limit = changeCompletionLimitMillis,
+        )
+      )
+    }
+  }
+
+  private fun onViolation(violation: StrictModeViolation) {
+    listener?.onViolation(violation)
+
+    when (penalty) {
+      Penalty.NONE -> Unit
+      Penalty.LOG -> Log.w(TAG, violation.toString())
+      Penalty.THROW -> throw IllegalStateException("Conductor strict mode violation: $violation")
+    }
+  }
+
+  companion object {
+    private const val TAG = "ConductorStrictMode"
+
+    /** About one frame at 60Hz. */
+    const val DEFAULT_CALLBACK_THRESHOLD_MILLIS = 16L
+    const val DEFAULT_SAVED_STATE_LIMIT_BYTES = 100 * 1024
+    const val DEFAULT_CHANGE_COMPLETION_LIMIT_MILLIS = 1000L
+  }
+}
@@ -1,6 +1,7 @@
 package com.bluelinelabs.conductor;
 
 import android.app.Activity;
+import android.content.ComponentCallbacks2;
 import android.content.Context;
 import android.content.Intent;
 import android.content.IntentSender;
@@ -24,20 +25,29 @@ import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.lifecycle.LifecycleOwner;
 
+import com.bluelinelabs.conductor.internal.BundleSize;
 import com.bluelinelabs.conductor.internal.ClassUtils;
 import com.bluelinelabs.conductor.internal.ControllerLifecycleOwner;
 import com.bluelinelabs.conductor.internal.OwnViewTreeLifecycleAndRegistry;
 import com.bluelinelabs.conductor.internal.RouterRequiringFunc;
+import com.bluelinelabs.conductor.internal.Tracing;
 import com.bluelinelabs.conductor.internal.ViewAttachHandler;
 import com.bluelinelabs.conductor.internal.ViewAttachHandler.ViewAttachListener;
+import com.bluelinelabs.conductor.internal.ViewStateChangeTracker;
 
 import java.lang.ref.WeakReference;
 import java.lang.reflect.Constructor;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * A Controller manages portions of the UI. It is similar to an Activity or Fragment in that it manages its
@@ -47,7 +57,7 @@ import java.util.UUID;
  */
 public abstract class Controller {
 
-    private static final String KEY_CLASS_NAME = "Controller.className";
+    static final String KEY_CLASS_NAME = "Controller.className";
     private static final String KEY_VIEW_STATE = "Controller.viewState";
     private static final String KEY_CHILD_ROUTERS = "Controller.childRouters";
     private static final String KEY_SAVED_STATE = "Controller.savedState";
@@ -61,6 +71,11 @@ public abstract class Controller {
     private static final String KEY_VIEW_STATE_HIERARCHY = "Controller.viewState.hierarchy";
     static final String KEY_VIEW_STATE_BUNDLE = "Controller.viewState.bundle";
     private static final String KEY_RETAIN_VIEW_MODE = "Controller.retainViewMode";
+    private static final String KEY_VIEW_OPAQUE = "Controller.viewOpaque";
+    private static final String KEY_SNAPSHOT_WHILE_COVERED = "Controller.snapshotWhileCovered";
+
+    private static final ControllerHostedRouter[] NO_CHILD_ROUTERS = new ControllerHostedRouter[0];
+    private static final LifecycleListener[] NO_LIFECYCLE_LISTENERS = new LifecycleListener[0];
 
     private final Bundle args;
 
@@ -87,14 +102,28 @@ public abstract class Controller {
     private ControllerChangeHandler overriddenPushHandler;
     private ControllerChangeHandler overriddenPopHandler;
     private RetainViewMode retainViewMode = RetainViewMode.RELEASE_DETACH;
+    private boolean viewOpaque;
+    private boolean snapshotWhileCovered;
+    private boolean frozen;
+    private ViewStatePolicy viewStatePolicy = ViewStatePolicy.FULL;
     private ViewAttachHandler viewAttachHandler;
+    private ViewStateChangeTracker viewStateChangeTracker;
+    private PreparedView preparedView;
+    private FutureTask<View> abandonedInflation;
+    long createViewNanos;
+    long restoreViewStateNanos;
     private final List<ControllerHostedRouter> childRouters = new ArrayList<>();
     private final List<LifecycleListener> lifecycleListeners = new ArrayList<>();
+    // Copies of the lists above, replaced whenever they change, so that dispatching to them neither allocates nor
+    // trips over routers or listeners being added and removed along the way.
+    private ControllerHostedRouter[] childRouterSnapshot = NO_CHILD_ROUTERS;
+    private LifecycleListener[] lifecycleListenerSnapshot = NO_LIFECYCLE_LISTENERS;
     private final ArrayList<String> requestedPermissions = new ArrayList<>();
     private final ArrayList<RouterRequiringFunc> onRouterSetListeners = new ArrayList<>();
     private WeakReference<View> destroyedView;
     private boolean isPerformingExitTransition;
     private boolean isContextAvailable;
+    private boolean isHibernating;
 
     final OnBackPressedCallback onBackPressedCallback = new OnBackPressedCallback(true) {
         @Override
@@ -120,7 +149,7 @@ public abstract class Controller {
         final String className = bundle.getString(KEY_CLASS_NAME);
         //noinspection ConstantConditions
         Class cls = ClassUtils.classForName(className, false);
-        Constructor[] constructors = cls.getConstructors();
+        Constructor[] constructors = ClassUtils.getConstructors(cls);
         Constructor bundleConstructor = getBundleConstructor(constructors);
 
         Bundle args = bundle.getBundle(KEY_ARGS);
@@ -149,6 +178,49 @@ public abstract class Controller {
         return controller;
     }
 
+    /**
+     * Decodes a Bundle created by {@link #saveInstanceState()} ahead of {@link #newInstance(Bundle)}. This resolves
+     * the Controller's class and unparcels its nested state so that the eventual restore has less to do. This may be
+     * called from a background thread, as long as nothing else is accessing the Bundle at the same time.
+     */
+    static void prefetchInstanceState(@NonNull Bundle bundle) {
+        final String className = bundle.getString(KEY_CLASS_NAME);
+        if (className == null) {
+            return;
+        }
+
+        //noinspection ConstantConditions
+        ClassLoader classLoader = ClassUtils.classForName(className, false).getClassLoader();
+
+        prefetchBundle(bundle.getBundle(KEY_ARGS), classLoader);
+        prefetchBundle(bundle.getBundle(KEY_SAVED_STATE), classLoader);
+
+        Bundle viewState = bundle.getBundle(KEY_VIEW_STATE);
+        if (viewState != null) {
+            prefetchBundle(viewState, classLoader);
+            prefetchBundle(viewState.getBundle(KEY_VIEW_STATE_BUNDLE), classLoader);
+        }
+
+        ControllerChangeHandler.prefetchInstanceState(bundle.getBundle(KEY_OVERRIDDEN_PUSH_HANDLER));
+        ControllerChangeHandler.prefetchInstanceState(bundle.getBundle(KEY_OVERRIDDEN_POP_HANDLER));
+
+        List<Bundle> childBundles = bundle.getParcelableArrayList(KEY_CHILD_ROUTERS);
+        if (childBundles != null) {
+            for (Bundle childBundle : childBundles) {
+                Router.prefetchInstanceState(childBundle);
+            }
+        }
+    }
+
+    private static void prefetchBundle(@Nullable Bundle bundle, @Nullable ClassLoader classLoader) {
+        if (bundle != null) {
+            bundle.setClassLoader(classLoader);
+
+            // Bundles are lazily unparceled the first time their contents are accessed.
+            bundle.isEmpty();
+        }
+    }
+
     /**
      * Convenience constructor for use when no arguments are needed.
      */
@@ -183,6 +255,43 @@ public abstract class Controller {
     @NonNull
     protected abstract View onCreateView(@NonNull LayoutInflater inflater, @NonNull ViewGroup container, @Nullable Bundle savedViewState);
 
+    /**
+     * Called instead of {@link #onCreateView(LayoutInflater, ViewGroup, Bundle)} when this Controller's class has a
+     * recycled view pool, set up with {@link Router#setRecycledViewPoolSize(Class, int)}. Controllers using a pool
+     * should override this method to rebind the recycled view when one is available. The default implementation
+     * ignores the recycled view and creates a new one.
+     *
+     * @param inflater       The LayoutInflater that should be used to inflate views
+     * @param container      The parent view that this Controller's view will eventually be attached to.
+     * @param savedViewState A bundle for the view's state, or {@code null} if no saved state exists.
+     * @param recycledView   A view previously released by another instance of this Controller's class and reset in
+     *                       {@link #onRecycleView(View)}, or {@code null} if none is available.
+     */
+    @NonNull
+    protected View onCreateView(@NonNull LayoutInflater inflater, @NonNull ViewGroup container, @Nullable Bundle savedViewState, @Nullable View recycledView) {
+        return onCreateView(inflater, container, savedViewState);
+    }
+
+    /**
+     * Called when this Controller's released view is added to its Router's recycled view pool. Anything bound to
+     * the view, such as listeners, adapters or references to this Controller, should be cleared here so that the
+     * view can be safely reused by another instance of this Controller's class.
+     *
+     * @param view The view being recycled
+     */
+    protected void onRecycleView(@NonNull View view) {
+    }
+
+    /**
+     * Returns whether {@link #onCreateView(LayoutInflater, ViewGroup, Bundle)} may be called from a background
+     * thread when this Controller's view is prepared with {@link Router#prepare(RouterTransaction, Executor)}.
+     * Controllers that return true must only inflate and bind views in onCreateView, without touching anything
+     * that requires the main thread. Defaults to false.
+     */
+    protected boolean canInflateOffMainThread() {
+        return false;
+    }
+
     /**
      * Returns the {@link Router} object that can be used for pushing or popping other Controllers
      */
@@ -260,7 +369,7 @@ public abstract class Controller {
         }
 
         ControllerHostedRouter childRouter = null;
-        for (ControllerHostedRouter router : childRouters) {
+        for (ControllerHostedRouter router : childRouterSnapshot) {
             if (router.matches(containerId, tag)) {
                 childRouter = router;
                 break;
@@ -272,6 +381,7 @@ public abstract class Controller {
                 childRouter = new ControllerHostedRouter(container.getId(), tag, boundToHostContainerId);
                 childRouter.setHostContainer(this, container);
                 childRouters.add(childRouter);
+                childRouterSnapshot = childRouters.toArray(NO_CHILD_ROUTERS);
 
                 if (isPerformingExitTransition) {
                     childRouter.setDetachFrozen(true);
@@ -293,6 +403,7 @@ public abstract class Controller {
      */
     public final void removeChildRouter(@NonNull Router childRouter) {
         if ((childRouter instanceof ControllerHostedRouter) && childRouters.remove(childRouter)) {
+            childRouterSnapshot = childRouters.toArray(NO_CHILD_ROUTERS);
             childRouter.destroy(true);
         }
     }
@@ -311,6 +422,28 @@ public abstract class Controller {
         return isBeingDestroyed;
     }
 
+    boolean isHibernated() {
+        return false;
+    }
+
+    /**
+     * Returns the class name of the Controller this instance stands for, which differs from its own class for
+     * hibernated Controllers.
+     */
+    @NonNull
+    String getControllerClassName() {
+        return getClass().getName();
+    }
+
+    /**
+     * Returns the saved instance state this Controller was restored with, until it's been passed to
+     * {@link #onRestoreInstanceState(Bundle)}.
+     */
+    @Nullable
+    final Bundle getSavedInstanceStateToRestore() {
+        return savedInstanceState;
+    }
+
     /**
      * Returns whether or not this Controller is currently attached to a host View.
      */
@@ -397,7 +530,7 @@ public abstract class Controller {
             return this;
         }
 
-        for (Router router : childRouters) {
+        for (Router router : childRouterSnapshot) {
             Controller matchingChild = router.getControllerWithInstanceId(instanceId);
             if (matchingChild != null) {
                 return matchingChild;
@@ -406,6 +539,19 @@ public abstract class Controller {
         return null;
     }
 
+    /**
+     * Adds the instance IDs of all Controllers in this Controller's child Routers, and in theirs, to the passed
+     * collection.
+     */
+    void collectChildInstanceIds(@NonNull Collection<String> instanceIds) {
+        for (ControllerHostedRouter childRouter : childRouterSnapshot) {
+            for (RouterTransaction transaction : childRouter.backstack) {
+                instanceIds.add(transaction.controller().getInstanceId());
+                transaction.controller().collectChildInstanceIds(instanceIds);
+            }
+        }
+    }
+
     /**
      * Returns all of this Controller's child Routers
      */
@@ -416,6 +562,14 @@ public abstract class Controller {
         return routers;
     }
 
+    /**
+     * Returns this Controller's child Routers without copying them. The returned array must not be modified.
+     */
+    @NonNull
+    final ControllerHostedRouter[] getChildRouterSnapshot() {
+        return childRouterSnapshot;
+    }
+
     /**
      * Optional target for this Controller. One reason this could be used is to send results back to the Controller
      * that started this one. Target Controllers are retained across instances. It is recommended
@@ -533,6 +687,32 @@ public abstract class Controller {
     protected void onActivityStopped(@NonNull Activity activity) {
     }
 
+    /**
+     * Called when the system is running low on memory, as forwarded from {@link ComponentCallbacks2#onTrimMemory(int)}.
+     * Controllers holding onto caches or other expensive objects should release them here. Detached views that are
+     * retained with {@link RetainViewMode#RETAIN_DETACH} will have already been released for levels of
+     * {@link ComponentCallbacks2#TRIM_MEMORY_RUNNING_LOW} and above.
+     *
+     * @param level The memory trim level
+     */
+    protected void onTrimMemory(int level) {
+    }
+
+    /**
+     * Called when this Controller's view has been covered and replaced by a snapshot. Any work that updates the
+     * view, such as animations or observing data, should be paused until {@link #onUnfrozen()} is called.
+     *
+     * @see #setSnapshotWhileCovered(boolean)
+     */
+    protected void onFrozen() {
+    }
+
+    /**
+     * Called when this Controller's view is no longer covered, or is about to be destroyed, after having been frozen.
+     */
+    protected void onUnfrozen() {
+    }
+
     /**
      * Called to save this Controller's View state. As Views can be detached and destroyed as part of the
      * Controller lifecycle (ex: when another Controller has been pushed on top of it), care should be taken
@@ -663,8 +843,8 @@ public abstract class Controller {
     public boolean handleBack() {
         List<RouterTransaction> childTransactions = new ArrayList<>();
 
-        for (ControllerHostedRouter childRouter : childRouters) {
-            childTransactions.addAll(childRouter.getBackstack());
+        for (ControllerHostedRouter childRouter : childRouterSnapshot) {
+            childTransactions.addAll(childRouter.getTransactions());
         }
 
         Collections.sort(childTransactions, (t1, t2) -> t2.getTransactionIndex() - t1.getTransactionIndex());
@@ -688,6 +868,7 @@ public abstract class Controller {
     public final void addLifecycleListener(@NonNull LifecycleListener lifecycleListener) {
         if (!lifecycleListeners.contains(lifecycleListener)) {
             lifecycleListeners.add(lifecycleListener);
+            lifecycleListenerSnapshot = lifecycleListeners.toArray(NO_LIFECYCLE_LISTENERS);
         }
     }
 
@@ -697,7 +878,9 @@ public abstract class Controller {
      * @param lifecycleListener The listener to be removed
      */
     public final void removeLifecycleListener(@NonNull LifecycleListener lifecycleListener) {
-        lifecycleListeners.remove(lifecycleListener);
+        if (lifecycleListeners.remove(lifecycleListener)) {
+            lifecycleListenerSnapshot = lifecycleListeners.toArray(NO_LIFECYCLE_LISTENERS);
+        }
     }
 
     /**
@@ -719,6 +902,174 @@ public abstract class Controller {
         }
     }
 
+    /**
+     * Returns whether this Controller has declared its view as opaque through {@link #setViewOpaque(boolean)}.
+     */
+    public boolean isViewOpaque() {
+        return viewOpaque;
+    }
+
+    /**
+     * Declares whether this Controller's view is opaque, meaning it fully covers its container whenever no change
+     * is running. When the container is a {@link ChangeHandlerFrameLayout}, views of Controllers stacked below an
+     * opaque view (ex: by pushing with a change handler that doesn't remove the previous view) are skipped while
+     * drawing. Defaults to false.
+     */
+    public void setViewOpaque(boolean viewOpaque) {
+        if (this.viewOpaque != viewOpaque) {
+            this.viewOpaque = viewOpaque;
+            if (router != null) {
+                router.updateCoveredLayers();
+            }
+        }
+    }
+
+    /**
+     * Returns whether this Controller's view is replaced by a snapshot while covered, as set through
+     * {@link #setSnapshotWhileCovered(boolean)}.
+     */
+    public boolean isSnapshotWhileCovered() {
+        return snapshotWhileCovered;
+    }
+
+    /**
+     * Sets whether this Controller's view should be replaced by a bitmap snapshot while another Controller's view
+     * is stacked on top of it (ex: a translucent sheet pushed with a change handler that doesn't remove the previous
+     * view). This only applies when the container is a {@link ChangeHandlerFrameLayout}. While covered, this
+     * Controller is frozen: {@link #onFrozen()} is called, and the Controller should stop updating its view until
+     * {@link #onUnfrozen()} is called, as updates won't be visible. Defaults to false.
+     */
+    public void setSnapshotWhileCovered(boolean snapshotWhileCovered) {
+        if (this.snapshotWhileCovered != snapshotWhileCovered) {
+            this.snapshotWhileCovered = snapshotWhileCovered;
+            if (router != null) {
+                router.updateCoveredLayers();
+            }
+        }
+    }
+
+    /**
+     * Returns whether this Controller is currently frozen because its view is covered.
+     *
+     * @see #setSnapshotWhileCovered(boolean)
+     */
+    public final boolean isFrozen() {
+        return frozen;
+    }
+
+    /**
+     * Marks this Controller's saved view state as out of date, ensuring it will be saved again the next time
+     * view state is saved. Conductor detects changes to the view hierarchy itself, so this only needs to be
+     * called when something saved in {@link #onSaveViewState(View, Bundle)} changes without the view being redrawn,
+     * or when the view is changed while it's detached.
+     */
+    public final void invalidateViewState() {
+        hasSavedViewState = false;
+    }
+
+    /**
+     * Creates this Controller's view ahead of time, so that it can be used immediately once this Controller is
+     * shown in the passed container. Prepared views are discarded if they are no longer valid by the time this
+     * Controller's view is needed, for example if the container or saved view state have changed.
+     *
+     * @param container The container this Controller's view will be added to
+     */
+    public final void preInflate(@NonNull ViewGroup container) {
+        preInflate(container, null);
+    }
+
+    /**
+     * Returns whether this Controller has a prepared view that has not yet been used or discarded.
+     */
+    public final boolean hasPreparedView() {
+        return preparedView != null;
+    }
+
+    final void preInflate(@NonNull final ViewGroup container, @Nullable Executor executor) {
+        discardPreparedView();
+
+        if (view != null || isBeingDestroyed || destroyed || isHibernated()) {
+            return;
+        }
+
+        // onCreateView must never run twice at once, so nothing is prepared while an abandoned call is still running.
+        if (abandonedInflation != null) {
+            if (!abandonedInflation.isDone()) {
+                return;
+            }
+            abandonedInflation = null;
+        }
+
+        final Bundle savedViewState = viewState == null ? null : viewState.getBundle(KEY_VIEW_STATE_BUNDLE);
+        final LayoutInflater inflater = LayoutInflater.from(container.getContext());
+
+        if (executor != null && canInflateOffMainThread()) {
+            // LayoutInflater caches constructor arguments while inflating, so background inflation needs its own instance.
+            final LayoutInflater backgroundInflater = inflater.cloneInContext(container.getContext());
+            preparedView = new PreparedView(container, viewState, null, () -> onCreateView(backgroundInflater, container, savedViewState));
+            executor.execute(preparedView.task);
+        } else {
+            View view = onCreateView(inflater, container, savedViewState);
+            preparedView = new PreparedView(container, viewState, view, null);
+        }
+    }
+
+    final void discardPreparedView() {
+        if (preparedView != null) {
+            if (!preparedView.cancel()) {
+                abandonedInflation = preparedView.task;
+            }
+            preparedView = null;
+
+            if (router != null) {
+                router.onPreparedViewDiscarded(this);
+            }
+        }
+    }
+
+    /**
+     * Waits for a background onCreateView call whose view was discarded while it was running, so that the main thread
+     * doesn't call onCreateView at the same time.
+     */
+    private void awaitAbandonedInflation() {
+        if (abandonedInflation != null) {
+            try {
+                abandonedInflation.get();
+            } catch (ExecutionException e) {
+                // Its view is discarded either way.
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            abandonedInflation = null;
+        }
+    }
+
+    @Nullable
+    private View takePreparedView(@NonNull ViewGroup container) {
+        PreparedView preparedView = this.preparedView;
+        if (preparedView == null) {
+            return null;
+        }
+
+        View view = preparedView.container == container && preparedView.viewState == viewState ? preparedView.take() : null;
+        discardPreparedView();
+        return view;
+    }
+
+    /**
+     * Returns the {@link ViewStatePolicy} used when saving this Controller's view state. This is set through
+     * the {@link RouterTransaction} that added this Controller. Defaults to {@link ViewStatePolicy#FULL}.
+     */
+    @NonNull
+    public final ViewStatePolicy getViewStatePolicy() {
+        return viewStatePolicy;
+    }
+
+    void setViewStatePolicy(@NonNull ViewStatePolicy viewStatePolicy) {
+        this.viewStatePolicy = viewStatePolicy;
+        hasSavedViewState = false;
+    }
+
     /**
      * Returns the {@link ControllerChangeHandler} that should be used for pushing this Controller, or null
      * if the handler from the {@link RouterTransaction} should be used instead.
@@ -822,7 +1173,7 @@ public abstract class Controller {
     final void prepareForHostDetach() {
         needsAttach = needsAttach || attached;
 
-        for (ControllerHostedRouter router : childRouters) {
+        for (ControllerHostedRouter router : childRouterSnapshot) {
             router.prepareForHostDetach();
         }
     }
@@ -855,11 +1206,26 @@ public abstract class Controller {
         }
     }
 
+    /**
+     * Undoes {@link #setRouter(Router)} for a Controller that was bound to a Router without ever being added to it.
+     */
+    final void unbindRouter() {
+        Activity activity = getActivity();
+        if (isContextAvailable && activity != null) {
+            onContextUnavailable(activity);
+        }
+        router = null;
+    }
+
     final void onContextAvailable() {
+        if (isHibernated()) {
+            return;
+        }
+
         final Context context = router.getActivity();
 
         if (context != null && !isContextAvailable) {
-            List<LifecycleListener> listeners = new ArrayList<>(lifecycleListeners);
+            LifecycleListener[] listeners = lifecycleListenerSnapshot;
             for (LifecycleListener lifecycleListener : listeners) {
                 lifecycleListener.preContextAvailable(this);
             }
@@ -875,24 +1241,24 @@ public abstract class Controller {
             isContextAvailable = true;
             onContextAvailable(context);
 
-            listeners = new ArrayList<>(lifecycleListeners);
+            listeners = lifecycleListenerSnapshot;
             for (LifecycleListener lifecycleListener : listeners) {
                 lifecycleListener.postContextAvailable(this, context);
             }
         }
 
-        for (Router childRouter : childRouters) {
+        for (Router childRouter : childRouterSnapshot) {
             childRouter.onContextAvailable();
         }
     }
 
     final void onContextUnavailable(@NonNull Context context) {
-        for (Router childRouter : childRouters) {
+        for (Router childRouter : childRouterSnapshot) {
             childRouter.onContextUnavailable(context);
         }
 
         if (isContextAvailable) {
-            List<LifecycleListener> listeners = new ArrayList<>(lifecycleListeners);
+            LifecycleListener[] listeners = lifecycleListenerSnapshot;
             for (LifecycleListener lifecycleListener : listeners) {
                 lifecycleListener.preContextUnavailable(this, context);
             }
@@ -904,7 +1270,7 @@ public abstract class Controller {
                 onBackPressedCallback.remove();
             }
 
-            listeners = new ArrayList<>(lifecycleListeners);
+            listeners = lifecycleListenerSnapshot;
             for (LifecycleListener lifecycleListener : listeners) {
                 lifecycleListener.postContextUnavailable(this);
             }
@@ -932,12 +1298,69 @@ public abstract class Controller {
             attach(view);
         } else if (attached) {
             needsAttach = false;
-            hasSavedViewState = false;
         }
 
         onActivityResumed(activity);
     }
 
+    final void trimMemory(int level) {
+        if (isHibernated()) {
+            return;
+        }
+
+        if (level >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW && level != ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN) {
+            releaseRetainedView();
+        }
+
+        onTrimMemory(level);
+
+        LifecycleListener[] listeners = lifecycleListenerSnapshot;
+        for (LifecycleListener lifecycleListener : listeners) {
+            lifecycleListener.onTrimMemory(this, level);
+        }
+    }
+
+    final void setFrozen(boolean frozen) {
+        if (this.frozen == frozen) {
+            return;
+        }
+
+        this.frozen = frozen;
+
+        if (frozen) {
+            onFrozen();
+        } else {
+            onUnfrozen();
+        }
+
+        LifecycleListener[] listeners = lifecycleListenerSnapshot;
+        for (LifecycleListener lifecycleListener : listeners) {
+            if (frozen) {
+                lifecycleListener.onFrozen(this);
+            } else {
+                lifecycleListener.onUnfrozen(this);
+            }
+        }
+    }
+
+    private void releaseRetainedView() {
+        if (retainViewMode == RetainViewMode.RETAIN_DETACH) {
+            releaseDetachedView();
+        }
+    }
+
+    /**
+     * Releases this Controller's view if it's detached and not part of a change, returning whether it no longer holds
+     * a view.
+     */
+    final boolean releaseDetachedView() {
+        if (view != null && !attached && view.getParent() == null && !isBeingDestroyed && !isPerformingExitTransition
+                && !ControllerChangeHandler.hasInProgressChange(instanceId)) {
+            removeViewReference(null);
+        }
+        return view == null;
+    }
+
     final void activityPaused(@NonNull Activity activity) {
         onActivityPaused(activity);
     }
@@ -967,6 +1390,15 @@ public abstract class Controller {
     }
 
     void attach(@NonNull View view) {
+        final boolean traced = Tracing.beginSection("Controller.attach", this);
+        try {
+            performAttach(view);
+        } finally {
+            Tracing.endSection(traced);
+        }
+    }
+
+    private void performAttach(@NonNull View view) {
         attachedToUnownedParent = router == null || view.getParent() != router.container;
         if (attachedToUnownedParent || isBeingDestroyed) {
             return;
@@ -979,9 +1411,7 @@ public abstract class Controller {
             awaitingParentAttach = false;
         }
 
-        hasSavedViewState = false;
-
-        List<LifecycleListener> listeners = new ArrayList<>(lifecycleListeners);
+        LifecycleListener[] listeners = lifecycleListenerSnapshot;
         for (LifecycleListener lifecycleListener : listeners) {
             lifecycleListener.preAttach(this, view);
         }
@@ -989,18 +1419,20 @@ public abstract class Controller {
         attached = true;
         needsAttach = router.isActivityStopped;
 
+        final long attachStart = System.nanoTime();
         onAttach(view);
+        checkCallbackDuration("onAttach", attachStart);
 
         if (hasOptionsMenu && !optionsMenuHidden) {
             router.invalidateOptionsMenu();
         }
 
-        listeners = new ArrayList<>(lifecycleListeners);
+        listeners = lifecycleListenerSnapshot;
         for (LifecycleListener lifecycleListener : listeners) {
             lifecycleListener.postAttach(Controller.this, view);
         }
 
-        for (ControllerHostedRouter childRouter : childRouters) {
+        for (ControllerHostedRouter childRouter : childRouterSnapshot) {
             for (RouterTransaction childTransaction : childRouter.backstack) {
                 if (childTransaction.controller().awaitingParentAttach) {
                     childTransaction.controller().attach(childTransaction.controller().view);
@@ -1014,29 +1446,43 @@ public abstract class Controller {
     }
 
     void detach(View view, boolean forceViewRefRemoval, boolean blockViewRefRemoval) {
+        final boolean traced = Tracing.beginSection("Controller.detach", this);
+        try {
+            performDetach(view, forceViewRefRemoval, blockViewRefRemoval);
+        } finally {
+            Tracing.endSection(traced);
+        }
+    }
+
+    private void performDetach(View view, boolean forceViewRefRemoval, boolean blockViewRefRemoval) {
         if (!attachedToUnownedParent) {
-            for (ControllerHostedRouter router : childRouters) {
+            for (ControllerHostedRouter router : childRouterSnapshot) {
                 router.prepareForHostDetach();
             }
         }
 
-        final boolean removeViewRef = !blockViewRefRemoval && (forceViewRefRemoval || retainViewMode == RetainViewMode.RELEASE_DETACH || isBeingDestroyed);
+        boolean removeViewRef = !blockViewRefRemoval && (forceViewRefRemoval || retainViewMode == RetainViewMode.RELEASE_DETACH || isBeingDestroyed);
+        if (removeViewRef && !forceViewRefRemoval && !isBeingDestroyed && view != null && router != null) {
+            removeViewRef = !router.retainedViewCache.retain(this, view);
+        }
 
         if (attached) {
             if (!awaitingParentAttach) {
-                List<LifecycleListener> listeners = new ArrayList<>(lifecycleListeners);
+                LifecycleListener[] listeners = lifecycleListenerSnapshot;
                 for (LifecycleListener lifecycleListener : listeners) {
                     lifecycleListener.preDetach(this, view);
                 }
 
                 attached = false;
+                final long detachStart = System.nanoTime();
                 onDetach(view);
+                checkCallbackDuration("onDetach", detachStart);
 
                 if (hasOptionsMenu && !optionsMenuHidden) {
                     router.invalidateOptionsMenu();
                 }
 
-                listeners = new ArrayList<>(lifecycleListeners);
+                listeners = lifecycleListenerSnapshot;
                 for (LifecycleListener lifecycleListener : listeners) {
                     lifecycleListener.postDetach(this, view);
                 }
@@ -1058,11 +1504,17 @@ public abstract class Controller {
                 context = view.getContext();
             }
 
+            if (router != null) {
+                router.retainedViewCache.remove(this);
+            }
+
+            setFrozen(false);
+
             if (!isBeingDestroyed && !hasSavedViewState) {
-                saveViewState(view);
+                saveViewState(view, true);
             }
 
-            List<LifecycleListener> listeners = new ArrayList<>(lifecycleListeners);
+            LifecycleListener[] listeners = lifecycleListenerSnapshot;
             for (LifecycleListener lifecycleListener : listeners) {
                 lifecycleListener.preDestroyView(this, view);
             }
@@ -1077,19 +1529,33 @@ public abstract class Controller {
             viewAttachHandler = null;
             viewIsAttached = false;
 
+            if (viewStateChangeTracker != null) {
+                viewStateChangeTracker.release();
+                viewStateChangeTracker = null;
+            }
+
             if (isBeingDestroyed) {
                 destroyedView = new WeakReference<>(view);
+
+                // Views going into the recycled view pool are meant to stay reachable.
+                final ControllerLeakWatcher leakWatcher = Conductor.getLeakWatcher();
+                if (leakWatcher != null && !canRecycleViews(router)) {
+                    leakWatcher.watchView(this, view);
+                }
             }
+            View releasedView = view;
             view = null;
 
-            listeners = new ArrayList<>(lifecycleListeners);
+            listeners = lifecycleListenerSnapshot;
             for (LifecycleListener lifecycleListener : listeners) {
                 lifecycleListener.postDestroyView(this);
             }
 
-            for (ControllerHostedRouter childRouter : childRouters) {
+            for (ControllerHostedRouter childRouter : childRouterSnapshot) {
                 childRouter.removeHost();
             }
+
+            recycleView(releasedView);
         }
 
         if (isBeingDestroyed) {
@@ -1098,6 +1564,18 @@ public abstract class Controller {
     }
 
     final View inflate(@NonNull ViewGroup parent) {
+        final boolean traced = Tracing.beginSection("Controller.inflate", this);
+        try {
+            return performInflate(parent);
+        } finally {
+            Tracing.endSection(traced);
+        }
+    }
+
+    private View performInflate(@NonNull ViewGroup parent) {
+        createViewNanos = 0;
+        restoreViewStateNanos = 0;
+
         if (view != null && view.getParent() != null && view.getParent() != parent) {
             View viewRef = view;
             detach(view, true, false);
@@ -1105,25 +1583,56 @@ public abstract class Controller {
         }
 
         if (view == null) {
-            List<LifecycleListener> listeners = new ArrayList<>(lifecycleListeners);
+            LifecycleListener[] listeners = lifecycleListenerSnapshot;
             for (LifecycleListener lifecycleListener : listeners) {
                 lifecycleListener.preCreateView(this);
             }
 
-            Bundle savedViewState = viewState == null ? null : viewState.getBundle(KEY_VIEW_STATE_BUNDLE);
-            view = onCreateView(LayoutInflater.from(parent.getContext()), parent, savedViewState);
+            if (viewState != null && router != null) {
+                router.retainedViewCache.onViewRecreated();
+            }
+
+            view = takePreparedView(parent);
+            if (view == null) {
+                awaitAbandonedInflation();
+                Bundle savedViewState = viewState == null ? null : viewState.getBundle(KEY_VIEW_STATE_BUNDLE);
+                LayoutInflater inflater = LayoutInflater.from(parent.getContext());
+                final boolean tracedCreateView = Tracing.beginSection("Controller.onCreateView", this);
+                final long createViewStart = System.nanoTime();
+                try {
+                    if (router != null && router.recycledViewPool.isPooled(getClass())) {
+                        view = onCreateView(inflater, parent, savedViewState, router.recycledViewPool.take(getClass()));
+                    } else {
+                        view = onCreateView(inflater, parent, savedViewState);
+                    }
+                } finally {
+                    createViewNanos = System.nanoTime() - createViewStart;
+                    Tracing.endSection(tracedCreateView);
+                }
+                checkCallbackDuration("onCreateView", createViewStart);
+            }
             if (view == parent) {
                 throw new IllegalStateException("Controller's onCreateView method returned the parent ViewGroup. Perhaps you forgot to pass false for LayoutInflater.inflate's attachToRoot parameter?");
             }
 
-            listeners = new ArrayList<>(lifecycleListeners);
+            listeners = lifecycleListenerSnapshot;
             for (LifecycleListener lifecycleListener : listeners) {
                 lifecycleListener.postCreateView(this, view);
             }
 
-            restoreViewState(view);
+            final boolean tracedRestore = Tracing.beginSection("Controller.restoreViewState", this);
+            final long restoreStart = System.nanoTime();
+            try {
+                restoreViewState(view);
+            } finally {
+                restoreViewStateNanos = System.nanoTime() - restoreStart;
+                Tracing.endSection(tracedRestore);
+            }
+            hasSavedViewState = false;
 
             if (!isBeingDestroyed) {
+                viewStateChangeTracker = new ViewStateChangeTracker(view, this::invalidateViewState);
+
                 viewAttachHandler = new ViewAttachHandler(new ViewAttachListener() {
                     @Override
                     public void onAttached() {
@@ -1152,14 +1661,48 @@ public abstract class Controller {
                 viewAttachHandler.listenForAttach(view);
             }
         } else {
+            if (router != null) {
+                router.retainedViewCache.onViewReused(this);
+            }
+
             restoreChildControllerHosts();
         }
 
         return view;
     }
 
+    private void recycleView(@NonNull final View view) {
+        final Router router = this.router;
+        if (!canRecycleViews(router)) {
+            return;
+        }
+
+        if (view.getParent() == null) {
+            addToRecycledViewPool(router, view);
+        } else if (router.container != null) {
+            // Views are released while they're detaching from the window, before they have been removed from their
+            // parent. Views that are still in their parent afterwards are being kept around by a change handler.
+            router.container.post(() -> {
+                if (view.getParent() == null && router.container != null) {
+                    addToRecycledViewPool(router, view);
+                }
+            });
+        }
+    }
+
+    private boolean canRecycleViews(@Nullable Router router) {
+        // Views hosting child Controllers can't be safely reused, as their children are still bound to them.
+        return router != null && childRouters.isEmpty() && router.recycledViewPool.isPooled(getClass());
+    }
+
+    private void addToRecycledViewPool(@NonNull Router router, @NonNull View view) {
+        OwnViewTreeLifecycleAndRegistry.Companion.clearOwners(view);
+        onRecycleView(view);
+        router.recycledViewPool.put(getClass(), view);
+    }
+
     private void restoreChildControllerHosts() {
-        for (ControllerHostedRouter childRouter : childRouters) {
+        for (ControllerHostedRouter childRouter : childRouterSnapshot) {
             if (!childRouter.hasHost()) {
                 View containerView = view.findViewById(childRouter.getHostId());
 
@@ -1176,12 +1719,14 @@ public abstract class Controller {
             context = getActivity();
         }
 
+        discardPreparedView();
+
         if (isContextAvailable) {
             onContextUnavailable(context);
         }
 
         if (!destroyed) {
-            List<LifecycleListener> listeners = new ArrayList<>(lifecycleListeners);
+            LifecycleListener[] listeners = lifecycleListenerSnapshot;
             for (LifecycleListener lifecycleListener : listeners) {
                 lifecycleListener.preDestroy(this);
             }
@@ -1192,10 +1737,15 @@ public abstract class Controller {
 
             parentController = null;
 
-            listeners = new ArrayList<>(lifecycleListeners);
+            listeners = lifecycleListenerSnapshot;
             for (LifecycleListener lifecycleListener : listeners) {
                 lifecycleListener.postDestroy(this);
             }
+
+            final ControllerLeakWatcher leakWatcher = Conductor.getLeakWatcher();
+            if (leakWatcher != null) {
+                leakWatcher.watchController(this);
+            }
         }
     }
 
@@ -1203,14 +1753,40 @@ public abstract class Controller {
         destroy(false);
     }
 
+    final boolean canHibernate() {
+        return !isHibernated() && router != null && view == null && !attached && !needsAttach && !isBeingDestroyed
+                && !destroyed && !isPerformingExitTransition && !ControllerChangeHandler.hasInProgressChange(instanceId);
+    }
+
+    /**
+     * Saves this Controller's state and destroys it without unregistering it for results, as it will be recreated
+     * from the returned state with the same instance ID.
+     */
+    @NonNull
+    final Bundle hibernate() {
+        Bundle hibernatedState = saveInstanceState();
+        isHibernating = true;
+        destroy(false);
+        return hibernatedState;
+    }
+
+    private boolean isHibernating() {
+        for (Controller controller = this; controller != null; controller = controller.parentController) {
+            if (controller.isHibernating) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     private void destroy(boolean removeViews) {
         isBeingDestroyed = true;
 
-        if (router != null) {
+        if (router != null && !isHibernating()) {
             router.unregisterForActivityResults(instanceId);
         }
 
-        for (ControllerHostedRouter childRouter : childRouters) {
+        for (ControllerHostedRouter childRouter : childRouterSnapshot) {
             childRouter.destroy(false);
         }
 
@@ -1221,44 +1797,86 @@ public abstract class Controller {
         }
     }
 
-    private void saveViewState(@NonNull View view) {
-        hasSavedViewState = true;
+    private void saveViewState(@NonNull View view, boolean releasingView) {
+        final long startTime = System.nanoTime();
+        final ViewStatePolicy policy = viewStatePolicy;
+
+        // A policy that skips the hierarchy while the view is still held doesn't reuse this state, so that the
+        // hierarchy is saved once the view is released.
+        final boolean skipWhileRetained = policy.mode() == ViewStatePolicy.Mode.SKIP_WHILE_RETAINED && !releasingView;
+        final boolean skipHierarchy = policy.mode() == ViewStatePolicy.Mode.CUSTOM_ONLY || skipWhileRetained;
+        hasSavedViewState = !skipWhileRetained;
 
         viewState = new Bundle(getClass().getClassLoader());
 
-        SparseArray<Parcelable> hierarchyState = new SparseArray<>();
-        view.saveHierarchyState(hierarchyState);
-        viewState.putSparseParcelableArray(KEY_VIEW_STATE_HIERARCHY, hierarchyState);
+        int hierarchyStateSize = 0;
+        if (!skipHierarchy) {
+            SparseArray<Parcelable> hierarchyState = new SparseArray<>();
+            if (policy.mode() == ViewStatePolicy.Mode.ALLOWLIST) {
+                for (int viewId : policy.viewIds()) {
+                    View allowedView = view.findViewById(viewId);
+                    if (allowedView != null) {
+                        allowedView.saveHierarchyState(hierarchyState);
+                    }
+                }
+            } else {
+                view.saveHierarchyState(hierarchyState);
+            }
+            viewState.putSparseParcelableArray(KEY_VIEW_STATE_HIERARCHY, hierarchyState);
+            hierarchyStateSize = hierarchyState.size();
+        }
 
         Bundle stateBundle = new Bundle(getClass().getClassLoader());
+        final long saveViewStateStart = System.nanoTime();
         onSaveViewState(view, stateBundle);
+        checkCallbackDuration("onSaveViewState", saveViewStateStart);
         viewState.putBundle(KEY_VIEW_STATE_BUNDLE, stateBundle);
 
-        List<LifecycleListener> listeners = new ArrayList<>(lifecycleListeners);
+        LifecycleListener[] listeners = lifecycleListenerSnapshot;
         for (LifecycleListener lifecycleListener : listeners) {
             lifecycleListener.onSaveViewState(this, viewState);
         }
+
+        final long duration = System.nanoTime() - startTime;
+        listeners = lifecycleListenerSnapshot;
+        for (LifecycleListener lifecycleListener : listeners) {
+            lifecycleListener.onViewStateSaved(this, policy, hierarchyStateSize, duration);
+        }
     }
 
     private void restoreViewState(@NonNull View view) {
         if (viewState != null) {
-            view.restoreHierarchyState(viewState.getSparseParcelableArray(KEY_VIEW_STATE_HIERARCHY));
+            SparseArray<Parcelable> hierarchyState = viewState.getSparseParcelableArray(KEY_VIEW_STATE_HIERARCHY);
+            if (hierarchyState != null) {
+                view.restoreHierarchyState(hierarchyState);
+            }
             Bundle savedViewState = viewState.getBundle(KEY_VIEW_STATE_BUNDLE);
             savedViewState.setClassLoader(getClass().getClassLoader());
+            final long restoreViewStateStart = System.nanoTime();
             onRestoreViewState(view, savedViewState);
+            checkCallbackDuration("onRestoreViewState", restoreViewStateStart);
 
             restoreChildControllerHosts();
 
-            List<LifecycleListener> listeners = new ArrayList<>(lifecycleListeners);
+            LifecycleListener[] listeners = lifecycleListenerSnapshot;
             for (LifecycleListener lifecycleListener : listeners) {
                 lifecycleListener.onRestoreViewState(this, viewState);
             }
         }
     }
 
-    final Bundle saveInstanceState() {
+    Bundle saveInstanceState() {
+        final boolean traced = Tracing.beginSection("Controller.saveInstanceState", this);
+        try {
+            return performSaveInstanceState();
+        } finally {
+            Tracing.endSection(traced);
+        }
+    }
+
+    private Bundle performSaveInstanceState() {
         if (!hasSavedViewState && view != null) {
-            saveViewState(view);
+            saveViewState(view, false);
         }
 
         Bundle outState = new Bundle();
@@ -1270,6 +1888,8 @@ public abstract class Controller {
         outState.putStringArrayList(KEY_REQUESTED_PERMISSIONS, requestedPermissions);
         outState.putBoolean(KEY_NEEDS_ATTACH, needsAttach || attached);
         outState.putInt(KEY_RETAIN_VIEW_MODE, retainViewMode.ordinal());
+        outState.putBoolean(KEY_VIEW_OPAQUE, viewOpaque);
+        outState.putBoolean(KEY_SNAPSHOT_WHILE_COVERED, snapshotWhileCovered);
 
         if (overriddenPushHandler != null) {
             outState.putBundle(KEY_OVERRIDDEN_PUSH_HANDLER, overriddenPushHandler.toBundle());
@@ -1279,7 +1899,7 @@ public abstract class Controller {
         }
 
         ArrayList<Bundle> childBundles = new ArrayList<>(childRouters.size());
-        for (ControllerHostedRouter childRouter : childRouters) {
+        for (ControllerHostedRouter childRouter : childRouterSnapshot) {
             Bundle routerBundle = new Bundle();
             childRouter.saveInstanceState(routerBundle);
             childBundles.add(routerBundle);
@@ -1287,19 +1907,51 @@ public abstract class Controller {
         outState.putParcelableArrayList(KEY_CHILD_ROUTERS, childBundles);
 
         Bundle savedState = new Bundle(getClass().getClassLoader());
+        final long saveStart = System.nanoTime();
         onSaveInstanceState(savedState);
+        checkCallbackDuration("onSaveInstanceState", saveStart);
 
-        List<LifecycleListener> listeners = new ArrayList<>(lifecycleListeners);
+        LifecycleListener[] listeners = lifecycleListenerSnapshot;
         for (LifecycleListener lifecycleListener : listeners) {
             lifecycleListener.onSaveInstanceState(this, savedState);
         }
 
         outState.putBundle(KEY_SAVED_STATE, savedState);
+        checkSavedStateSize(savedState);
 
         return outState;
     }
 
+    @Nullable
+    private ConductorStrictMode getStrictMode() {
+        return router != null ? router.getEffectiveStrictMode() : Conductor.getStrictMode();
+    }
+
+    private void checkCallbackDuration(@NonNull String callback, long startNanos) {
+        final ConductorStrictMode strictMode = getStrictMode();
+        if (strictMode != null) {
+            strictMode.checkCallback(this, callback, System.nanoTime() - startNanos);
+        }
+    }
+
+    // Only counts the state saved by this Controller itself, as its child Routers' Controllers check their own.
+    private void checkSavedStateSize(@NonNull Bundle savedState) {
+        final ConductorStrictMode strictMode = getStrictMode();
+        if (strictMode != null) {
+            strictMode.checkSavedState(this, BundleSize.parceledSize(savedState) + BundleSize.parceledSize(viewState));
+        }
+    }
+
     private void restoreInstanceState(@NonNull Bundle savedInstanceState) {
+        final boolean traced = Tracing.beginSection("Controller.restoreInstanceState", this);
+        try {
+            performRestoreInstanceState(savedInstanceState);
+        } finally {
+            Tracing.endSection(traced);
+        }
+    }
+
+    private void performRestoreInstanceState(@NonNull Bundle savedInstanceState) {
         viewState = savedInstanceState.getBundle(KEY_VIEW_STATE);
         if (viewState != null) {
             viewState.setClassLoader(getClass().getClassLoader());
@@ -1312,6 +1964,8 @@ public abstract class Controller {
         overriddenPopHandler = ControllerChangeHandler.fromBundle(savedInstanceState.getBundle(KEY_OVERRIDDEN_POP_HANDLER));
         needsAttach = savedInstanceState.getBoolean(KEY_NEEDS_ATTACH);
         retainViewMode = RetainViewMode.values()[savedInstanceState.getInt(KEY_RETAIN_VIEW_MODE, 0)];
+        viewOpaque = savedInstanceState.getBoolean(KEY_VIEW_OPAQUE);
+        snapshotWhileCovered = savedInstanceState.getBoolean(KEY_SNAPSHOT_WHILE_COVERED);
 
         List<Bundle> childBundles = savedInstanceState.getParcelableArrayList(KEY_CHILD_ROUTERS);
         for (Bundle childBundle : childBundles) {
@@ -1320,6 +1974,7 @@ public abstract class Controller {
             childRouter.restoreInstanceState(childBundle);
             childRouters.add(childRouter);
         }
+        childRouterSnapshot = childRouters.toArray(NO_CHILD_ROUTERS);
 
         this.savedInstanceState = savedInstanceState.getBundle(KEY_SAVED_STATE);
         if (this.savedInstanceState != null) {
@@ -1330,9 +1985,11 @@ public abstract class Controller {
 
     private void performOnRestoreInstanceState() {
         if (savedInstanceState != null && router != null) {
+            final long restoreStart = System.nanoTime();
             onRestoreInstanceState(savedInstanceState);
+            checkCallbackDuration("onRestoreInstanceState", restoreStart);
 
-            List<LifecycleListener> listeners = new ArrayList<>(lifecycleListeners);
+            LifecycleListener[] listeners = lifecycleListenerSnapshot;
             for (LifecycleListener lifecycleListener : listeners) {
                 lifecycleListener.onRestoreInstanceState(this, savedInstanceState);
             }
@@ -1344,14 +2001,14 @@ public abstract class Controller {
     final void changeStarted(@NonNull ControllerChangeHandler changeHandler, @NonNull ControllerChangeType changeType) {
         if (!changeType.isEnter) {
             isPerformingExitTransition = true;
-            for (ControllerHostedRouter router : childRouters) {
+            for (ControllerHostedRouter router : childRouterSnapshot) {
                 router.setDetachFrozen(true);
             }
         }
 
         onChangeStarted(changeHandler, changeType);
 
-        List<LifecycleListener> listeners = new ArrayList<>(lifecycleListeners);
+        LifecycleListener[] listeners = lifecycleListenerSnapshot;
         for (LifecycleListener lifecycleListener : listeners) {
             lifecycleListener.onChangeStart(this, changeHandler, changeType);
         }
@@ -1360,14 +2017,14 @@ public abstract class Controller {
     final void changeEnded(@NonNull ControllerChangeHandler changeHandler, @NonNull ControllerChangeType changeType) {
         if (!changeType.isEnter) {
             isPerformingExitTransition = false;
-            for (ControllerHostedRouter router : childRouters) {
+            for (ControllerHostedRouter router : childRouterSnapshot) {
                 router.setDetachFrozen(false);
             }
         }
 
         onChangeEnded(changeHandler, changeType);
 
-        List<LifecycleListener> listeners = new ArrayList<>(lifecycleListeners);
+        LifecycleListener[] listeners = lifecycleListenerSnapshot;
         for (LifecycleListener lifecycleListener : listeners) {
             lifecycleListener.onChangeEnd(this, changeHandler, changeType);
         }
@@ -1389,7 +2046,7 @@ public abstract class Controller {
 
             boolean detach = !frozen && view != null && viewWasDetached;
 
-            for (ControllerHostedRouter router : childRouters) {
+            for (ControllerHostedRouter router : childRouterSnapshot) {
                 if (detach) {
                     router.prepareForHostDetach();
                 }
@@ -1428,7 +2085,7 @@ public abstract class Controller {
     }
 
     private void ensureRequiredConstructor() {
-        Constructor[] constructors = getClass().getConstructors();
+        Constructor[] constructors = ClassUtils.getConstructors(getClass());
         if (getBundleConstructor(constructors) == null && getDefaultConstructor(constructors) == null) {
             throw new RuntimeException(getClass() + " does not have a constructor that takes a Bundle argument or a default constructor. Controllers must have one of these in order to restore their states.");
         }
@@ -1454,6 +2111,52 @@ public abstract class Controller {
         return null;
     }
 
+    private static final class PreparedView {
+        final ViewGroup container;
+        final Bundle viewState;
+        final FutureTask<View> task;
+        private final View view;
+        private final AtomicBoolean started = new AtomicBoolean();
+
+        PreparedView(@NonNull ViewGroup container, @Nullable Bundle viewState, @Nullable View view, @Nullable Callable<View> inflation) {
+            this.container = container;
+            this.viewState = viewState;
+            this.view = view;
+            this.task = inflation == null ? null : new FutureTask<>(() -> started.compareAndSet(false, true) ? inflation.call() : null);
+        }
+
+        /**
+         * Returns the prepared view, or null if it was inflated in the background and the inflation hadn't started yet.
+         * Unstarted inflations are abandoned in favor of inflating on the main thread. Running ones are waited for, as
+         * onCreateView must not run twice at once, and finishing the running call is never slower than starting over.
+         */
+        @Nullable
+        View take() {
+            if (task == null) {
+                return view;
+            } else if (started.compareAndSet(false, true)) {
+                return null;
+            }
+
+            try {
+                return task.get();
+            } catch (ExecutionException e) {
+                // Inflating again on the main thread will surface any real errors.
+                return null;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            }
+        }
+
+        /**
+         * Keeps a background inflation from starting, returning false if it's already running.
+         */
+        boolean cancel() {
+            return task == null || started.compareAndSet(false, true) || task.isDone();
+        }
+    }
+
     /**
      * Modes that will influence when the Controller will allow its view to be destroyed
      */
@@ -1533,6 +2236,25 @@ public abstract class Controller {
         public void onRestoreViewState(@NonNull Controller controller, @NonNull Bundle savedViewState) {
         }
 
+        public void onTrimMemory(@NonNull Controller controller, int level) {
+        }
+
+        public void onFrozen(@NonNull Controller controller) {
+        }
+
+        public void onUnfrozen(@NonNull Controller controller) {
+        }
+
+        /**
+         * Called after a Controller's view state has been saved, reporting what the save cost.
+         *
+         * @param policy             The {@link ViewStatePolicy} the view state was saved with
+         * @param hierarchyStateSize The number of view hierarchy entries that were saved
+         * @param durationNanos      The time spent saving the view state, including {@link #onSaveViewState(Controller, Bundle)} callbacks
+         */
+        public void onViewStateSaved(@NonNull Controller controller, @NonNull ViewStatePolicy policy, int hierarchyStateSize, long durationNanos) {
+        }
+
     }
 
 }
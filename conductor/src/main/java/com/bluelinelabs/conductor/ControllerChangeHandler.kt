@@ -6,6 +6,8 @@ import android.view.ViewGroup
 import androidx.annotation.RestrictTo
 import com.bluelinelabs.conductor.changehandler.SimpleSwapChangeHandler
 import com.bluelinelabs.conductor.internal.ClassUtils
+import com.bluelinelabs.conductor.internal.Tracing
+import com.bluelinelabs.conductor.internal.traceSection
 
 /**
  * ControllerChangeHandlers are responsible for swapping the View for one Controller to the View
@@ -50,6 +52,22 @@ abstract class ControllerChangeHandler {
 
   private var hasBeenUsed = false
 
+  /**
+   * Returns the fraction of this handler's change that has been completed, from 0 to 1, or
+   * [PROGRESS_UNKNOWN] if it can't be determined. This is handed to the next handler when a push
+   * performed by this handler is aborted.
+   */
+  open val changeProgress: Float
+    get() = PROGRESS_UNKNOWN
+
+  /**
+   * Whether the push performed by this handler was aborted and taken over by the new handler through
+   * [onTakeOverAbortedChange]. Handlers that have been taken over should leave their views in their current
+   * state when aborted, as the new handler will continue from there.
+   */
+  var isTakenOver = false
+    private set
+
   init {
     try {
       javaClass.getConstructor()
@@ -99,6 +117,18 @@ abstract class ControllerChangeHandler {
    */
   open fun onAbortPush(newHandler: ControllerChangeHandler, newTop: Controller?) {}
 
+  /**
+   * Will be called on the handler popping a controller whose push is still in progress, right before
+   * [onAbortPush] is called on the handler performing that push. Returning true takes over the aborted
+   * change: the aborted handler will leave its views as they are, and this handler should continue from
+   * their current state (ex: by reversing the animation from its current position) rather than starting
+   * from scratch. Defaults to false.
+   *
+   * @param abortedHandler The handler performing the push that is being aborted
+   * @param progress The aborted handler's [changeProgress] at the time it was aborted
+   */
+  open fun onTakeOverAbortedChange(abortedHandler: ControllerChangeHandler, progress: Float): Boolean = false
+
   /**
    * Will be called on change handlers that push a controller if the controller being pushed is
    * needs to be attached immediately, without any animations or transitions.
@@ -183,7 +213,16 @@ abstract class ControllerChangeHandler {
     @JvmField val container: ViewGroup?,
     @JvmField val changeHandler: ControllerChangeHandler?,
     @JvmField val listeners: List<ControllerChangeListener>,
-  )
+  ) {
+    /** When the change was requested from its Router, which may be earlier than when it's executed. */
+    @JvmField val requestedAtNanos = System.nanoTime()
+
+    /** The recorder this change was recorded into, if its root Router has a flight recorder enabled. */
+    @JvmField var flightRecorder: NavigationFlightRecorder? = null
+
+    /** The change's id within [flightRecorder]. */
+    @JvmField var flightRecordId = -1L
+  }
 
   /**
    * A simplified listener for being notified when the change is complete. This MUST be called by any custom
@@ -201,7 +240,9 @@ abstract class ControllerChangeHandler {
   companion object {
     private const val KEY_CLASS_NAME = "ControllerChangeHandler.className"
     private const val KEY_SAVED_STATE = "ControllerChangeHandler.savedState"
+    const val PROGRESS_UNKNOWN = -1f
     val inProgressChangeHandlers: MutableMap<String, ChangeHandlerData> = HashMap()
+    private var changeTraceCookie = 0
 
     @JvmStatic
     fun fromBundle(bundle: Bundle?): ControllerChangeHandler? {
@@ -214,6 +255,24 @@ abstract class ControllerChangeHandler {
       }
     }
 
+    /**
+     * Resolves the handler class and unparcels the saved state of a Bundle created by [toBundle] ahead of
+     * [fromBundle]. This may be called from a background thread.
+     */
+    @JvmStatic
+    @RestrictTo(RestrictTo.Scope.LIBRARY)
+    fun prefetchInstanceState(bundle: Bundle?) {
+      val className = bundle?.getString(KEY_CLASS_NAME) ?: return
+      ClassUtils.classForName<ControllerChangeHandler>(className, true)
+      bundle.getBundle(KEY_SAVED_STATE)?.isEmpty
+    }
+
+    @JvmStatic
+    @RestrictTo(RestrictTo.Scope.LIBRARY)
+    fun hasInProgressChange(controllerInstanceId: String): Boolean {
+      return inProgressChangeHandlers.containsKey(controllerInstanceId)
+    }
+
     @JvmStatic
     fun completeHandlerImmediately(controllerInstanceId: String): Boolean {
       inProgressChangeHandlers[controllerInstanceId]?.let { changeHandlerData ->
@@ -228,7 +287,9 @@ abstract class ControllerChangeHandler {
     fun abortOrComplete(toAbort: Controller, newController: Controller?, newChangeHandler: ControllerChangeHandler) {
       inProgressChangeHandlers[toAbort.getInstanceId()]?.let { changeHandlerData ->
         if (changeHandlerData.isPush) {
-          changeHandlerData.changeHandler.onAbortPush(newChangeHandler, newController)
+          val abortedHandler = changeHandlerData.changeHandler
+          abortedHandler.isTakenOver = newChangeHandler.onTakeOverAbortedChange(abortedHandler, abortedHandler.changeProgress)
+          abortedHandler.onAbortPush(newChangeHandler, newController)
         } else {
           changeHandlerData.changeHandler.completeImmediately()
         }
@@ -237,7 +298,7 @@ abstract class ControllerChangeHandler {
     }
 
     @JvmStatic
-    fun executeChange(transaction: ChangeTransaction) {
+    fun executeChange(transaction: ChangeTransaction) = traceSection("executeChange", transaction.to ?: transaction.from) {
       executeChange(
         to = transaction.to,
         from = transaction.from,
@@ -245,6 +306,9 @@ abstract class ControllerChangeHandler {
         container = transaction.container,
         inHandler = transaction.changeHandler,
         listeners = transaction.listeners,
+        requestedAtNanos = transaction.requestedAtNanos,
+        flightRecorder = transaction.flightRecorder,
+        flightRecordId = transaction.flightRecordId,
       )
     }
 
@@ -255,6 +319,9 @@ abstract class ControllerChangeHandler {
       container: ViewGroup?,
       inHandler: ControllerChangeHandler?,
       listeners: List<ControllerChangeListener>,
+      requestedAtNanos: Long,
+      flightRecorder: NavigationFlightRecorder?,
+      flightRecordId: Long,
     ) {
       container ?: return
 
@@ -267,6 +334,11 @@ abstract class ControllerChangeHandler {
       }
 
       handler.hasBeenUsed = true
+      flightRecorder?.onChangeStarted(flightRecordId, handler)
+
+      // Spans the whole change, from here until the handler reports that it's complete.
+      val changeCookie = ++changeTraceCookie
+      val changeSection = Tracing.beginAsyncSection(if (isPush) "push" else "pop", to ?: from, changeCookie)
 
       if (from != null) {
         if (isPush) {
@@ -280,12 +352,17 @@ abstract class ControllerChangeHandler {
         inProgressChangeHandlers[to.getInstanceId()] = ChangeHandlerData(handler, isPush)
       }
 
+      val metricsRecorder = NavigationMetrics.Recorder.start(to, from, isPush, requestedAtNanos)
+
       listeners.forEach { it.onChangeStarted(to, from, isPush, container, handler) }
 
+      val frameRecorder = TransitionFrameStats.Recorder.start(to, from, isPush, handler, container)
+
       val toChangeType = if (isPush) ControllerChangeType.PUSH_ENTER else ControllerChangeType.POP_ENTER
       val fromChangeType = if (isPush) ControllerChangeType.PUSH_EXIT else ControllerChangeType.POP_EXIT
       val toView = to?.let {
         it.inflate(container).also {
+          metricsRecorder?.onViewCreated(to)
           to.changeStarted(handler, toChangeType)
         }
       }
@@ -296,13 +373,24 @@ abstract class ControllerChangeHandler {
         }
       }
 
+      metricsRecorder?.onHandlerStarted()
+      val strictMode = (to ?: from)?.router?.effectiveStrictMode ?: Conductor.strictMode
+      val handlerStartedAt = System.nanoTime()
       handler.performChange(
         container = container,
         from = fromView,
         to = toView,
         isPush = isPush,
         changeListener = object : ControllerChangeCompletedListener {
+          // Recorders are pooled, so make sure they're only ever completed once for this change.
+          private var pendingMetrics = metricsRecorder
+          private var pendingFrames = frameRecorder
+          private var pendingStrictMode = strictMode
+
           override fun onChangeCompleted() {
+            Tracing.endAsyncSection(changeSection, changeCookie)
+            pendingFrames?.onChangeCompleted()
+            pendingFrames = null
             from?.changeEnded(handler, fromChangeType)
 
             to?.let {
@@ -321,9 +409,20 @@ abstract class ControllerChangeHandler {
             if (handler.removesFromViewOnPush) {
               from?.needsAttach = false
             }
+
+            pendingMetrics?.onChangeCompleted()
+            pendingMetrics = null
+            flightRecorder?.onChangeCompleted(flightRecordId)
+
+            // Checked last, as a throwing penalty would otherwise leave the change incomplete.
+            pendingStrictMode?.let {
+              pendingStrictMode = null
+              it.checkChange(handler, to, from, System.nanoTime() - handlerStartedAt)
+            }
           }
         },
       )
+      metricsRecorder?.onHandlerSetUp(toView)
     }
   }
 }
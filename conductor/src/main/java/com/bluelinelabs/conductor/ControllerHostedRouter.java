@@ -279,6 +279,14 @@ class ControllerHostedRouter extends Router {
         }
     }
 
+    @Override @Nullable
+    ConductorStrictMode getEffectiveStrictMode() {
+        if (getStrictMode() == null && hostController != null && hostController.getRouter() != null) {
+            return hostController.getRouter().getEffectiveStrictMode();
+        }
+        return super.getEffectiveStrictMode();
+    }
+
     @Override @NonNull
     TransactionIndexer getTransactionIndexer() {
         Router rootRouter = getRootRouter();
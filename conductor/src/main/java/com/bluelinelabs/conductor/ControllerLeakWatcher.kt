@@ -0,0 +1,236 @@
+package com.bluelinelabs.conductor
+
+import android.os.Handler
+import android.os.Looper
+import android.os.SystemClock
+import android.view.View
+import androidx.annotation.RestrictTo
+import androidx.annotation.RestrictTo.Scope.LIBRARY_GROUP
+import java.lang.ref.ReferenceQueue
+import java.lang.ref.WeakReference
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Executors
+
+/**
+ * Receives the [Controller]s and views found leaking by a [ControllerLeakWatcher].
+ */
+fun interface ControllerLeakListener {
+  /** Called on the main thread with the leaks found by an automatic check. */
+  fun onLeaksFound(leaks: List<ControllerLeak>)
+}
+
+/**
+ * A destroyed [Controller], or a view released by one, that was still strongly reachable after its grace period
+ * and a forced garbage collection.
+ */
+class ControllerLeak internal constructor(
+  /** The fully qualified class name of the leaked Controller, or of the Controller that owned the leaked view. */
+  val controllerClassName: String,
+
+  /** The instance id of the Controller. */
+  val instanceId: String,
+
+  /** The fully qualified class name of the leaked view, or `null` if the Controller itself leaked. */
+  val viewClassName: String?,
+
+  /** How long the object has been retained since it was destroyed or released. */
+  val retainedMillis: Long,
+) {
+
+  override fun toString(): String {
+    val leaked = if (viewClassName != null) "view $viewClassName of $controllerClassName" else controllerClassName
+    return "$leaked ($instanceId) retained for ${retainedMillis}ms"
+  }
+}
+
+/**
+ * A debugging aid that watches destroyed [Controller]s and the views they release while being destroyed, and
+ * reports any that are still strongly reachable once they should have been garbage collected, such as Controllers
+ * kept by a listener that was never unregistered or by a static cache. Watching only holds weak references, so it
+ * never causes leaks itself.
+ *
+ * Watchers are installed with [Conductor.setLeakWatcher] and should only be used in debug builds and tests, as
+ * checking for leaks forces garbage collections. With a [ControllerLeakListener], checks run automatically on a
+ * background thread once watched objects have outlived the grace period. Tests can instead call [checkForLeaks] or
+ * [assertNoLeaks] directly, typically with a grace period of 0.
+ *
+ * @param gracePeriodMillis How long a destroyed Controller or released view may stay reachable before it's
+ * considered leaked, which leaves time for running animations and pending messages to let go of it.
+ * @param listener Receives the leaks found by automatic checks, or `null` to only check when asked to.
+ */
+class ControllerLeakWatcher @JvmOverloads constructor(
+  val gracePeriodMillis: Long = DEFAULT_GRACE_PERIOD_MILLIS,
+  private val listener: ControllerLeakListener? = null,
+) {
+
+  private val queue = ReferenceQueue<Any>()
+  private val watched = HashSet<WatchedReference>()
+
+  private val mainHandler by lazy { Handler(Looper.getMainLooper()) }
+  private val checkExecutor: ExecutorService by lazy {
+    Executors.newSingleThreadExecutor { runnable ->
+      Thread(runnable, "Conductor leak watcher").also { it.isDaemon = true }
+    }
+  }
+  private var isCheckScheduled = false
+
+  private val scheduledCheck = Runnable {
+    checkExecutor.execute {
+      synchronized(this) {
+        isCheckScheduled = false
+      }
+
+      val leaks = checkForLeaks()
+      if (leaks.isNotEmpty()) {
+        mainHandler.post { listener?.onLeaksFound(leaks) }
+      }
+      scheduleCheckIfNeeded()
+    }
+  }
+
+  init {
+    require(gracePeriodMillis >= 0) { "The grace period must not be negative, was $gracePeriodMillis" }
+  }
+
+  /** The number of destroyed Controllers and released views that haven't been collected or reported yet. */
+  val watchedCount: Int
+    get() = synchronized(this) {
+      removeCollected()
+      watched.size
+    }
+
+  /** Starts watching a Controller that has been destroyed. */
+  @RestrictTo(LIBRARY_GROUP)
+  fun watchController(controller: Controller) {
+    watch(controller, controller, null)
+  }
+
+  /** Starts watching a view released by a Controller that is being destroyed. */
+  @RestrictTo(LIBRARY_GROUP)
+  fun watchView(controller: Controller, view: View) {
+    watch(view, controller, view)
+  }
+
+  private fun watch(referent: Any, controller: Controller, view: View?) {
+    synchronized(this) {
+      removeCollected()
+      watched.add(
+        WatchedReference(
+          referent = referent,
+          queue = queue,
+          controllerClassName = controller.controllerClassName,
+          instanceId = controller.instanceId,
+          viewClassName = view?.javaClass?.name,
+          watchedAtMillis = SystemClock.uptimeMillis(),
+        )
+      )
+    }
+    scheduleCheckIfNeeded()
+  }
+
+  /**
+   * Returns the watched objects that outlived the grace period and are still strongly reachable after a forced
+   * garbage collection. Reported objects are no longer watched, so each leak is only reported once. This blocks
+   * while the garbage collection runs, so it shouldn't be called on the main thread outside of tests.
+   */
+  fun checkForLeaks(): List<ControllerLeak> {
+    if (!hasExpired(SystemClock.uptimeMillis())) {
+      return emptyList()
+    }
+
+    forceGc()
+
+    synchronized(this) {
+      removeCollected()
+
+      val now = SystemClock.uptimeMillis()
+      val leaks = ArrayList<ControllerLeak>()
+      val iterator = watched.iterator()
+      while (iterator.hasNext()) {
+        val reference = iterator.next()
+        if (now - reference.watchedAtMillis >= gracePeriodMillis) {
+          iterator.remove()
+          leaks.add(
+            ControllerLeak(
+              controllerClassName = reference.controllerClassName,
+              instanceId = reference.instanceId,
+              viewClassName = reference.viewClassName,
+              retainedMillis = now - reference.watchedAtMillis,
+            )
+          )
+        }
+      }
+      return leaks
+    }
+  }
+
+  /**
+   * Checks for leaks and throws an [AssertionError] listing them if any were found. Meant to be called at the end
+   * of tests, so that leak regressions fail them.
+   */
+  fun assertNoLeaks() {
+    val leaks = checkForLeaks()
+    if (leaks.isNotEmpty()) {
+      throw AssertionError(leaks.joinToString(separator = "\n", prefix = "${leaks.size} Controller leak(s) found:\n"))
+    }
+  }
+
+  /** Stops watching everything watched so far. */
+  fun clear() {
+    synchronized(this) {
+      watched.clear()
+      removeCollected()
+    }
+  }
+
+  private fun hasExpired(now: Long): Boolean {
+    synchronized(this) {
+      removeCollected()
+      return watched.any { now - it.watchedAtMillis >= gracePeriodMillis }
+    }
+  }
+
+  private fun scheduleCheckIfNeeded() {
+    listener ?: return
+
+    synchronized(this) {
+      if (isCheckScheduled || watched.isEmpty()) {
+        return
+      }
+      isCheckScheduled = true
+    }
+    mainHandler.postDelayed(scheduledCheck, gracePeriodMillis)
+  }
+
+  private fun removeCollected() {
+    while (true) {
+      val reference = queue.poll() ?: return
+      watched.remove(reference)
+    }
+  }
+
+  private class WatchedReference(
+    referent: Any,
+    queue: ReferenceQueue<Any>,
+    val controllerClassName: String,
+    val instanceId: String,
+    val viewClassName: String?,
+    val watchedAtMillis: Long,
+  ) : WeakReference<Any>(referent, queue)
+
+  companion object {
+    const val DEFAULT_GRACE_PERIOD_MILLIS = 5000L
+
+    private fun forceGc() {
+      // System.gc() is only a hint, so give the collector and finalizers a moment to actually run.
+      Runtime.getRuntime().gc()
+      try {
+        Thread.sleep(100)
+      } catch (e: InterruptedException) {
+        Thread.currentThread().interrupt()
+      }
+      System.runFinalization()
+      Runtime.getRuntime().gc()
+    }
+  }
+}
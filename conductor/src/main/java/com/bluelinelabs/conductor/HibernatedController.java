@@ -0,0 +1,80 @@
+package com.bluelinelabs.conductor;
+
+import android.os.Bundle;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Set;
+
+/**
+ * Stands in for a hibernated {@link Controller} on the backstack. It only holds the real Controller's saved
+ * instance state, which is used both to recreate it when needed and to save it with the rest of the backstack.
+ */
+final class HibernatedController extends Controller {
+
+    private Bundle hibernatedState;
+    private Set<String> childInstanceIds = Collections.emptySet();
+
+    // Required by Controller's constructor checks. Placeholders are never restored from a Bundle, as their saved
+    // state always recreates the real Controller.
+    public HibernatedController() {
+    }
+
+    @NonNull
+    static HibernatedController create(@NonNull Controller controller, @NonNull Bundle hibernatedState, @NonNull Set<String> childInstanceIds) {
+        HibernatedController placeholder = new HibernatedController();
+        placeholder.hibernatedState = hibernatedState;
+        placeholder.childInstanceIds = childInstanceIds;
+        placeholder.instanceId = controller.getInstanceId();
+        placeholder.overridePushHandler(controller.getOverriddenPushHandler());
+        placeholder.overridePopHandler(controller.getOverriddenPopHandler());
+        return placeholder;
+    }
+
+    @NonNull
+    Controller rehydrate() {
+        return Controller.newInstance(hibernatedState);
+    }
+
+    /**
+     * Returns whether the passed instance ID belongs to a Controller in the hibernated Controller's child Routers,
+     * which are only recreated along with it.
+     */
+    boolean hostsChild(@NonNull String instanceId) {
+        return childInstanceIds.contains(instanceId);
+    }
+
+    @Override
+    void collectChildInstanceIds(@NonNull Collection<String> instanceIds) {
+        instanceIds.addAll(childInstanceIds);
+    }
+
+    @Override
+    boolean isHibernated() {
+        return true;
+    }
+
+    @NonNull
+    @Override
+    String getControllerClassName() {
+        final String className = hibernatedState.getString(KEY_CLASS_NAME);
+        return className != null ? className : super.getControllerClassName();
+    }
+
+    @Override
+    Bundle saveInstanceState() {
+        return hibernatedState;
+    }
+
+    @NonNull
+    @Override
+    protected View onCreateView(@NonNull LayoutInflater inflater, @NonNull ViewGroup container, @Nullable Bundle savedViewState) {
+        throw new IllegalStateException("Hibernated Controllers must be rehydrated before their views are created.");
+    }
+}
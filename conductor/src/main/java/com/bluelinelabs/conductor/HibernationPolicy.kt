@@ -0,0 +1,29 @@
+package com.bluelinelabs.conductor
+
+/**
+ * Determines when a [Router] hibernates the [Controller]s deep in its backstack. A hibernated Controller is
+ * saved through its normal instance state path, destroyed, and replaced with a lightweight placeholder until
+ * it is needed again, at which point it is recreated exactly as it would be after process death.
+ *
+ * Only Controllers that are fully detached, without a view, and not part of a running change are eligible.
+ *
+ * @param maxAwakeDepth The number of Controllers from the top of the backstack that are always kept awake, or
+ * [UNLIMITED_DEPTH] to never hibernate based on depth.
+ * @param hibernateOnTrimMemory Whether memory pressure should hibernate every eligible Controller below the
+ * top of the backstack, regardless of [maxAwakeDepth].
+ */
+class HibernationPolicy @JvmOverloads constructor(
+  @get:JvmName("maxAwakeDepth")
+  val maxAwakeDepth: Int = UNLIMITED_DEPTH,
+  @get:JvmName("hibernateOnTrimMemory")
+  val hibernateOnTrimMemory: Boolean = false
+) {
+
+  init {
+    require(maxAwakeDepth >= 1) { "maxAwakeDepth must be at least 1, but was $maxAwakeDepth" }
+  }
+
+  companion object {
+    const val UNLIMITED_DEPTH = Int.MAX_VALUE
+  }
+}
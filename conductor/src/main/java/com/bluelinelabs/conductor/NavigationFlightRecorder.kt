@@ -0,0 +1,224 @@
+package com.bluelinelabs.conductor
+
+import androidx.annotation.RestrictTo
+import androidx.annotation.RestrictTo.Scope.LIBRARY_GROUP
+import java.io.ByteArrayOutputStream
+import java.io.DataOutputStream
+import java.util.Locale
+
+/**
+ * A fixed-size history of the most recent [Controller] changes performed by a root [Router] and all of its child
+ * Routers, meant to be attached to crash reports and bug reports. Recording a change only writes into preallocated
+ * arrays, so it doesn't allocate once enabled. Once full, each new change overwrites the oldest one.
+ *
+ * Changes are recorded on the main thread, so dumps should be taken from it as well (ex: from an uncaught exception
+ * handler running on the main thread).
+ *
+ * @see Router.enableFlightRecorder
+ */
+class NavigationFlightRecorder internal constructor(
+  /** The maximum number of changes kept. */
+  val capacity: Int,
+) {
+
+  private val operations = ByteArray(capacity)
+  private val flags = ByteArray(capacity)
+  private val toClasses = arrayOfNulls<Class<*>>(capacity)
+  private val fromClasses = arrayOfNulls<Class<*>>(capacity)
+  private val handlerClasses = arrayOfNulls<Class<*>>(capacity)
+  private val wallTimesMillis = LongArray(capacity)
+  private val requestedAtNanos = LongArray(capacity)
+  private val startedAtNanos = LongArray(capacity)
+  private val completedAtNanos = LongArray(capacity)
+
+  // The total number of changes ever recorded, which also serves as the id of the next one.
+  private var recorded = 0L
+
+  // The id of the oldest change that hasn't been cleared.
+  private var oldestId = 0L
+
+  /** The number of changes currently held. */
+  val size: Int get() = minOf(recorded - oldestId, capacity.toLong()).toInt()
+
+  init {
+    require(capacity > 0) { "The flight recorder capacity must be positive, was $capacity" }
+  }
+
+  /**
+   * Records a change as it's requested from a Router. Returns the id of the recorded change, which has to be passed
+   * to [onChangeStarted] and [onChangeCompleted].
+   */
+  @RestrictTo(LIBRARY_GROUP)
+  fun record(
+    operation: Int,
+    to: Controller?,
+    from: Controller?,
+    handler: ControllerChangeHandler?,
+    isPush: Boolean,
+    isQueued: Boolean,
+    requestedAtNanos: Long,
+  ): Long {
+    val id = recorded++
+    val slot = (id % capacity).toInt()
+    operations[slot] = operation.toByte()
+    flags[slot] = ((if (isPush) FLAG_PUSH else 0) or (if (isQueued) FLAG_QUEUED else 0)).toByte()
+    toClasses[slot] = to?.javaClass
+    fromClasses[slot] = from?.javaClass
+    handlerClasses[slot] = handler?.javaClass
+    wallTimesMillis[slot] = System.currentTimeMillis()
+    this.requestedAtNanos[slot] = requestedAtNanos
+    startedAtNanos[slot] = -1
+    completedAtNanos[slot] = -1
+    return id
+  }
+
+  /**
+   * Records that the change with the passed id has started running with the passed handler.
+   */
+  internal fun onChangeStarted(id: Long, handler: ControllerChangeHandler) {
+    val slot = slotOf(id)
+    if (slot >= 0) {
+      handlerClasses[slot] = handler.javaClass
+      startedAtNanos[slot] = System.nanoTime()
+    }
+  }
+
+  /**
+   * Records that the change with the passed id has completed. Only the first completion counts.
+   */
+  internal fun onChangeCompleted(id: Long) {
+    val slot = slotOf(id)
+    if (slot >= 0 && completedAtNanos[slot] < 0) {
+      completedAtNanos[slot] = System.nanoTime()
+    }
+  }
+
+  /** Discards all recorded changes. */
+  fun clear() {
+    oldestId = recorded
+    toClasses.fill(null)
+    fromClasses.fill(null)
+    handlerClasses.fill(null)
+  }
+
+  /**
+   * Writes the recorded changes as text, one line per change from the oldest to the most recent. Each line holds
+   * the change's age, the Router operation that caused it, its direction, the Controllers changed to and from, its
+   * change handler, how long it waited before it ran (if it was queued) and how long it took to complete.
+   */
+  fun dump(out: Appendable) {
+    val now = System.nanoTime()
+    out.append("Conductor flight recorder: ").append(size.toString()).append(" of ")
+      .append((recorded - oldestId).toString()).append(" changes\n")
+
+    forEachSlot { slot ->
+      val flags = flags[slot].toInt()
+      out.append(formatMillis(now - requestedAtNanos[slot])).append(" ago ")
+        .append(operationName(operations[slot].toInt()))
+        .append(if (flags and FLAG_PUSH != 0) " push " else " pop ")
+        .append(toClasses[slot]?.simpleName ?: "-")
+        .append(" <- ")
+        .append(fromClasses[slot]?.simpleName ?: "-")
+        .append(" (").append(handlerClasses[slot]?.simpleName ?: "-").append(")")
+
+      val startedAt = startedAtNanos[slot]
+      if (flags and FLAG_QUEUED != 0) {
+        out.append(" queued ").append(if (startedAt >= 0) formatMillis(startedAt - requestedAtNanos[slot]) else "pending")
+      }
+
+      val completedAt = completedAtNanos[slot]
+      when {
+        startedAt < 0 -> Unit
+        completedAt >= 0 -> out.append(" took ").append(formatMillis(completedAt - startedAt))
+        else -> out.append(" running ").append(formatMillis(now - startedAt))
+      }
+      out.append('\n')
+    }
+  }
+
+  /**
+   * Returns the recorded changes in a compact binary form, from the oldest to the most recent. The format starts
+   * with a version byte (currently 1) and the number of changes as an int. Each change is then written as its
+   * operation and flags bytes (bit 0: push, bit 1: queued), its wall clock time in milliseconds, the nanoseconds it
+   * waited before it ran and took to complete (both -1 if unknown), and the fully qualified class names of the
+   * Controller changed to, the one changed from and the change handler (empty if none). Numbers are big-endian and
+   * names are in modified UTF-8, as written by [DataOutputStream].
+   */
+  fun toByteArray(): ByteArray {
+    val bytes = ByteArrayOutputStream()
+    DataOutputStream(bytes).use { out ->
+      out.writeByte(BINARY_VERSION)
+      out.writeInt(size)
+      forEachSlot { slot ->
+        val startedAt = startedAtNanos[slot]
+        val completedAt = completedAtNanos[slot]
+        out.writeByte(operations[slot].toInt())
+        out.writeByte(flags[slot].toInt())
+        out.writeLong(wallTimesMillis[slot])
+        out.writeLong(if (startedAt >= 0) startedAt - requestedAtNanos[slot] else -1)
+        out.writeLong(if (startedAt >= 0 && completedAt >= 0) completedAt - startedAt else -1)
+        out.writeUTF(toClasses[slot]?.name ?: "")
+        out.writeUTF(fromClasses[slot]?.name ?: "")
+        out.writeUTF(handlerClasses[slot]?.name ?: "")
+      }
+    }
+    return bytes.toByteArray()
+  }
+
+  override fun toString(): String {
+    return StringBuilder().also { dump(it) }.toString()
+  }
+
+  private fun slotOf(id: Long): Int {
+    // Changes that were overwritten by newer ones, or cleared, are no longer held.
+    return if (id >= oldestId && id < recorded && recorded - id <= capacity) (id % capacity).toInt() else -1
+  }
+
+  private inline fun forEachSlot(block: (slot: Int) -> Unit) {
+    for (id in recorded - size until recorded) {
+      block((id % capacity).toInt())
+    }
+  }
+
+  private fun formatMillis(nanos: Long): String {
+    return String.format(Locale.US, "%.1fms", nanos / 1_000_000.0)
+  }
+
+  companion object {
+    /** A change caused by something other than the operations below, such as a Router being destroyed. */
+    const val OPERATION_OTHER = 0
+
+    /** A change caused by [Router.pushController]. */
+    const val OPERATION_PUSH = 1
+
+    /** A change caused by [Router.popController] or [Router.popCurrentController]. */
+    const val OPERATION_POP = 2
+
+    /** A change caused by [Router.replaceTopController]. */
+    const val OPERATION_REPLACE_TOP = 3
+
+    /**
+     * A change caused by [Router.setBackstack], including through [Router.setRoot], [Router.popToRoot] and
+     * [Router.popToTag].
+     */
+    const val OPERATION_SET_BACKSTACK = 4
+
+    /** A change caused by [Router.rebindIfNeeded] attaching an existing backstack. */
+    const val OPERATION_REBIND = 5
+
+    private const val FLAG_PUSH = 1
+    private const val FLAG_QUEUED = 2
+    private const val BINARY_VERSION = 1
+
+    private fun operationName(operation: Int): String {
+      return when (operation) {
+        OPERATION_PUSH -> "pushController"
+        OPERATION_POP -> "popController"
+        OPERATION_REPLACE_TOP -> "replaceTopController"
+        OPERATION_SET_BACKSTACK -> "setBackstack"
+        OPERATION_REBIND -> "rebind"
+        else -> "other"
+      }
+    }
+  }
+}
@@ -0,0 +1,203 @@
+package com.bluelinelabs.conductor
+
+import android.view.View
+import android.view.ViewTreeObserver
+
+/**
+ * Receives timings for every change performed by a root [Router] and all of its child Routers.
+ *
+ * @see Router.addNavigationMetricsListener
+ */
+fun interface NavigationMetricsListener {
+  /**
+   * Called once a change has completed and its "to" view has been drawn. The passed [NavigationMetrics] instance
+   * is reused for later changes, so any values needed after this call returns must be copied out of it.
+   */
+  fun onNavigationMetrics(metrics: NavigationMetrics)
+}
+
+/**
+ * Timings for a single [Controller] change, in nanoseconds. Durations that don't apply to a change (ex: view
+ * creation when the "to" Controller already had a view) are 0.
+ */
+class NavigationMetrics internal constructor() {
+
+  /** The Controller being changed to, or `null` if there was none. */
+  var to: Controller? = null
+    private set
+
+  /** The Controller being changed from, or `null` if there was none. */
+  var from: Controller? = null
+    private set
+
+  /** Whether the change was a push. */
+  var isPush = false
+    private set
+
+  /** Time spent in the "to" Controller's `onCreateView`. */
+  var createViewNanos = 0L
+    private set
+
+  /** Time spent restoring the "to" Controller's saved view state. */
+  var restoreViewStateNanos = 0L
+    private set
+
+  /** Time spent in the change handler's `performChange` before it returned, such as building its animations. */
+  var handlerSetupNanos = 0L
+    private set
+
+  /** Time from `performChange` returning until the change handler reported that the change was complete. */
+  var animationNanos = 0L
+    private set
+
+  /**
+   * Time from the change being requested from the Router until the "to" view was first drawn, or -1 if it wasn't
+   * drawn (ex: if there was no "to" view, or it wasn't in a window).
+   */
+  var firstDrawNanos = -1L
+    private set
+
+  /** Time from the change being requested from the Router until it completed and its "to" view was drawn. */
+  var totalNanos = 0L
+    private set
+
+  override fun toString(): String {
+    return "NavigationMetrics(to=${to?.javaClass?.simpleName}, from=${from?.javaClass?.simpleName}, isPush=$isPush, " +
+      "createViewNanos=$createViewNanos, restoreViewStateNanos=$restoreViewStateNanos, " +
+      "handlerSetupNanos=$handlerSetupNanos, animationNanos=$animationNanos, firstDrawNanos=$firstDrawNanos, " +
+      "totalNanos=$totalNanos)"
+  }
+
+  /**
+   * Collects the timings of one change as it runs through [ControllerChangeHandler.executeChange]. Recorders are
+   * pooled, so that measuring changes doesn't allocate once the pool has warmed up. Only used on the main thread.
+   */
+  internal class Recorder private constructor() : ViewTreeObserver.OnPreDrawListener {
+
+    private val metrics = NavigationMetrics()
+    private var router: Router? = null
+    private var toView: View? = null
+    private var requestedAt = 0L
+    private var handlerStartedAt = 0L
+    private var handlerSetUpAt = -1L
+    private var handlerReturned = false
+    private var completedAt = -1L
+    private var drawnAt = -1L
+
+    fun onViewCreated(to: Controller) {
+      metrics.createViewNanos = to.createViewNanos
+      metrics.restoreViewStateNanos = to.restoreViewStateNanos
+    }
+
+    fun onHandlerStarted() {
+      handlerStartedAt = now()
+    }
+
+    fun onHandlerSetUp(toView: View?) {
+      handlerReturned = true
+      if (handlerSetUpAt < 0) {
+        handlerSetUpAt = now()
+      }
+
+      if (toView != null) {
+        this.toView = toView
+        toView.viewTreeObserver.addOnPreDrawListener(this)
+      }
+      reportIfSettled()
+    }
+
+    fun onChangeCompleted() {
+      completedAt = now()
+      if (handlerSetUpAt < 0) {
+        // The handler completed the change before performChange returned.
+        handlerSetUpAt = completedAt
+      }
+      reportIfSettled()
+    }
+
+    override fun onPreDraw(): Boolean {
+      if (drawnAt < 0) {
+        drawnAt = now()
+        stopWatchingDraws()
+        reportIfSettled()
+      }
+      return true
+    }
+
+    private fun reportIfSettled() {
+      if (completedAt < 0 || !handlerReturned) {
+        return
+      }
+
+      val toView = toView
+      if (drawnAt < 0 && toView != null && isAttachedToWindow(toView)) {
+        return
+      }
+
+      stopWatchingDraws()
+      metrics.handlerSetupNanos = handlerSetUpAt - handlerStartedAt
+      metrics.animationNanos = completedAt - handlerSetUpAt
+      metrics.firstDrawNanos = if (drawnAt >= 0) drawnAt - requestedAt else -1
+      metrics.totalNanos = maxOf(completedAt, drawnAt) - requestedAt
+
+      val listeners = router!!.navigationMetricsListeners
+      for (i in listeners.indices) {
+        listeners[i].onNavigationMetrics(metrics)
+      }
+
+      recycle()
+    }
+
+    private fun stopWatchingDraws() {
+      val toView = toView ?: return
+      val observer = toView.viewTreeObserver
+      if (observer.isAlive) {
+        observer.removeOnPreDrawListener(this)
+      }
+    }
+
+    private fun recycle() {
+      router = null
+      toView = null
+      handlerSetUpAt = -1
+      handlerReturned = false
+      completedAt = -1
+      drawnAt = -1
+      metrics.to = null
+      metrics.from = null
+      metrics.createViewNanos = 0
+      metrics.restoreViewStateNanos = 0
+      metrics.firstDrawNanos = -1
+      if (pool.size < MAX_POOL_SIZE) {
+        pool.add(this)
+      }
+    }
+
+    companion object {
+      private const val MAX_POOL_SIZE = 4
+      private val pool = ArrayList<Recorder>(MAX_POOL_SIZE)
+
+      /**
+       * Returns a recorder for the passed change, or null if the Router performing it has no metrics listeners.
+       */
+      fun start(to: Controller?, from: Controller?, isPush: Boolean, requestedAt: Long): Recorder? {
+        val router = (to ?: from)?.router?.rootRouter ?: return null
+        if (router.navigationMetricsListeners.isEmpty()) {
+          return null
+        }
+
+        val recorder = if (pool.isEmpty()) Recorder() else pool.removeAt(pool.size - 1)
+        recorder.router = router
+        recorder.requestedAt = requestedAt
+        recorder.metrics.to = to
+        recorder.metrics.from = from
+        recorder.metrics.isPush = isPush
+        return recorder
+      }
+
+      private fun isAttachedToWindow(view: View) = view.windowToken != null
+
+      private fun now(): Long = System.nanoTime()
+    }
+  }
+}
@@ -0,0 +1,75 @@
+package com.bluelinelabs.conductor;
+
+import android.view.View;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Holds released views for reuse by other instances of the same {@link Controller} class. Only classes with a
+ * configured pool size are pooled.
+ */
+final class RecycledViewPool {
+
+    private final Map<Class<? extends Controller>, Integer> maxSizes = new HashMap<>();
+    private final Map<Class<? extends Controller>, List<View>> pools = new HashMap<>();
+
+    void setMaxSize(@NonNull Class<? extends Controller> controllerClass, int maxSize) {
+        if (maxSize > 0) {
+            maxSizes.put(controllerClass, maxSize);
+        } else {
+            maxSizes.remove(controllerClass);
+        }
+
+        List<View> pool = pools.get(controllerClass);
+        if (pool != null) {
+            while (pool.size() > maxSize) {
+                pool.remove(pool.size() - 1);
+            }
+        }
+    }
+
+    boolean isPooled(@NonNull Class<? extends Controller> controllerClass) {
+        return maxSizes.containsKey(controllerClass);
+    }
+
+    boolean put(@NonNull Class<? extends Controller> controllerClass, @NonNull View view) {
+        Integer maxSize = maxSizes.get(controllerClass);
+        if (maxSize == null) {
+            return false;
+        }
+
+        List<View> pool = pools.get(controllerClass);
+        if (pool == null) {
+            pool = new ArrayList<>(maxSize);
+            pools.put(controllerClass, pool);
+        }
+
+        if (pool.size() >= maxSize || pool.contains(view)) {
+            return false;
+        }
+
+        pool.add(view);
+        return true;
+    }
+
+    @Nullable
+    View take(@NonNull Class<? extends Controller> controllerClass) {
+        List<View> pool = pools.get(controllerClass);
+        return pool == null || pool.isEmpty() ? null : pool.remove(pool.size() - 1);
+    }
+
+    int size(@NonNull Class<? extends Controller> controllerClass) {
+        List<View> pool = pools.get(controllerClass);
+        return pool == null ? 0 : pool.size();
+    }
+
+    void clear() {
+        pools.clear();
+    }
+}
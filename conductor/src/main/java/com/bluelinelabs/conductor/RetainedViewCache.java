@@ -0,0 +1,127 @@
+package com.bluelinelabs.conductor;
+
+import android.view.View;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+
+/**
+ * Tracks the detached views a {@link Router} retains under its {@link RetainedViewPolicy}, ordered from least
+ * to most recently detached.
+ */
+final class RetainedViewCache {
+
+    private final LinkedHashMap<Controller, Long> entries = new LinkedHashMap<>();
+    private RetainedViewPolicy policy;
+    private long totalBytes;
+    private int hitCount;
+    private int missCount;
+
+    @Nullable
+    RetainedViewPolicy getPolicy() {
+        return policy;
+    }
+
+    void setPolicy(@Nullable RetainedViewPolicy policy) {
+        this.policy = policy;
+        trim(null);
+    }
+
+    /**
+     * Offers a newly detached view to the cache, returning whether it will be retained.
+     */
+    boolean retain(@NonNull Controller controller, @NonNull View view) {
+        if (policy == null) {
+            return false;
+        }
+
+        long bytes = estimateBytes(view);
+        if (policy.maxViews() == 0 || bytes > policy.maxBytes()) {
+            return false;
+        }
+
+        remove(controller);
+        entries.put(controller, bytes);
+        totalBytes += bytes;
+        trim(controller);
+
+        return entries.containsKey(controller);
+    }
+
+    /**
+     * Removes the passed Controller's view from the cache, returning whether it was retained.
+     */
+    boolean remove(@NonNull Controller controller) {
+        Long bytes = entries.remove(controller);
+        if (bytes != null) {
+            totalBytes -= bytes;
+            return true;
+        }
+        return false;
+    }
+
+    void onViewReused(@NonNull Controller controller) {
+        if (remove(controller)) {
+            hitCount++;
+        }
+    }
+
+    void onViewRecreated() {
+        if (policy != null) {
+            missCount++;
+        }
+    }
+
+    void clear() {
+        for (Controller controller : new ArrayList<>(entries.keySet())) {
+            release(controller);
+        }
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    int getHitCount() {
+        return hitCount;
+    }
+
+    int getMissCount() {
+        return missCount;
+    }
+
+    /**
+     * Releases the least recently detached views until the cache fits its policy. The passed Controller, which is
+     * being retained, is only dropped from the cache, as its view is released by the caller.
+     */
+    private void trim(@Nullable Controller retaining) {
+        int maxViews = policy != null ? policy.maxViews() : 0;
+        long maxBytes = policy != null ? policy.maxBytes() : 0;
+
+        for (Controller controller : new ArrayList<>(entries.keySet())) {
+            if (entries.size() <= maxViews && totalBytes <= maxBytes) {
+                break;
+            }
+
+            if (controller == retaining) {
+                remove(controller);
+            } else {
+                release(controller);
+            }
+        }
+    }
+
+    // Views that can't be released yet, such as ones that are part of a change, stay cached until the next trim.
+    private void release(@NonNull Controller controller) {
+        if (controller.releaseDetachedView()) {
+            remove(controller);
+        }
+    }
+
+    private static long estimateBytes(@NonNull View view) {
+        return (long) view.getWidth() * view.getHeight() * 4;
+    }
+}
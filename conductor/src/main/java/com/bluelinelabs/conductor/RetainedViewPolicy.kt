@@ -0,0 +1,31 @@
+package com.bluelinelabs.conductor
+
+/**
+ * Determines how many detached views a [Router] keeps around for Controllers using
+ * [Controller.RetainViewMode.RELEASE_DETACH]. Retained views are reused when their Controller is shown again,
+ * such as when navigating back to it. Once the budget is exceeded, the least recently detached views are
+ * released as if they had never been retained.
+ *
+ * The byte budget is based on an estimate of each view's drawn size (its width × height × 4 bytes per pixel),
+ * not on the actual memory held by the view hierarchy.
+ *
+ * @param maxViews The maximum number of detached views to retain.
+ * @param maxBytes The maximum estimated size of all retained views combined, or [UNLIMITED_BYTES] to only
+ * limit the number of views.
+ */
+class RetainedViewPolicy @JvmOverloads constructor(
+  @get:JvmName("maxViews")
+  val maxViews: Int,
+  @get:JvmName("maxBytes")
+  val maxBytes: Long = UNLIMITED_BYTES
+) {
+
+  init {
+    require(maxViews >= 0) { "maxViews must not be negative, but was $maxViews" }
+    require(maxBytes >= 0) { "maxBytes must not be negative, but was $maxBytes" }
+  }
+
+  companion object {
+    const val UNLIMITED_BYTES = Long.MAX_VALUE
+  }
+}
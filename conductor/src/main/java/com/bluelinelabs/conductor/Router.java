@@ -1,6 +1,7 @@
 package com.bluelinelabs.conductor;
 
 import android.app.Activity;
+import android.content.ComponentCallbacks2;
 import android.content.Context;
 import android.content.Intent;
 import android.content.IntentSender;
@@ -16,6 +17,7 @@ import androidx.activity.ComponentActivity;
 import androidx.activity.OnBackPressedDispatcher;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
+import androidx.annotation.RestrictTo;
 import androidx.annotation.UiThread;
 
 import com.bluelinelabs.conductor.ControllerChangeHandler.ChangeTransaction;
@@ -23,12 +25,20 @@ import com.bluelinelabs.conductor.ControllerChangeHandler.ControllerChangeListen
 import com.bluelinelabs.conductor.changehandler.SimpleSwapChangeHandler;
 import com.bluelinelabs.conductor.internal.NoOpControllerChangeHandler;
 import com.bluelinelabs.conductor.internal.ThreadUtils;
+import com.bluelinelabs.conductor.internal.Tracing;
 import com.bluelinelabs.conductor.internal.TransactionIndexer;
+import com.bluelinelabs.conductor.navigation.BackstackDiff;
+import com.bluelinelabs.conductor.navigation.RevealsEntryBelow;
+import com.bluelinelabs.conductor.navigation.TransactionIndices;
+import com.bluelinelabs.conductor.navigation.Visibility;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executor;
 
 /**
  * A Router implements navigation and backstack handling for {@link Controller}s. Router objects are attached
@@ -41,13 +51,68 @@ public abstract class Router {
     private static final String KEY_BACKSTACK = "Router.backstack";
     private static final String KEY_POP_ROOT_CONTROLLER_MODE = "Router.popRootControllerMode";
     private static final String KEY_ON_BACK_PRESSED_DISPATCHER_ENABLED = "Router.onBackPressedDispatcherEnabled";
+    private static final int DEFAULT_MAX_PREPARED_VIEWS = 3;
+
+    private static final RevealsEntryBelow<RouterTransaction> REVEALS_BELOW =
+            transaction -> transaction.pushChangeHandler() != null && !transaction.pushChangeHandler().getRemovesFromViewOnPush();
+
+    private static final TransactionIndices.IndexAccessor<RouterTransaction> TRANSACTION_INDICES = new TransactionIndices.IndexAccessor<RouterTransaction>() {
+        @Override
+        public int getIndex(RouterTransaction transaction) {
+            return transaction.getTransactionIndex();
+        }
+
+        @Override
+        public void setIndex(RouterTransaction transaction, int index) {
+            transaction.setTransactionIndex(index);
+        }
+    };
 
     final Backstack backstack = new Backstack();
     private final List<ControllerChangeListener> changeListeners = new ArrayList<>();
+    final List<NavigationMetricsListener> navigationMetricsListeners = new ArrayList<>();
+    final List<TransitionFrameListener> transitionFrameListeners = new ArrayList<>();
+    @Nullable NavigationFlightRecorder flightRecorder;
+    private int currentOperation = NavigationFlightRecorder.OPERATION_OTHER;
+    @Nullable private ConductorStrictMode strictMode;
     private final List<ChangeTransaction> pendingControllerChanges = new ArrayList<>();
     final List<Controller> destroyingControllers = new ArrayList<>();
+    private final List<Controller> preparedControllers = new ArrayList<>();
+    final RetainedViewCache retainedViewCache = new RetainedViewCache();
+    final RecycledViewPool recycledViewPool = new RecycledViewPool();
+
+    private final ControllerChangeListener hibernationChangeListener = new ControllerChangeListener() {
+        @Override
+        public void onChangeStarted(@Nullable Controller to, @Nullable Controller from, boolean isPush, @NonNull ViewGroup container, @NonNull ControllerChangeHandler handler) {
+        }
+
+        @Override
+        public void onChangeCompleted(@Nullable Controller to, @Nullable Controller from, boolean isPush, @NonNull ViewGroup container, @NonNull ControllerChangeHandler handler) {
+            if (hibernationPolicy != null) {
+                hibernateControllersDeeperThan(hibernationPolicy.maxAwakeDepth());
+            }
+        }
+    };
+
+    private final ControllerChangeListener cullingChangeListener = new ControllerChangeListener() {
+        @Override
+        public void onChangeStarted(@Nullable Controller to, @Nullable Controller from, boolean isPush, @NonNull ViewGroup container, @NonNull ControllerChangeHandler handler) {
+        }
+
+        @Override
+        public void onChangeCompleted(@Nullable Controller to, @Nullable Controller from, boolean isPush, @NonNull ViewGroup container, @NonNull ControllerChangeHandler handler) {
+            // A change completing while the UI is visible is taken as the sign that memory pressure is over.
+            if (!isActivityStopped) {
+                snapshotsSuppressed = false;
+            }
+            updateCoveredLayers();
+        }
+    };
 
     PopRootControllerMode popRootControllerMode;
+    HibernationPolicy hibernationPolicy;
+    private int maxPreparedViews = DEFAULT_MAX_PREPARED_VIEWS;
+    private boolean snapshotsSuppressed;
     boolean onBackPressedDispatcherEnabled;
     boolean containerFullyAttached = false;
     boolean isActivityStopped = false;
@@ -55,19 +120,21 @@ public abstract class Router {
     ViewGroup container;
 
     Router() {
-        backstack.setOnBackstackUpdatedListener(() -> {
-            if (!onBackPressedDispatcherEnabled) {
-                return;
-            }
+        backstack.setOnBackstackUpdatedListener(this::updateBackPressedCallbacks);
+    }
 
-            Iterator<RouterTransaction> iterator = getBackstack().iterator();
-            int index = 0;
-            while (iterator.hasNext()) {
-                iterator.next().controller().onBackPressedCallback.setEnabled(
-                        index++ > 0 || popRootControllerMode != PopRootControllerMode.NEVER
-                );
-            }
-        });
+    private void updateBackPressedCallbacks() {
+        if (!onBackPressedDispatcherEnabled) {
+            return;
+        }
+
+        RouterTransaction[] transactions = backstack.snapshot();
+        for (int index = 0; index < transactions.length; index++) {
+            // The root is last, and is only enabled if it can be popped.
+            transactions[index].controller().onBackPressedCallback.setEnabled(
+                    index < transactions.length - 1 || popRootControllerMode != PopRootControllerMode.NEVER
+            );
+        }
     }
 
     /**
@@ -174,6 +241,17 @@ public abstract class Router {
      */
     @UiThread
     public boolean popController(@NonNull Controller controller) {
+        final boolean traced = Tracing.beginSection("Router.popController", controller);
+        final int previousOperation = beginOperation(NavigationFlightRecorder.OPERATION_POP);
+        try {
+            return performPop(controller);
+        } finally {
+            currentOperation = previousOperation;
+            Tracing.endSection(traced);
+        }
+    }
+
+    private boolean performPop(@NonNull Controller controller) {
         ThreadUtils.ensureMainThread();
 
         RouterTransaction topTransaction = backstack.peek();
@@ -223,6 +301,17 @@ public abstract class Router {
      */
     @UiThread
     public void pushController(@NonNull RouterTransaction transaction) {
+        final boolean traced = Tracing.beginSection("Router.pushController", transaction.controller());
+        final int previousOperation = beginOperation(NavigationFlightRecorder.OPERATION_PUSH);
+        try {
+            performPush(transaction);
+        } finally {
+            currentOperation = previousOperation;
+            Tracing.endSection(traced);
+        }
+    }
+
+    private void performPush(@NonNull RouterTransaction transaction) {
         ThreadUtils.ensureMainThread();
 
         RouterTransaction from = backstack.peek();
@@ -241,6 +330,15 @@ public abstract class Router {
     public void replaceTopController(@NonNull RouterTransaction transaction) {
         ThreadUtils.ensureMainThread();
 
+        final int previousOperation = beginOperation(NavigationFlightRecorder.OPERATION_REPLACE_TOP);
+        try {
+            performReplaceTop(transaction);
+        } finally {
+            currentOperation = previousOperation;
+        }
+    }
+
+    private void performReplaceTop(@NonNull RouterTransaction transaction) {
         RouterTransaction topTransaction = backstack.peek();
         if (!backstack.isEmpty()) {
             trackDestroyingController(backstack.pop());
@@ -395,7 +493,7 @@ public abstract class Router {
     public boolean popToTag(@NonNull String tag, @Nullable ControllerChangeHandler changeHandler) {
         ThreadUtils.ensureMainThread();
 
-        for (RouterTransaction transaction : backstack) {
+        for (RouterTransaction transaction : backstack.snapshot()) {
             if (tag.equals(transaction.tag())) {
                 popToTransaction(transaction, changeHandler);
                 return true;
@@ -426,10 +524,15 @@ public abstract class Router {
      */
     @Nullable
     public Controller getControllerWithInstanceId(@NonNull String instanceId) {
-        for (RouterTransaction transaction : backstack) {
+        for (RouterTransaction transaction : backstack.snapshot()) {
+            // Hibernated Controllers have no child Routers to search until they're recreated.
+            if (transaction.controller().isHibernated() && ((HibernatedController) transaction.controller()).hostsChild(instanceId)) {
+                rehydrate(transaction);
+            }
+
             Controller controllerWithId = transaction.controller().findController(instanceId);
             if (controllerWithId != null) {
-                return controllerWithId;
+                return controllerWithId.isHibernated() ? rehydrate(transaction) : controllerWithId;
             }
         }
         return null;
@@ -443,14 +546,287 @@ public abstract class Router {
      */
     @Nullable
     public Controller getControllerWithTag(@NonNull String tag) {
-        for (RouterTransaction transaction : backstack) {
+        for (RouterTransaction transaction : backstack.snapshot()) {
             if (tag.equals(transaction.tag())) {
-                return transaction.controller();
+                return rehydrate(transaction);
             }
         }
         return null;
     }
 
+    /**
+     * Sets the {@link HibernationPolicy} this Router uses to hibernate Controllers deep in its backstack, or
+     * {@code null} to keep every Controller awake. Child Routers each have their own policy.
+     */
+    @UiThread
+    public void setHibernationPolicy(@Nullable HibernationPolicy hibernationPolicy) {
+        ThreadUtils.ensureMainThread();
+
+        this.hibernationPolicy = hibernationPolicy;
+        if (hibernationPolicy != null) {
+            hibernateControllersDeeperThan(hibernationPolicy.maxAwakeDepth());
+        }
+    }
+
+    /**
+     * Returns this Router's {@link HibernationPolicy}, or {@code null} if it doesn't hibernate Controllers.
+     */
+    @Nullable
+    public HibernationPolicy getHibernationPolicy() {
+        return hibernationPolicy;
+    }
+
+    /**
+     * Hibernates every eligible Controller more than {@code depth} entries below the top of the backstack. Hibernated
+     * Controllers are saved and destroyed, then recreated from their saved state with the same instance ID when they
+     * are shown again or looked up through this Router. Controllers that have a view or are part of a running change
+     * are skipped.
+     *
+     * @param depth The number of Controllers from the top of the backstack to keep awake
+     * @return The number of Controllers that were hibernated
+     */
+    @UiThread
+    public int hibernateControllersDeeperThan(int depth) {
+        ThreadUtils.ensureMainThread();
+
+        int hibernatedCount = 0;
+        int index = 0;
+        for (RouterTransaction transaction : backstack.snapshot()) {
+            if (index++ >= depth && hibernate(transaction)) {
+                hibernatedCount++;
+            }
+        }
+        return hibernatedCount;
+    }
+
+    /**
+     * Sets the {@link RetainedViewPolicy} this Router uses to keep the views of recently detached Controllers, or
+     * {@code null} to release them as soon as they are detached. Only Controllers using
+     * {@link Controller.RetainViewMode#RELEASE_DETACH} are affected. Child Routers each have their own policy.
+     */
+    @UiThread
+    public void setRetainedViewPolicy(@Nullable RetainedViewPolicy retainedViewPolicy) {
+        ThreadUtils.ensureMainThread();
+
+        retainedViewCache.setPolicy(retainedViewPolicy);
+    }
+
+    /**
+     * Returns this Router's {@link RetainedViewPolicy}, or {@code null} if it doesn't retain detached views.
+     */
+    @Nullable
+    public RetainedViewPolicy getRetainedViewPolicy() {
+        return retainedViewCache.getPolicy();
+    }
+
+    /**
+     * Returns the number of detached views currently retained by this Router's {@link RetainedViewPolicy}.
+     */
+    public int getRetainedViewCount() {
+        return retainedViewCache.size();
+    }
+
+    /**
+     * Returns the number of times a Controller was shown again using a view retained by this Router's
+     * {@link RetainedViewPolicy}.
+     */
+    public int getRetainedViewHitCount() {
+        return retainedViewCache.getHitCount();
+    }
+
+    /**
+     * Returns the number of times a previously shown Controller had to recreate its view while this Router had
+     * a {@link RetainedViewPolicy}.
+     */
+    public int getRetainedViewMissCount() {
+        return retainedViewCache.getMissCount();
+    }
+
+    /**
+     * Sets the maximum number of released views this Router keeps for reuse by other instances of the passed
+     * {@link Controller} class, or 0 to stop pooling its views. Pooled views are reset through
+     * {@link Controller#onRecycleView(View)} and offered to new instances through
+     * {@link Controller#onCreateView(android.view.LayoutInflater, ViewGroup, Bundle, View)}. Views of Controllers
+     * that host child Routers are never pooled.
+     *
+     * @param controllerClass The exact Controller class whose views should be pooled
+     * @param maxSize         The maximum number of views to pool for that class
+     */
+    @UiThread
+    public void setRecycledViewPoolSize(@NonNull Class<? extends Controller> controllerClass, int maxSize) {
+        ThreadUtils.ensureMainThread();
+
+        recycledViewPool.setMaxSize(controllerClass, maxSize);
+    }
+
+    /**
+     * Returns the number of views currently pooled for reuse by the passed {@link Controller} class.
+     */
+    public int getRecycledViewCount(@NonNull Class<? extends Controller> controllerClass) {
+        return recycledViewPool.size(controllerClass);
+    }
+
+    /**
+     * Releases every view in this Router's recycled view pools. Pool sizes are left unchanged.
+     */
+    @UiThread
+    public void clearRecycledViews() {
+        ThreadUtils.ensureMainThread();
+
+        recycledViewPool.clear();
+    }
+
+    /**
+     * Creates the view of the passed transaction's {@link Controller} ahead of time, so that it doesn't need to be
+     * inflated once the transaction is pushed or set as the root. Prepared views are discarded if they are no
+     * longer valid when the Controller is shown.
+     *
+     * @param transaction The transaction that will be shown in this Router's container
+     */
+    @UiThread
+    public void prepare(@NonNull RouterTransaction transaction) {
+        prepare(transaction, null);
+    }
+
+    /**
+     * Creates the view of the passed transaction's {@link Controller} ahead of time, so that it doesn't need to be
+     * inflated once the transaction is pushed or set as the root. If the Controller allows it through
+     * {@link Controller#canInflateOffMainThread()}, its view is inflated on the passed {@link Executor}. Background
+     * inflations that haven't started by the time the Controller is shown are abandoned in favor of inflating on
+     * the main thread, while ones that are already running are waited for.
+     *
+     * @param transaction The transaction that will be shown in this Router's container
+     * @param executor    The executor used for background inflation, or {@code null} to inflate immediately
+     */
+    @UiThread
+    public void prepare(@NonNull RouterTransaction transaction, @Nullable Executor executor) {
+        ThreadUtils.ensureMainThread();
+
+        if (container == null) {
+            return;
+        }
+
+        Controller controller = rehydrate(transaction);
+        setRouterOnController(controller);
+        controller.preInflate(container, executor);
+
+        if (controller.hasPreparedView()) {
+            preparedControllers.add(controller);
+            while (preparedControllers.size() > maxPreparedViews) {
+                discardPreparedView(preparedControllers.remove(0));
+            }
+        }
+    }
+
+    /**
+     * Sets the maximum number of prepared views this Router holds on to. Once exceeded, the least recently
+     * prepared views are discarded. Defaults to 3.
+     */
+    @UiThread
+    public void setMaxPreparedViews(int maxPreparedViews) {
+        ThreadUtils.ensureMainThread();
+
+        if (maxPreparedViews < 0) {
+            throw new IllegalArgumentException("maxPreparedViews must not be negative, but was " + maxPreparedViews);
+        }
+
+        this.maxPreparedViews = maxPreparedViews;
+        while (preparedControllers.size() > maxPreparedViews) {
+            discardPreparedView(preparedControllers.remove(0));
+        }
+    }
+
+    /**
+     * Discards every view prepared through {@link #prepare(RouterTransaction)} that hasn't been used yet.
+     */
+    @UiThread
+    public void discardPreparedViews() {
+        ThreadUtils.ensureMainThread();
+
+        while (!preparedControllers.isEmpty()) {
+            discardPreparedView(preparedControllers.remove(preparedControllers.size() - 1));
+        }
+    }
+
+    private void discardPreparedView(@NonNull Controller controller) {
+        controller.discardPreparedView();
+
+        // prepare() bound the Controller to this Router ahead of it being added, which hasn't happened.
+        if (!backstack.contains(controller) && !controller.isDestroyed() && !controller.isBeingDestroyed()) {
+            controller.unbindRouter();
+        }
+    }
+
+    void onPreparedViewDiscarded(@NonNull Controller controller) {
+        preparedControllers.remove(controller);
+    }
+
+    /**
+     * Returns the number of stacked Controller views currently skipped while drawing because an opaque view covers
+     * them. Views are only culled when this Router's container is a {@link ChangeHandlerFrameLayout}.
+     *
+     * @see Controller#setViewOpaque(boolean)
+     */
+    public int getCulledLayerCount() {
+        return container instanceof ChangeHandlerFrameLayout ? ((ChangeHandlerFrameLayout) container).getCulledLayerCount() : 0;
+    }
+
+    /**
+     * Returns the number of stacked Controller views currently drawn from a snapshot instead of their live view
+     * hierarchy. Snapshots are only used when this Router's container is a {@link ChangeHandlerFrameLayout}.
+     *
+     * @see Controller#setSnapshotWhileCovered(boolean)
+     */
+    public int getSnapshotLayerCount() {
+        return container instanceof ChangeHandlerFrameLayout ? ((ChangeHandlerFrameLayout) container).getSnapshotCount() : 0;
+    }
+
+    /**
+     * Updates which stacked Controller views are culled or drawn from snapshots, based on which views are covered.
+     * The top view in the container is always drawn live.
+     */
+    void updateCoveredLayers() {
+        if (!(container instanceof ChangeHandlerFrameLayout)) {
+            return;
+        }
+
+        List<View> culledViews = new ArrayList<>();
+        List<View> snapshotViews = new ArrayList<>();
+        List<Controller> frozenControllers = new ArrayList<>();
+        boolean isTop = true;
+        boolean covered = false;
+        for (RouterTransaction transaction : backstack.snapshot()) {
+            Controller controller = transaction.controller();
+            View view = controller.getView();
+            if (view == null || view.getParent() != container) {
+                continue;
+            }
+
+            if (covered) {
+                culledViews.add(view);
+            } else if (!isTop && !snapshotsSuppressed && controller.isSnapshotWhileCovered()) {
+                snapshotViews.add(view);
+            }
+
+            if (!isTop && !snapshotsSuppressed && controller.isSnapshotWhileCovered()) {
+                frozenControllers.add(controller);
+            }
+
+            covered |= controller.isViewOpaque();
+            isTop = false;
+        }
+
+        ChangeHandlerFrameLayout layout = (ChangeHandlerFrameLayout) container;
+        layout.setCulledViews(culledViews);
+        layout.setSnapshotViews(snapshotViews);
+
+        // Snapshots are taken first so that they show each view as it was before its Controller was frozen.
+        for (RouterTransaction transaction : backstack.snapshot()) {
+            Controller controller = transaction.controller();
+            controller.setFrozen(frozenControllers.contains(controller));
+        }
+    }
+
     /**
      * Returns the number of {@link Controller}s currently in the backstack
      */
@@ -460,14 +836,17 @@ public abstract class Router {
     }
 
     /**
-     * Returns the current backstack, ordered from root to most recently pushed.
+     * Returns the current backstack, ordered from root to most recently pushed. Reading the backstack doesn't recreate
+     * hibernated Controllers, so their transactions hold a placeholder (see {@link RouterTransaction#isHibernated()}).
+     * Use {@link #getControllerWithInstanceId(String)} or {@link #getControllerWithTag(String)} to get the real
+     * Controller.
      */
     @NonNull
     public List<RouterTransaction> getBackstack() {
-        List<RouterTransaction> list = new ArrayList<>(backstack.getSize());
-        Iterator<RouterTransaction> backstackIterator = backstack.reverseIterator();
-        while (backstackIterator.hasNext()) {
-            list.add(backstackIterator.next());
+        RouterTransaction[] transactions = backstack.snapshot();
+        List<RouterTransaction> list = new ArrayList<>(transactions.length);
+        for (int index = transactions.length - 1; index >= 0; index--) {
+            list.add(transactions[index]);
         }
         return list;
     }
@@ -482,10 +861,20 @@ public abstract class Router {
     @SuppressWarnings("WeakerAccess")
     @UiThread
     public void setBackstack(@NonNull List<RouterTransaction> newBackstack, @Nullable ControllerChangeHandler changeHandler) {
+        final boolean traced = Tracing.beginSection("Router.setBackstack", newBackstack.isEmpty() ? null : newBackstack.get(newBackstack.size() - 1).controller());
+        final int previousOperation = beginOperation(NavigationFlightRecorder.OPERATION_SET_BACKSTACK);
+        try {
+            performSetBackstack(newBackstack, changeHandler);
+        } finally {
+            currentOperation = previousOperation;
+            Tracing.endSection(traced);
+        }
+    }
+
+    private void performSetBackstack(@NonNull List<RouterTransaction> newBackstack, @Nullable ControllerChangeHandler changeHandler) {
         ThreadUtils.ensureMainThread();
 
-        List<RouterTransaction> oldTransactions = getBackstack();
-        List<RouterTransaction> oldVisibleTransactions = getVisibleTransactions(backstack.iterator(), false);
+        List<RouterTransaction> oldTransactions = getTransactions();
 
         removeAllExceptVisibleAndUnowned();
         ensureOrderedTransactionIndices(newBackstack);
@@ -493,23 +882,6 @@ public abstract class Router {
 
         backstack.setBackstack(newBackstack);
 
-        List<RouterTransaction> transactionsToBeRemoved = new ArrayList<>();
-        for (RouterTransaction oldTransaction : oldTransactions) {
-            boolean contains = false;
-            for (RouterTransaction newTransaction : newBackstack) {
-                if (oldTransaction.controller() == newTransaction.controller()) {
-                    contains = true;
-                    break;
-                }
-            }
-
-            if (!contains) {
-                // Inform the controller that it will be destroyed soon
-                oldTransaction.controller().isBeingDestroyed = true;
-                transactionsToBeRemoved.add(oldTransaction);
-            }
-        }
-
         // Ensure all new controllers have a valid router set
         Iterator<RouterTransaction> backstackIterator = backstack.reverseIterator();
         while (backstackIterator.hasNext()) {
@@ -518,19 +890,22 @@ public abstract class Router {
             setRouterOnController(transaction.controller());
         }
 
-        if (newBackstack.size() > 0) {
-            List<RouterTransaction> reverseNewBackstack = new ArrayList<>(newBackstack);
-            Collections.reverse(reverseNewBackstack);
-            List<RouterTransaction> newVisibleTransactions = getVisibleTransactions(reverseNewBackstack.iterator(), false);
-            boolean newRootRequiresPush = !(newVisibleTransactions.size() > 0 && oldTransactions.contains(newVisibleTransactions.get(0)));
+        BackstackDiff<RouterTransaction> diff = BackstackDiff.calculate(oldTransactions, newBackstack, REVEALS_BELOW, RouterTransaction::controller);
+
+        List<RouterTransaction> transactionsToBeRemoved = diff.getRemoved();
+        for (RouterTransaction removedTransaction : transactionsToBeRemoved) {
+            // Inform the controller that it will be destroyed soon
+            removedTransaction.controller().isBeingDestroyed = true;
+        }
 
-            boolean visibleTransactionsChanged = !backstacksAreEqual(newVisibleTransactions, oldVisibleTransactions);
-            if (visibleTransactionsChanged) {
-                RouterTransaction oldRootTransaction = oldVisibleTransactions.size() > 0 ? oldVisibleTransactions.get(0) : null;
-                RouterTransaction newRootTransaction = newVisibleTransactions.get(0);
+        if (newBackstack.size() > 0) {
+            if (diff.getVisibleChanged()) {
+                RouterTransaction oldRootTransaction = diff.getOldVisibleRoot();
+                RouterTransaction newRootTransaction = diff.getNewVisibleRoot();
+                boolean newRootRequiresPush = diff.getNewRootRequiresPush();
 
                 // Replace the old root with the new one
-                if (oldRootTransaction == null || oldRootTransaction.controller() != newRootTransaction.controller()) {
+                if (diff.getReplacesVisibleRoot()) {
                     // Ensure the existing root controller is fully pushed to the view hierarchy
                     if (oldRootTransaction != null) {
                         ControllerChangeHandler.completeHandlerImmediately(oldRootTransaction.controller().getInstanceId());
@@ -539,32 +914,26 @@ public abstract class Router {
                 }
 
                 // Remove all visible controllers that were previously on the backstack
-                for (int i = oldVisibleTransactions.size() - 1; i > 0; i--) {
-                    RouterTransaction transaction = oldVisibleTransactions.get(i);
-                    if (!newVisibleTransactions.contains(transaction)) {
-                        ControllerChangeHandler localHandler = changeHandler != null ? changeHandler.copy() : new SimpleSwapChangeHandler();
-                        localHandler.setForceRemoveViewOnPush(true);
-                        ControllerChangeHandler.completeHandlerImmediately(transaction.controller().getInstanceId());
-
-                        if (transaction.controller().view != null) {
-                            performControllerChange(null, transaction, newRootRequiresPush, localHandler);
-                        }
+                for (RouterTransaction transaction : diff.getVisibleRemovals()) {
+                    ControllerChangeHandler localHandler = changeHandler != null ? changeHandler.copy() : new SimpleSwapChangeHandler();
+                    localHandler.setForceRemoveViewOnPush(true);
+                    ControllerChangeHandler.completeHandlerImmediately(transaction.controller().getInstanceId());
+
+                    if (transaction.controller().view != null) {
+                        performControllerChange(null, transaction, newRootRequiresPush, localHandler);
                     }
                 }
 
                 // Add any new controllers to the backstack
-                for (int i = 1; i < newVisibleTransactions.size(); i++) {
-                    RouterTransaction transaction = newVisibleTransactions.get(i);
-                    if (!oldVisibleTransactions.contains(transaction)) {
-                        performControllerChange(transaction, newVisibleTransactions.get(i - 1), true, transaction.pushChangeHandler());
-                    }
+                for (BackstackDiff.Addition<RouterTransaction> addition : diff.getVisibleAdditions()) {
+                    RouterTransaction transaction = addition.getEntry();
+                    performControllerChange(transaction, addition.getBelow(), true, transaction.pushChangeHandler());
                 }
             }
 
         } else {
             // Remove all visible controllers that were previously on the backstack
-            for (int i = oldVisibleTransactions.size() - 1; i >= 0; i--) {
-                RouterTransaction transaction = oldVisibleTransactions.get(i);
+            for (RouterTransaction transaction : diff.getVisibleRemovals()) {
                 ControllerChangeHandler localHandler = changeHandler != null ? changeHandler.copy() : new SimpleSwapChangeHandler();
                 ControllerChangeHandler.completeHandlerImmediately(transaction.controller().getInstanceId());
                 performControllerChange(null, transaction, false, localHandler);
@@ -619,6 +988,154 @@ public abstract class Router {
         changeListeners.remove(changeListener);
     }
 
+    /**
+     * Adds a listener that receives {@link NavigationMetrics} for every change performed by this Router and all of its
+     * child Routers. This must be called on a root Router (ex: one returned by {@link Conductor#attachRouter}), as
+     * changes are always reported to the root Router's listeners. Measuring changes only costs anything while at
+     * least one listener is registered.
+     *
+     * @param listener The listener
+     */
+    @UiThread
+    public void addNavigationMetricsListener(@NonNull NavigationMetricsListener listener) {
+        ThreadUtils.ensureMainThread();
+
+        if (getRootRouter() != this) {
+            throw new IllegalStateException("NavigationMetricsListeners must be added to a root Router.");
+        }
+        if (!navigationMetricsListeners.contains(listener)) {
+            navigationMetricsListeners.add(listener);
+        }
+    }
+
+    /**
+     * Removes a previously added {@link NavigationMetricsListener}
+     *
+     * @param listener The listener to be removed
+     */
+    @UiThread
+    public void removeNavigationMetricsListener(@NonNull NavigationMetricsListener listener) {
+        ThreadUtils.ensureMainThread();
+        navigationMetricsListeners.remove(listener);
+    }
+
+    /**
+     * Adds a listener that receives {@link TransitionFrameStats} for every change performed by this Router and all of
+     * its child Routers, describing how smoothly frames were rendered while the change was running. This must be
+     * called on a root Router, as changes are always reported to the root Router's listeners. Frames are only
+     * followed while at least one listener is registered.
+     *
+     * @param listener The listener
+     */
+    @UiThread
+    public void addTransitionFrameListener(@NonNull TransitionFrameListener listener) {
+        ThreadUtils.ensureMainThread();
+
+        if (getRootRouter() != this) {
+            throw new IllegalStateException("TransitionFrameListeners must be added to a root Router.");
+        }
+        if (!transitionFrameListeners.contains(listener)) {
+            transitionFrameListeners.add(listener);
+        }
+    }
+
+    /**
+     * Removes a previously added {@link TransitionFrameListener}
+     *
+     * @param listener The listener to be removed
+     */
+    @UiThread
+    public void removeTransitionFrameListener(@NonNull TransitionFrameListener listener) {
+        ThreadUtils.ensureMainThread();
+        transitionFrameListeners.remove(listener);
+    }
+
+    /**
+     * Starts recording the most recent changes performed by this Router and all of its child Routers into a
+     * {@link NavigationFlightRecorder}, which can be dumped into crash reports. This must be called on a root Router.
+     * Enabling the recorder again replaces it with an empty one of the new capacity.
+     *
+     * @param capacity The number of changes to keep
+     */
+    @UiThread
+    public void enableFlightRecorder(int capacity) {
+        ThreadUtils.ensureMainThread();
+
+        if (getRootRouter() != this) {
+            throw new IllegalStateException("The flight recorder must be enabled on a root Router.");
+        }
+        flightRecorder = new NavigationFlightRecorder(capacity);
+    }
+
+    /**
+     * Stops recording changes and discards the {@link NavigationFlightRecorder}'s history.
+     */
+    @UiThread
+    public void disableFlightRecorder() {
+        ThreadUtils.ensureMainThread();
+        flightRecorder = null;
+    }
+
+    /**
+     * Returns the {@link NavigationFlightRecorder} recording this Router's changes, or {@code null} if it hasn't been
+     * enabled on the root Router.
+     */
+    @Nullable
+    public NavigationFlightRecorder getFlightRecorder() {
+        return getRootRouter().flightRecorder;
+    }
+
+    /**
+     * Returns a snapshot of this Router's backstack and, recursively, the child Routers of every Controller on it.
+     * Taking a snapshot doesn't save any Controller's state, so it's cheap enough to take from diagnostic hooks such
+     * as {@link Activity#dump}.
+     */
+    @UiThread
+    @NonNull
+    public RouterSnapshot getHierarchySnapshot() {
+        ThreadUtils.ensureMainThread();
+        return new RouterSnapshot(this);
+    }
+
+    /**
+     * Writes this Router's hierarchy as indented text, one line per Router and Controller. Each Controller line
+     * includes its class, instance id, tag, lifecycle flags, retain view mode, whether it holds a view, the size of the
+     * saved state it holds and its in progress change handler, if any.
+     *
+     * @param out Where to write the hierarchy to
+     * @see #getHierarchySnapshot()
+     */
+    @UiThread
+    public void dumpHierarchy(@NonNull Appendable out) {
+        getHierarchySnapshot().dump(out);
+    }
+
+    /**
+     * Sets the {@link ConductorStrictMode} policy for this Router and any child Routers that don't have their own,
+     * overriding the global one set with {@link Conductor#setStrictMode}.
+     *
+     * @param strictMode The policy, or {@code null} to use the parent Router's or global one
+     */
+    public void setStrictMode(@Nullable ConductorStrictMode strictMode) {
+        this.strictMode = strictMode;
+    }
+
+    /**
+     * Returns the {@link ConductorStrictMode} policy set on this Router, if any. See {@link #setStrictMode}.
+     */
+    @Nullable
+    public ConductorStrictMode getStrictMode() {
+        return strictMode;
+    }
+
+    /**
+     * Returns the policy that applies to this Router: its own, the closest parent Router's or the global one.
+     */
+    @Nullable
+    ConductorStrictMode getEffectiveStrictMode() {
+        return strictMode != null ? strictMode : Conductor.getStrictMode();
+    }
+
     /**
      * Attaches this Router's existing backstack to its container if one exists.
      */
@@ -626,6 +1143,15 @@ public abstract class Router {
     public void rebindIfNeeded() {
         ThreadUtils.ensureMainThread();
 
+        final int previousOperation = beginOperation(NavigationFlightRecorder.OPERATION_REBIND);
+        try {
+            performRebind();
+        } finally {
+            currentOperation = previousOperation;
+        }
+    }
+
+    private void performRebind() {
         // Not directly using the iterator in order to prevent ConcurrentModificationExceptions if controllers pop
         // themselves on re-attach.
         for (RouterTransaction transaction : getTransactions()) {
@@ -647,40 +1173,40 @@ public abstract class Router {
     public final void onActivityStarted(@NonNull Activity activity) {
         isActivityStopped = false;
 
-        for (RouterTransaction transaction : backstack) {
+        for (RouterTransaction transaction : backstack.snapshot()) {
             transaction.controller().activityStarted(activity);
 
-            for (Router childRouter : transaction.controller().getChildRouters()) {
+            for (Router childRouter : transaction.controller().getChildRouterSnapshot()) {
                 childRouter.onActivityStarted(activity);
             }
         }
     }
 
     public final void onActivityResumed(@NonNull Activity activity) {
-        for (RouterTransaction transaction : backstack) {
+        for (RouterTransaction transaction : backstack.snapshot()) {
             transaction.controller().activityResumed(activity);
 
-            for (Router childRouter : transaction.controller().getChildRouters()) {
+            for (Router childRouter : transaction.controller().getChildRouterSnapshot()) {
                 childRouter.onActivityResumed(activity);
             }
         }
     }
 
     public final void onActivityPaused(@NonNull Activity activity) {
-        for (RouterTransaction transaction : backstack) {
+        for (RouterTransaction transaction : backstack.snapshot()) {
             transaction.controller().activityPaused(activity);
 
-            for (Router childRouter : transaction.controller().getChildRouters()) {
+            for (Router childRouter : transaction.controller().getChildRouterSnapshot()) {
                 childRouter.onActivityPaused(activity);
             }
         }
     }
 
     public final void onActivityStopped(@NonNull Activity activity) {
-        for (RouterTransaction transaction : backstack) {
+        for (RouterTransaction transaction : backstack.snapshot()) {
             transaction.controller().activityStopped(activity);
 
-            for (Router childRouter : transaction.controller().getChildRouters()) {
+            for (Router childRouter : transaction.controller().getChildRouterSnapshot()) {
                 childRouter.onActivityStopped(activity);
             }
         }
@@ -688,14 +1214,50 @@ public abstract class Router {
         isActivityStopped = true;
     }
 
+    /**
+     * Forwards memory pressure to every Controller in this Router and its child Routers. Activity-hosted Routers
+     * receive this automatically. Under pressure, prepared and recycled views, views retained by this Router's
+     * {@link RetainedViewPolicy} and detached views retained with {@link Controller.RetainViewMode#RETAIN_DETACH}
+     * are released, and Controllers are hibernated if this Router's {@link HibernationPolicy} allows it. Covered
+     * Controllers also stop being drawn from snapshots until the next change completes while the host is visible.
+     *
+     * @param level The memory trim level, as passed to {@link ComponentCallbacks2#onTrimMemory(int)}
+     */
+    public final void onTrimMemory(int level) {
+        if (level >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW && level != ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN) {
+            discardPreparedViews();
+            retainedViewCache.clear();
+            recycledViewPool.clear();
+
+            // Releases the snapshots and unfreezes the Controllers they stood in for, which are drawn live until
+            // memory pressure is over.
+            snapshotsSuppressed = true;
+            updateCoveredLayers();
+        }
+
+        for (RouterTransaction transaction : backstack.snapshot()) {
+            Controller controller = transaction.controller();
+            controller.trimMemory(level);
+
+            for (Router childRouter : controller.getChildRouterSnapshot()) {
+                childRouter.onTrimMemory(level);
+            }
+        }
+
+        if (hibernationPolicy != null && hibernationPolicy.hibernateOnTrimMemory()
+                && level >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_CRITICAL && level != ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN) {
+            hibernateControllersDeeperThan(1);
+        }
+    }
+
     public void onActivityDestroyed(@NonNull Activity activity, boolean isConfigurationChange) {
         prepareForContainerRemoval();
         changeListeners.clear();
 
-        for (RouterTransaction transaction : backstack) {
+        for (RouterTransaction transaction : backstack.snapshot()) {
             transaction.controller().activityDestroyed(activity);
 
-            for (Router childRouter : transaction.controller().getChildRouters()) {
+            for (Router childRouter : transaction.controller().getChildRouterSnapshot()) {
                 childRouter.onActivityDestroyed(activity, isConfigurationChange);
             }
         }
@@ -704,18 +1266,20 @@ public abstract class Router {
             Controller controller = destroyingControllers.get(index);
             controller.activityDestroyed(activity);
 
-            for (Router childRouter : controller.getChildRouters()) {
+            for (Router childRouter : controller.getChildRouterSnapshot()) {
                 childRouter.onActivityDestroyed(activity, isConfigurationChange);
             }
         }
 
+        // Views released above still reference the destroyed Activity.
+        recycledViewPool.clear();
         container = null;
     }
 
     public void prepareForHostDetach() {
         pendingControllerChanges.clear(); // rely on backstack based restoration in rebindIfNeeded
 
-        for (RouterTransaction transaction : backstack) {
+        for (RouterTransaction transaction : backstack.snapshot()) {
             if (ControllerChangeHandler.completeHandlerImmediately(transaction.controller().getInstanceId())) {
                 transaction.controller().setNeedsAttach(true);
             }
@@ -725,6 +1289,15 @@ public abstract class Router {
     }
 
     public void saveInstanceState(@NonNull Bundle outState) {
+        final boolean traced = Tracing.beginSection("Router.saveInstanceState", null);
+        try {
+            performSaveInstanceState(outState);
+        } finally {
+            Tracing.endSection(traced);
+        }
+    }
+
+    private void performSaveInstanceState(@NonNull Bundle outState) {
         Bundle backstackState = new Bundle();
         backstack.saveInstanceState(backstackState);
 
@@ -733,7 +1306,28 @@ public abstract class Router {
         outState.putParcelable(KEY_BACKSTACK, backstackState);
     }
 
+    /**
+     * Decodes a Bundle created by {@link #saveInstanceState(Bundle)} ahead of {@link #restoreInstanceState(Bundle)}.
+     * This may be called from a background thread, as long as nothing else is accessing the Bundle at the same time.
+     */
+    @RestrictTo(RestrictTo.Scope.LIBRARY)
+    public static void prefetchInstanceState(@NonNull Bundle savedInstanceState) {
+        Bundle backstackBundle = savedInstanceState.getParcelable(KEY_BACKSTACK);
+        if (backstackBundle != null) {
+            Backstack.prefetchInstanceState(backstackBundle);
+        }
+    }
+
     public void restoreInstanceState(@NonNull Bundle savedInstanceState) {
+        final boolean traced = Tracing.beginSection("Router.restoreInstanceState", null);
+        try {
+            performRestoreInstanceState(savedInstanceState);
+        } finally {
+            Tracing.endSection(traced);
+        }
+    }
+
+    private void performRestoreInstanceState(@NonNull Bundle savedInstanceState) {
         Bundle backstackBundle = savedInstanceState.getParcelable(KEY_BACKSTACK);
         //noinspection ConstantConditions
         popRootControllerMode = PopRootControllerMode.values()[savedInstanceState.getInt(KEY_POP_ROOT_CONTROLLER_MODE)];
@@ -742,37 +1336,43 @@ public abstract class Router {
 
         Iterator<RouterTransaction> backstackIterator = backstack.reverseIterator();
         while (backstackIterator.hasNext()) {
-            setRouterOnController(backstackIterator.next().controller());
+            Controller controller = backstackIterator.next().controller();
+            final boolean traced = Tracing.beginSection("Router.restoreController", controller);
+            try {
+                setRouterOnController(controller);
+            } finally {
+                Tracing.endSection(traced);
+            }
         }
     }
 
     public final void onCreateOptionsMenu(@NonNull Menu menu, @NonNull MenuInflater inflater) {
-        for (RouterTransaction transaction : backstack) {
+        for (RouterTransaction transaction : backstack.snapshot()) {
             transaction.controller().createOptionsMenu(menu, inflater);
 
-            for (Router childRouter : transaction.controller().getChildRouters()) {
+            for (Router childRouter : transaction.controller().getChildRouterSnapshot()) {
                 childRouter.onCreateOptionsMenu(menu, inflater);
             }
         }
     }
 
     public final void onPrepareOptionsMenu(@NonNull Menu menu) {
-        for (RouterTransaction transaction : backstack) {
+        for (RouterTransaction transaction : backstack.snapshot()) {
             transaction.controller().prepareOptionsMenu(menu);
 
-            for (Router childRouter : transaction.controller().getChildRouters()) {
+            for (Router childRouter : transaction.controller().getChildRouterSnapshot()) {
                 childRouter.onPrepareOptionsMenu(menu);
             }
         }
     }
 
     public final boolean onOptionsItemSelected(@NonNull MenuItem item) {
-        for (RouterTransaction transaction : backstack) {
+        for (RouterTransaction transaction : backstack.snapshot()) {
             if (transaction.controller().optionsItemSelected(item)) {
                 return true;
             }
 
-            for (Router childRouter : transaction.controller().getChildRouters()) {
+            for (Router childRouter : transaction.controller().getChildRouterSnapshot()) {
                 if (childRouter.onOptionsItemSelected(item)) {
                     return true;
                 }
@@ -781,6 +1381,40 @@ public abstract class Router {
         return false;
     }
 
+    private boolean hibernate(@NonNull RouterTransaction transaction) {
+        Controller controller = transaction.controller();
+        if (!controller.canHibernate() || destroyingControllers.contains(controller)) {
+            return false;
+        }
+
+        for (ChangeTransaction pendingTransaction : pendingControllerChanges) {
+            if (pendingTransaction.to == controller || pendingTransaction.from == controller) {
+                return false;
+            }
+        }
+
+        // Collected first, as hibernating destroys the child Routers.
+        Set<String> childInstanceIds = new HashSet<>();
+        controller.collectChildInstanceIds(childInstanceIds);
+
+        Bundle hibernatedState = controller.hibernate();
+        transaction.replaceController(HibernatedController.create(controller, hibernatedState, childInstanceIds));
+        setRouterOnController(transaction.controller());
+        return true;
+    }
+
+    @NonNull
+    private Controller rehydrate(@NonNull RouterTransaction transaction) {
+        Controller controller = transaction.controller();
+        if (controller.isHibernated()) {
+            controller = ((HibernatedController) controller).rehydrate();
+            transaction.replaceController(controller);
+            setRouterOnController(controller);
+            updateBackPressedCallbacks();
+        }
+        return controller;
+    }
+
     private void popToTransaction(@NonNull RouterTransaction transaction, @Nullable ControllerChangeHandler changeHandler) {
         if (backstack.getSize() > 0) {
             RouterTransaction topTransaction = backstack.peek();
@@ -816,6 +1450,8 @@ public abstract class Router {
 
     void prepareForContainerRemoval() {
         containerFullyAttached = false;
+        discardPreparedViews();
+        recycledViewPool.clear();
 
         if (container != null) {
             container.setOnHierarchyChangeListener(null);
@@ -823,13 +1459,13 @@ public abstract class Router {
     }
 
     void onContextAvailable() {
-        for (RouterTransaction transaction : backstack) {
+        for (RouterTransaction transaction : backstack.snapshot()) {
             transaction.controller().onContextAvailable();
         }
     }
 
     void onContextUnavailable(@NonNull Context context) {
-        for (RouterTransaction transaction : backstack) {
+        for (RouterTransaction transaction : backstack.snapshot()) {
             transaction.controller().onContextUnavailable(context);
         }
         for (Controller controller : destroyingControllers) {
@@ -863,7 +1499,7 @@ public abstract class Router {
 
     @Nullable
     public final Boolean handleRequestedPermission(@NonNull String permission) {
-        for (RouterTransaction transaction : backstack) {
+        for (RouterTransaction transaction : backstack.snapshot()) {
             if (transaction.controller().didRequestPermission(permission)) {
                 return transaction.controller().shouldShowRequestPermissionRationale(permission);
             }
@@ -890,7 +1526,7 @@ public abstract class Router {
     }
 
     private void performControllerChange(@Nullable RouterTransaction to, @Nullable RouterTransaction from, boolean isPush, @Nullable ControllerChangeHandler changeHandler) {
-        Controller toController = to != null ? to.controller() : null;
+        Controller toController = to != null ? rehydrate(to) : null;
         Controller fromController = from != null ? from.controller() : null;
         boolean forceDetachDestroy = false;
 
@@ -924,7 +1560,15 @@ public abstract class Router {
             throw new IllegalStateException("Trying to push a controller that has already been destroyed. (" + to.getClass().getSimpleName() + ")");
         }
 
-        final ChangeTransaction transaction = new ChangeTransaction(to, from, isPush, container, changeHandler, new ArrayList<>(changeListeners));
+        final List<ControllerChangeListener> listeners = new ArrayList<>(changeListeners);
+        if (hibernationPolicy != null) {
+            listeners.add(hibernationChangeListener);
+        }
+        if (container instanceof ChangeHandlerFrameLayout) {
+            listeners.add(cullingChangeListener);
+        }
+
+        final ChangeTransaction transaction = new ChangeTransaction(to, from, isPush, container, changeHandler, listeners);
 
         if (pendingControllerChanges.size() > 0) {
             // If we already have changes queued up (awaiting full container attach), queue this one up as well so they don't happen
@@ -932,6 +1576,7 @@ public abstract class Router {
             if (to != null) {
                 to.setNeedsAttach(true);
             }
+            recordChange(transaction, true);
             pendingControllerChanges.add(transaction);
         } else if (from != null && (changeHandler == null || changeHandler.getRemovesFromViewOnPush()) && !containerFullyAttached) {
             // If the change handler will remove the from view, we have to make sure the container is fully attached first so we avoid NPEs
@@ -940,16 +1585,46 @@ public abstract class Router {
             if (to != null) {
                 to.setNeedsAttach(true);
             }
+            recordChange(transaction, true);
             pendingControllerChanges.add(transaction);
             if (container != null) {
                 container.post(this::performPendingControllerChanges);
             }
         } else {
+            recordChange(transaction, false);
             ControllerChangeHandler.executeChange(transaction);
         }
     }
 
+    private void recordChange(@NonNull ChangeTransaction transaction, boolean queued) {
+        final NavigationFlightRecorder recorder = getRootRouter().flightRecorder;
+        if (recorder != null) {
+            transaction.flightRecorder = recorder;
+            transaction.flightRecordId = recorder.record(currentOperation, transaction.to, transaction.from,
+                    transaction.changeHandler, transaction.isPush, queued, transaction.requestedAtNanos);
+        }
+    }
+
+    // Marks the changes performed until the returned operation is restored as caused by the passed one, unless they
+    // are already part of an outer operation.
+    private int beginOperation(int operation) {
+        final int previousOperation = currentOperation;
+        if (previousOperation == NavigationFlightRecorder.OPERATION_OTHER) {
+            currentOperation = operation;
+        }
+        return previousOperation;
+    }
+
     void performPendingControllerChanges() {
+        final boolean traced = Tracing.beginSection("Router.performPendingControllerChanges", null);
+        try {
+            executePendingControllerChanges();
+        } finally {
+            Tracing.endSection(traced);
+        }
+    }
+
+    private void executePendingControllerChanges() {
         // We're intentionally using dynamic size checking (list.size()) here so we can account for changes
         // that occur during this loop (ex: if a controller is popped from within onAttach)
         for (int i = 0; i < pendingControllerChanges.size(); i++) {
@@ -1011,17 +1686,11 @@ public abstract class Router {
     // Swap around transaction indices to ensure they don't get thrown out of order by the
     // developer rearranging the backstack at runtime.
     private void ensureOrderedTransactionIndices(List<RouterTransaction> backstack) {
-        List<Integer> indices = new ArrayList<>(backstack.size());
         for (RouterTransaction transaction : backstack) {
             transaction.ensureValidIndex(getTransactionIndexer());
-            indices.add(transaction.getTransactionIndex());
         }
 
-        Collections.sort(indices);
-
-        for (int i = 0; i < backstack.size(); i++) {
-            backstack.get(i).setTransactionIndex(indices.get(i));
-        }
+        TransactionIndices.reorder(backstack, TRANSACTION_INDICES);
     }
 
     private void ensureNoDuplicateControllers(List<RouterTransaction> backstack) {
@@ -1041,46 +1710,14 @@ public abstract class Router {
                 list.add(controller.getView());
             }
 
-            for (Router child : controller.getChildRouters()) {
+            for (Router child : controller.getChildRouterSnapshot()) {
                 addRouterViewsToList(child, list);
             }
         }
     }
 
     private List<RouterTransaction> getVisibleTransactions(@NonNull Iterator<RouterTransaction> backstackIterator, boolean onlyTop) {
-        boolean visible = true;
-
-        List<RouterTransaction> transactions = new ArrayList<>();
-        while (backstackIterator.hasNext()) {
-            RouterTransaction transaction = backstackIterator.next();
-
-            if (visible) {
-                transactions.add(transaction);
-            }
-
-            visible = transaction.pushChangeHandler() != null && !transaction.pushChangeHandler().getRemovesFromViewOnPush();
-
-            if (onlyTop && !visible) {
-                break;
-            }
-        }
-
-        Collections.reverse(transactions);
-        return transactions;
-    }
-
-    private boolean backstacksAreEqual(List<RouterTransaction> lhs, List<RouterTransaction> rhs) {
-        if (lhs.size() != rhs.size()) {
-            return false;
-        }
-
-        for (int i = 0; i < rhs.size(); i++) {
-            if (rhs.get(i).controller() != lhs.get(i).controller()) {
-                return false;
-            }
-        }
-
-        return true;
+        return Visibility.visibleEntries(backstackIterator, onlyTop, REVEALS_BELOW);
     }
 
     void setRouterOnController(@NonNull Controller controller) {
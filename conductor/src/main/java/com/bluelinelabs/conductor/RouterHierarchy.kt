@@ -0,0 +1,163 @@
+package com.bluelinelabs.conductor
+
+import com.bluelinelabs.conductor.Controller.RetainViewMode
+import com.bluelinelabs.conductor.internal.parceledSize
+
+/**
+ * A snapshot of a [Router]'s backstack, including the child Routers of every [Controller] on it. Snapshots don't
+ * hold on to the Router or its Controllers, so they can be kept or passed around freely.
+ *
+ * @see Router.getHierarchySnapshot
+ */
+class RouterSnapshot internal constructor(router: Router) {
+
+  /** The fully qualified class name of the Router. */
+  val routerClassName: String = router.javaClass.name
+
+  /** The id of the Router's container view, or 0 if it has none. */
+  val containerId: Int = router.containerId
+
+  /** Whether the Router currently has a container view to show its Controllers in. */
+  val hasContainer: Boolean = router.container != null
+
+  /** The Controllers on the Router's backstack, ordered from the root to the top. */
+  val controllers: List<ControllerSnapshot> = router.backstack.snapshot().let { transactions ->
+    List(transactions.size) { ControllerSnapshot(transactions[transactions.size - 1 - it]) }
+  }
+
+  /**
+   * Writes this snapshot as indented text, one line per Router and Controller, with child Routers below the
+   * Controller hosting them.
+   */
+  fun dump(out: Appendable) {
+    dump(out, 0)
+  }
+
+  private fun dump(out: Appendable, depth: Int) {
+    indent(out, depth)
+    out.append(routerClassName.substringAfterLast('.'))
+      .append(" container=0x").append(Integer.toHexString(containerId))
+    if (!hasContainer) {
+      out.append(" detached")
+    }
+    out.append(" backstack=").append(controllers.size.toString()).append('\n')
+
+    for (controller in controllers) {
+      controller.dump(out, depth + 1)
+      for (childRouter in controller.childRouters) {
+        childRouter.dump(out, depth + 2)
+      }
+    }
+  }
+
+  override fun toString(): String {
+    return StringBuilder().also { dump(it) }.toString()
+  }
+}
+
+/**
+ * A snapshot of a single [Controller] on a Router's backstack.
+ */
+class ControllerSnapshot internal constructor(transaction: RouterTransaction) {
+
+  /**
+   * The fully qualified class name of the Controller. Hibernated Controllers report the class they'll be recreated
+   * as.
+   */
+  val className: String
+
+  /** The Controller's instance id. */
+  val instanceId: String
+
+  /** The tag of the Controller's transaction, if any. */
+  val tag: String? = transaction.tag()
+
+  /** Whether the Controller is attached to its host view. */
+  val isAttached: Boolean
+
+  /** Whether the Controller is waiting to be attached once its Router can perform changes. */
+  val needsAttach: Boolean
+
+  /** Whether the Controller is being, or has been, destroyed. */
+  val isDestroyed: Boolean
+
+  /** Whether the Controller is hibernated, in which case only its saved state is held. */
+  val isHibernated: Boolean
+
+  /** The Controller's [RetainViewMode]. */
+  val retainViewMode: RetainViewMode
+
+  /** Whether the Controller currently holds a view. */
+  val hasView: Boolean
+
+  /**
+   * The parceled size in bytes of the saved state the Controller currently holds, such as its view state while its
+   * view is detached, instance state waiting to be restored, or its whole state while hibernated. State that would
+   * only be created by saving the Controller isn't counted.
+   */
+  val savedStateBytes: Int
+
+  /** The class name of the change handler currently changing to the Controller, or `null` if there is none. */
+  val inProgressChangeHandler: String?
+
+  /** Whether the in progress change to the Controller is a push. Only meaningful with an [inProgressChangeHandler]. */
+  val isInProgressChangePush: Boolean
+
+  /** The Controller's child Routers. */
+  val childRouters: List<RouterSnapshot>
+
+  init {
+    val controller = transaction.controller
+    className = controller.controllerClassName
+    instanceId = controller.instanceId
+    isAttached = controller.isAttached
+    needsAttach = controller.needsAttach
+    isDestroyed = controller.isBeingDestroyed || controller.isDestroyed
+    isHibernated = controller.isHibernated
+    retainViewMode = controller.retainViewMode
+    hasView = controller.view != null
+
+    savedStateBytes = if (isHibernated) {
+      parceledSize(controller.saveInstanceState())
+    } else {
+      parceledSize(controller.viewState) + parceledSize(controller.savedInstanceStateToRestore)
+    }
+
+    val changeHandlerData = ControllerChangeHandler.inProgressChangeHandlers[instanceId]
+    inProgressChangeHandler = changeHandlerData?.changeHandler?.javaClass?.name
+    isInProgressChangePush = changeHandlerData?.isPush ?: false
+
+    val childRouterSnapshot = controller.childRouterSnapshot
+    childRouters = List(childRouterSnapshot.size) { RouterSnapshot(childRouterSnapshot[it]) }
+  }
+
+  internal fun dump(out: Appendable, depth: Int) {
+    indent(out, depth)
+    out.append(className.substringAfterLast('.')).append(" id=").append(instanceId)
+    tag?.let { out.append(" tag=").append(it) }
+    out.append(" attached=").append(isAttached.toString())
+    if (needsAttach) {
+      out.append(" needsAttach")
+    }
+    if (isDestroyed) {
+      out.append(" destroyed")
+    }
+    if (isHibernated) {
+      out.append(" hibernated")
+    }
+    out.append(" retain=").append(retainViewMode.name)
+      .append(" view=").append(if (hasView) "yes" else "no")
+      .append(" state=").append(savedStateBytes.toString()).append('B')
+    inProgressChangeHandler?.let {
+      out.append(" changing=").append(it.substringAfterLast('.'))
+        .append(if (isInProgressChangePush) " (push)" else " (pop)")
+    }
+    out.append('\n')
+  }
+}
+
+private fun indent(out: Appendable, depth: Int) {
+  for (i in 0 until depth) {
+    out.append("  ")
+  }
+}
@@ -12,16 +12,17 @@ private const val KEY_POP_TRANSITION = "RouterTransaction.popControllerChangeHan
 private const val KEY_TAG = "RouterTransaction.tag"
 private const val KEY_INDEX = "RouterTransaction.transactionIndex"
 private const val KEY_ATTACHED_TO_ROUTER = "RouterTransaction.attachedToRouter"
+private const val KEY_VIEW_STATE_POLICY = "RouterTransaction.viewStatePolicy"
 
 /**
  * Metadata used for adding [Controller]s to a [Router].
  */
 class RouterTransaction private constructor(
-  @get:JvmName("controller")
-  val controller: Controller,
+  controller: Controller,
   private var tag: String? = null,
   private var pushControllerChangeHandler: ControllerChangeHandler? = null,
   private var popControllerChangeHandler: ControllerChangeHandler? = null,
+  private var viewStatePolicy: ViewStatePolicy = ViewStatePolicy.FULL,
   private var attachedToRouter: Boolean = false,
   @get:RestrictTo(LIBRARY)
   @set:RestrictTo(LIBRARY)
@@ -42,10 +43,36 @@ class RouterTransaction private constructor(
       )
     ),
     tag = bundle.getString(KEY_TAG),
+    viewStatePolicy = ViewStatePolicy.fromBundle(bundle.getBundle(KEY_VIEW_STATE_POLICY)),
     transactionIndex = bundle.getInt(KEY_INDEX),
     attachedToRouter = bundle.getBoolean(KEY_ATTACHED_TO_ROUTER)
   )
 
+  /**
+   * The [Controller] this transaction adds. While the transaction [isHibernated], this is a placeholder that only
+   * holds the real Controller's saved state.
+   */
+  @get:JvmName("controller")
+  var controller: Controller = controller
+    private set
+
+  /**
+   * Returns whether this transaction's [Controller] has been hibernated by its [Router]'s [HibernationPolicy].
+   * Hibernated Controllers are recreated when they're next shown or looked up through the Router.
+   */
+  val isHibernated: Boolean
+    get() = controller.isHibernated
+
+  init {
+    controller.setViewStatePolicy(viewStatePolicy)
+  }
+
+  @RestrictTo(LIBRARY)
+  fun replaceController(controller: Controller) {
+    controller.setViewStatePolicy(viewStatePolicy)
+    this.controller = controller
+  }
+
   fun onAttachedToRouter() {
     attachedToRouter = true
   }
@@ -87,6 +114,21 @@ class RouterTransaction private constructor(
     }
   }
 
+  fun viewStatePolicy(): ViewStatePolicy = viewStatePolicy
+
+  /**
+   * Sets the [ViewStatePolicy] used when saving the [Controller]'s view state.
+   */
+  fun viewStatePolicy(policy: ViewStatePolicy): RouterTransaction {
+    return if (!attachedToRouter) {
+      viewStatePolicy = policy
+      controller.setViewStatePolicy(policy)
+      this
+    } else {
+      throw RuntimeException("${javaClass.simpleName}s can not be modified after being added to a Router.")
+    }
+  }
+
   fun ensureValidIndex(indexer: TransactionIndexer) {
     if (transactionIndex == INVALID_INDEX) {
       transactionIndex = indexer.nextIndex()
@@ -101,6 +143,9 @@ class RouterTransaction private constructor(
     pushControllerChangeHandler?.let { putBundle(KEY_PUSH_TRANSITION, it.toBundle()) }
     popControllerChangeHandler?.let { putBundle(KEY_POP_TRANSITION, it.toBundle()) }
     putString(KEY_TAG, tag)
+    if (viewStatePolicy != ViewStatePolicy.FULL) {
+      putBundle(KEY_VIEW_STATE_POLICY, viewStatePolicy.toBundle())
+    }
     putInt(KEY_INDEX, transactionIndex)
     putBoolean(KEY_ATTACHED_TO_ROUTER, attachedToRouter)
   }
@@ -109,6 +154,12 @@ class RouterTransaction private constructor(
 
     @JvmStatic
     fun with(controller: Controller): RouterTransaction = RouterTransaction(controller)
+
+    internal fun prefetchInstanceState(bundle: Bundle) {
+      bundle.getBundle(KEY_VIEW_CONTROLLER_BUNDLE)?.let { Controller.prefetchInstanceState(it) }
+      ControllerChangeHandler.prefetchInstanceState(bundle.getBundle(KEY_PUSH_TRANSITION))
+      ControllerChangeHandler.prefetchInstanceState(bundle.getBundle(KEY_POP_TRANSITION))
+    }
   }
 }
 
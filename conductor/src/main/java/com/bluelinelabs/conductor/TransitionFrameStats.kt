@@ -0,0 +1,159 @@
+package com.bluelinelabs.conductor
+
+import android.content.Context
+import android.os.Build
+import android.view.Choreographer
+import android.view.ViewGroup
+import android.view.WindowManager
+
+/**
+ * Receives frame statistics for every change performed by a root [Router] and all of its child Routers.
+ *
+ * @see Router.addTransitionFrameListener
+ */
+fun interface TransitionFrameListener {
+  /**
+   * Called once a change has completed. The passed [TransitionFrameStats] instance is reused for later changes, so
+   * any values needed after this call returns must be copied out of it.
+   */
+  fun onTransitionFrames(stats: TransitionFrameStats)
+}
+
+/**
+ * Frame timings collected while a single [Controller] change was running, from the start of the change until its
+ * change handler reported that it was complete. Frame durations are the time between consecutive frames as
+ * reported by [Choreographer], so a frame that took longer than the display's refresh interval shows up as
+ * dropped frames.
+ */
+class TransitionFrameStats internal constructor() {
+
+  /** The class of the Controller being changed to, or `null` if there was none. */
+  var toClass: Class<out Controller>? = null
+    private set
+
+  /** The class of the Controller being changed from, or `null` if there was none. */
+  var fromClass: Class<out Controller>? = null
+    private set
+
+  /** The class of the [ControllerChangeHandler] performing the change. */
+  var handlerClass: Class<out ControllerChangeHandler>? = null
+    private set
+
+  /** Whether the change was a push. */
+  var isPush = false
+    private set
+
+  /** The number of frames rendered during the change. */
+  var frameCount = 0
+    private set
+
+  /** The number of refresh intervals that passed without a new frame while the change was running. */
+  var droppedFrames = 0
+    private set
+
+  /** The duration of the longest frame, in nanoseconds. */
+  var worstFrameNanos = 0L
+    private set
+
+  /** The display's refresh interval during the change, in nanoseconds. */
+  var frameIntervalNanos = 0L
+    private set
+
+  override fun toString(): String {
+    return "TransitionFrameStats(to=${toClass?.simpleName}, from=${fromClass?.simpleName}, " +
+      "handler=${handlerClass?.simpleName}, isPush=$isPush, frameCount=$frameCount, droppedFrames=$droppedFrames, " +
+      "worstFrameNanos=$worstFrameNanos, frameIntervalNanos=$frameIntervalNanos)"
+  }
+
+  /**
+   * Follows the frames of one change using [Choreographer] frame callbacks. Recorders are pooled, so that
+   * measuring changes doesn't allocate once the pool has warmed up. Only used on the main thread.
+   */
+  internal class Recorder private constructor() : Choreographer.FrameCallback {
+
+    private val stats = TransitionFrameStats()
+    private var router: Router? = null
+    private var lastFrameTimeNanos = -1L
+
+    override fun doFrame(frameTimeNanos: Long) {
+      if (lastFrameTimeNanos >= 0) {
+        val frameNanos = frameTimeNanos - lastFrameTimeNanos
+        stats.frameCount++
+        stats.worstFrameNanos = maxOf(stats.worstFrameNanos, frameNanos)
+
+        // Rounded, as frame times jitter around the refresh interval.
+        val intervals = (frameNanos + stats.frameIntervalNanos / 2) / stats.frameIntervalNanos
+        if (intervals > 1) {
+          stats.droppedFrames += (intervals - 1).toInt()
+        }
+      }
+
+      lastFrameTimeNanos = frameTimeNanos
+      Choreographer.getInstance().postFrameCallback(this)
+    }
+
+    fun onChangeCompleted() {
+      Choreographer.getInstance().removeFrameCallback(this)
+
+      val listeners = router!!.transitionFrameListeners
+      for (i in listeners.indices) {
+        listeners[i].onTransitionFrames(stats)
+      }
+
+      router = null
+      lastFrameTimeNanos = -1
+      stats.toClass = null
+      stats.fromClass = null
+      stats.handlerClass = null
+      stats.frameCount = 0
+      stats.droppedFrames = 0
+      stats.worstFrameNanos = 0
+      if (pool.size < MAX_POOL_SIZE) {
+        pool.add(this)
+      }
+    }
+
+    companion object {
+      private const val MAX_POOL_SIZE = 4
+      private const val DEFAULT_REFRESH_RATE = 60f
+      private val pool = ArrayList<Recorder>(MAX_POOL_SIZE)
+
+      /**
+       * Starts following frames for the passed change, or returns null if the Router performing it has no
+       * frame listeners.
+       */
+      fun start(
+        to: Controller?,
+        from: Controller?,
+        isPush: Boolean,
+        handler: ControllerChangeHandler,
+        container: ViewGroup,
+      ): Recorder? {
+        val router = (to ?: from)?.router?.rootRouter ?: return null
+        if (router.transitionFrameListeners.isEmpty()) {
+          return null
+        }
+
+        val recorder = if (pool.isEmpty()) Recorder() else pool.removeAt(pool.size - 1)
+        recorder.router = router
+        recorder.stats.toClass = to?.javaClass
+        recorder.stats.fromClass = from?.javaClass
+        recorder.stats.handlerClass = handler.javaClass
+        recorder.stats.isPush = isPush
+        recorder.stats.frameIntervalNanos = (1_000_000_000 / refreshRate(container)).toLong()
+        Choreographer.getInstance().postFrameCallback(recorder)
+        return recorder
+      }
+
+      private fun refreshRate(container: ViewGroup): Float {
+        val display = if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR1) {
+          container.display
+        } else {
+          (container.context.getSystemService(Context.WINDOW_SERVICE) as? WindowManager)?.defaultDisplay
+        }
+        val refreshRate = display?.refreshRate ?: 0f
+        return if (refreshRate >= 1f) refreshRate else DEFAULT_REFRESH_RATE
+      }
+    }
+  }
+}
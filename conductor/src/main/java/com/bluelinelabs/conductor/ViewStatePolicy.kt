@@ -0,0 +1,92 @@
+package com.bluelinelabs.conductor
+
+import android.os.Bundle
+import androidx.annotation.IdRes
+
+private const val KEY_MODE = "ViewStatePolicy.mode"
+private const val KEY_VIEW_IDS = "ViewStatePolicy.viewIds"
+
+/**
+ * Determines how much of a [Controller]'s view hierarchy is saved when its view state is saved. Saving
+ * the full hierarchy is always safe, but can be expensive for screens with large RecyclerViews or many
+ * EditTexts. Policies are set on the [RouterTransaction] that adds the Controller to a [Router].
+ */
+class ViewStatePolicy private constructor(
+  @get:JvmName("mode")
+  val mode: Mode,
+  private val viewIds: IntArray
+) {
+
+  enum class Mode {
+    /** The full view hierarchy is saved, along with anything saved in [Controller.onSaveViewState]. */
+    FULL,
+
+    /** Only the hierarchies of the allowed view IDs are saved, along with anything saved in [Controller.onSaveViewState]. */
+    ALLOWLIST,
+
+    /** Only the state saved in [Controller.onSaveViewState] is kept. */
+    CUSTOM_ONLY,
+
+    /**
+     * The full view hierarchy is saved when the view is released. While the view is still being held by its
+     * Controller (ex: while retained with [Controller.RetainViewMode.RETAIN_DETACH]), saving the Controller's
+     * instance state skips the hierarchy and only keeps the state saved in [Controller.onSaveViewState].
+     *
+     * This trades the hierarchy's state for cheaper instance state saves: if the process dies while the view is
+     * held, things like scroll positions and text entered into views are lost, and only the custom view state is
+     * restored. Use this for screens whose hierarchy state is cheap to lose or is already kept elsewhere.
+     */
+    SKIP_WHILE_RETAINED
+  }
+
+  /**
+   * Returns the view IDs whose hierarchies will be saved. Only meaningful for [Mode.ALLOWLIST].
+   */
+  fun viewIds(): IntArray = viewIds.copyOf()
+
+  internal fun toBundle(): Bundle = Bundle().apply {
+    putInt(KEY_MODE, mode.ordinal)
+    putIntArray(KEY_VIEW_IDS, viewIds)
+  }
+
+  override fun equals(other: Any?): Boolean {
+    return other is ViewStatePolicy && other.mode == mode && other.viewIds.contentEquals(viewIds)
+  }
+
+  override fun hashCode(): Int = 31 * mode.hashCode() + viewIds.contentHashCode()
+
+  override fun toString(): String = "ViewStatePolicy(mode=$mode, viewIds=${viewIds.contentToString()})"
+
+  companion object {
+
+    @JvmField
+    val FULL = ViewStatePolicy(Mode.FULL, IntArray(0))
+
+    @JvmField
+    val CUSTOM_ONLY = ViewStatePolicy(Mode.CUSTOM_ONLY, IntArray(0))
+
+    @JvmField
+    val SKIP_WHILE_RETAINED = ViewStatePolicy(Mode.SKIP_WHILE_RETAINED, IntArray(0))
+
+    /**
+     * Creates a policy that only saves the hierarchies rooted at the passed view IDs.
+     */
+    @JvmStatic
+    fun allowlist(@IdRes vararg viewIds: Int): ViewStatePolicy {
+      return ViewStatePolicy(Mode.ALLOWLIST, viewIds.copyOf())
+    }
+
+    internal fun fromBundle(bundle: Bundle?): ViewStatePolicy {
+      if (bundle == null) {
+        return FULL
+      }
+
+      return when (Mode.values()[bundle.getInt(KEY_MODE)]) {
+        Mode.FULL -> FULL
+        Mode.ALLOWLIST -> allowlist(*(bundle.getIntArray(KEY_VIEW_IDS) ?: IntArray(0)))
+        Mode.CUSTOM_ONLY -> CUSTOM_ONLY
+        Mode.SKIP_WHILE_RETAINED -> SKIP_WHILE_RETAINED
+      }
+    }
+  }
+}
@@ -2,12 +2,17 @@ package com.bluelinelabs.conductor.changehandler
 
 import android.animation.Animator
 import android.animation.AnimatorListenerAdapter
+import android.animation.AnimatorSet
+import android.animation.ValueAnimator
+import android.os.Build
 import android.os.Bundle
 import android.view.View
 import android.view.ViewGroup
 import android.view.ViewTreeObserver
+import android.view.animation.AnimationUtils
 import com.bluelinelabs.conductor.Controller
 import com.bluelinelabs.conductor.ControllerChangeHandler
+import com.bluelinelabs.conductor.internal.AnimatorSeeker
 
 /**
  * A base [ControllerChangeHandler] that facilitates using [android.animation.Animator]s to replace Controller Views
@@ -20,11 +25,21 @@ abstract class AnimatorChangeHandler @JvmOverloads constructor(
   var animationDuration: Long = animationDuration
     private set
 
+  /**
+   * Determines whether the animated views are promoted to hardware layers for the duration of the
+   * animation. Defaults to [LayerStrategy.NONE].
+   */
+  var layerStrategy: LayerStrategy = LayerStrategy.NONE
+
   private var canceled = false
   private var needsImmediateCompletion = false
   private var completed = false
   private var animator: Animator? = null
   private var onAnimationReadyOrAbortedListener: OnAnimationReadyOrAbortedListener? = null
+  private val promotedViews = mutableListOf<View>()
+  private var animationStartTime = -1L
+  private var takeOverProgress = PROGRESS_UNKNOWN
+  private var backGesture: BackGesture? = null
 
   private var _removesFromViewOnPush = removesFromViewOnPush
   override val removesFromViewOnPush: Boolean
@@ -39,12 +54,14 @@ abstract class AnimatorChangeHandler @JvmOverloads constructor(
     super.saveToBundle(bundle)
     bundle.putLong(KEY_DURATION, animationDuration)
     bundle.putBoolean(KEY_REMOVES_FROM_ON_PUSH, removesFromViewOnPush)
+    bundle.putInt(KEY_LAYER_STRATEGY, layerStrategy.ordinal)
   }
 
   override fun restoreFromBundle(bundle: Bundle) {
     super.restoreFromBundle(bundle)
     animationDuration = bundle.getLong(KEY_DURATION)
     _removesFromViewOnPush = bundle.getBoolean(KEY_REMOVES_FROM_ON_PUSH)
+    layerStrategy = LayerStrategy.values()[bundle.getInt(KEY_LAYER_STRATEGY)]
   }
 
   override fun onAbortPush(newHandler: ControllerChangeHandler, newTop: Controller?) {
@@ -58,9 +75,71 @@ abstract class AnimatorChangeHandler @JvmOverloads constructor(
     }
   }
 
+  override val changeProgress: Float
+    get() {
+      if (completed) {
+        return 1f
+      }
+
+      backGesture?.let { return it.progress }
+
+      val animator = animator ?: return PROGRESS_UNKNOWN
+      if (animationStartTime < 0) {
+        return PROGRESS_UNKNOWN
+      }
+
+      // How far the views have moved, rather than how much time has passed, so that start delays and
+      // interpolators are accounted for.
+      animator.longestValueAnimator()?.let { return it.animatedFraction.coerceIn(0f, 1f) }
+
+      val fraction = playedFraction
+      if (fraction == PROGRESS_UNKNOWN) {
+        return PROGRESS_UNKNOWN
+      }
+      val interpolator = if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR2) animator.interpolator else null
+      return (interpolator?.getInterpolation(fraction) ?: fraction).coerceIn(0f, 1f)
+    }
+
+  /**
+   * The fraction of the animator's duration that has played since its start delay, or [PROGRESS_UNKNOWN] if it
+   * isn't running or its duration isn't known.
+   */
+  internal val playedFraction: Float
+    get() {
+      val animator = animator ?: return PROGRESS_UNKNOWN
+      if (animationStartTime < 0) {
+        return PROGRESS_UNKNOWN
+      }
+
+      val duration = animator.knownDuration()
+      if (duration <= 0) {
+        return PROGRESS_UNKNOWN
+      }
+
+      val elapsed = AnimationUtils.currentAnimationTimeMillis() - animationStartTime - animator.startDelay
+      return (elapsed.toFloat() / duration).coerceIn(0f, 1f)
+    }
+
+  /**
+   * Takes over aborted pushes performed by handlers of the same type, which are left at their current
+   * position instead of being reset. The reversing animation starts from the views' current values and its
+   * duration is scaled down to how far the push had moved them, as reported by [changeProgress], so it moves at
+   * about the same speed. Subclasses must animate from the views' current property values for this to look continuous.
+   */
+  override fun onTakeOverAbortedChange(abortedHandler: ControllerChangeHandler, progress: Float): Boolean {
+    // Only a handler of the same type is guaranteed to animate back every property the aborted one changed.
+    if (abortedHandler.javaClass != javaClass || progress < 0f || progress > 1f) {
+      return false
+    }
+
+    takeOverProgress = progress
+    return true
+  }
+
   override fun completeImmediately() {
     super.completeImmediately()
 
+    backGesture?.seeker?.end()
     needsImmediateCompletion = true
     if (animator != null) {
       animator!!.end()
@@ -91,6 +170,51 @@ abstract class AnimatorChangeHandler @JvmOverloads constructor(
    */
   protected abstract fun resetFromView(from: View)
 
+  /**
+   * Builds the pop animation up front so that it can be scrubbed by a predictive back gesture. The "to" view is
+   * added below the "from" view if it isn't in the container yet. Popping with this handler and the same views
+   * commits the gesture, finishing the animation from wherever it was left.
+   */
+  override fun handleOnBackStarted(container: ViewGroup, to: View?, from: View, swipeEdge: Int) {
+    if (backGesture != null) {
+      return
+    }
+
+    val addedTo = to != null && to.parent == null
+    if (addedTo) {
+      container.addView(to, container.indexOfChild(from))
+    }
+
+    val gesture = BackGesture(container, from, to, addedTo)
+    backGesture = gesture
+    if (to != null && to.width <= 0 && to.height <= 0) {
+      // Same as performChange, the animator can't be built until the new view has been laid out.
+      to.viewTreeObserver.addOnPreDrawListener(gesture)
+    } else {
+      gesture.prepare()
+    }
+  }
+
+  override fun handleOnBackProgressed(container: ViewGroup, to: View?, from: View, progress: Float, swipeEdge: Int) {
+    val gesture = backGesture ?: return
+    gesture.progress = progress
+    gesture.seeker?.seekTo(progress)
+  }
+
+  /**
+   * Animates the views back to where they were before the predictive back gesture started, then removes the
+   * "to" view again if it was added for the gesture.
+   */
+  override fun handleOnBackCancelled(container: ViewGroup, to: View?, from: View) {
+    val gesture = backGesture ?: return
+    val seeker = gesture.seeker
+    if (seeker == null) {
+      gesture.reset()
+    } else {
+      seeker.settleTo(0f, gesture)
+    }
+  }
+
   override fun performChange(
     container: ViewGroup,
     from: View?,
@@ -98,6 +222,12 @@ abstract class AnimatorChangeHandler @JvmOverloads constructor(
     isPush: Boolean,
     changeListener: ControllerChangeCompletedListener,
   ) {
+    val gesture = backGesture
+    if (gesture != null && !isPush && gesture.from === from && gesture.to === to) {
+      gesture.commit(changeListener)
+      return
+    }
+
     var readyToAnimate = true
     val addingToView = to != null && to.parent == null
 
@@ -134,6 +264,7 @@ abstract class AnimatorChangeHandler @JvmOverloads constructor(
     }
 
     onAnimationReadyOrAbortedListener = null
+    restoreLayers()
   }
 
   fun performAnimation(
@@ -165,12 +296,22 @@ abstract class AnimatorChangeHandler @JvmOverloads constructor(
       animator!!.duration = animationDuration
     }
 
+    if (takeOverProgress >= 0f) {
+      val duration = animator!!.knownDuration()
+      if (duration > 0) {
+        animator!!.duration = (duration * takeOverProgress).toLong()
+      }
+    }
+
     animator!!.addListener(
       object : AnimatorListenerAdapter() {
         override fun onAnimationCancel(animation: Animator) {
-          from?.let { resetFromView(it) }
-          if (to != null && to.parent === container) {
-            container.removeView(to)
+          // A handler that took over this change continues animating these views from where they are.
+          if (!isTakenOver) {
+            from?.let { resetFromView(it) }
+            if (to != null && to.parent === container) {
+              container.removeView(to)
+            }
           }
           complete(changeListener, this)
         }
@@ -188,9 +329,136 @@ abstract class AnimatorChangeHandler @JvmOverloads constructor(
         }
       },
     )
+
+    if (layerStrategy == LayerStrategy.HARDWARE) {
+      promoteToLayer(container, from)
+      promoteToLayer(container, to)
+    }
+
+    animationStartTime = AnimationUtils.currentAnimationTimeMillis()
     animator!!.start()
   }
 
+  /**
+   * Returns the ValueAnimator that finishes last, which best reflects how far the whole animation has gotten.
+   */
+  private fun Animator.longestValueAnimator(): ValueAnimator? {
+    return when (this) {
+      is ValueAnimator -> this
+      is AnimatorSet -> childAnimations.mapNotNull { it.longestValueAnimator() }.maxByOrNull { it.startDelay + it.duration }
+      else -> null
+    }
+  }
+
+  private fun Animator.knownDuration(): Long {
+    return when {
+      duration >= 0 -> duration
+      Build.VERSION.SDK_INT >= Build.VERSION_CODES.N -> totalDuration
+      else -> -1
+    }
+  }
+
+  private fun promoteToLayer(container: ViewGroup, view: View?) {
+    // Views larger than the container would need a layer bigger than anything that's visible, which costs more
+    // memory and upload time than redrawing them does.
+    if (
+      view == null ||
+      view.layerType != View.LAYER_TYPE_NONE ||
+      view.width <= 0 || view.height <= 0 ||
+      view.width.toLong() * view.height > container.width.toLong() * container.height
+    ) {
+      return
+    }
+
+    view.setLayerType(View.LAYER_TYPE_HARDWARE, null)
+    promotedViews.add(view)
+
+    if (view.windowToken != null) {
+      // Render the layer up front so the first frame of the animation doesn't have to.
+      view.buildLayer()
+    }
+  }
+
+  private fun restoreLayers() {
+    promotedViews.forEach { it.setLayerType(View.LAYER_TYPE_NONE, null) }
+    promotedViews.clear()
+  }
+
+  private inner class BackGesture(
+    val container: ViewGroup,
+    val from: View,
+    val to: View?,
+    val addedTo: Boolean,
+  ) : ViewTreeObserver.OnPreDrawListener, Runnable {
+
+    var seeker: AnimatorSeeker? = null
+    var progress = 0f
+    private var changeListener: ControllerChangeCompletedListener? = null
+
+    override fun onPreDraw(): Boolean {
+      removePreDrawListener()
+      prepare()
+      return true
+    }
+
+    fun prepare() {
+      val animator = getAnimator(container, from, to, false, addedTo)
+      if (animationDuration > 0) {
+        animator.duration = animationDuration
+      }
+
+      if (layerStrategy == LayerStrategy.HARDWARE) {
+        promoteToLayer(container, from)
+        promoteToLayer(container, to)
+      }
+
+      seeker = AnimatorSeeker(animator).also { it.seekTo(progress) }
+    }
+
+    fun commit(changeListener: ControllerChangeCompletedListener) {
+      this.changeListener = changeListener
+      removePreDrawListener()
+      if (seeker == null) {
+        // Released before the animator could be built, so there's nothing to finish.
+        run()
+      } else {
+        seeker!!.settleTo(1f, this)
+      }
+    }
+
+    fun reset() {
+      removePreDrawListener()
+      backGesture = null
+      restoreLayers()
+      resetFromView(from)
+      if (addedTo && to!!.parent === container) {
+        container.removeView(to)
+      }
+    }
+
+    // Runs once the seeker settles, either on the committed pop or back where the gesture started.
+    override fun run() {
+      val changeListener = changeListener
+      if (changeListener == null) {
+        reset()
+        return
+      }
+
+      backGesture = null
+      container.removeView(from)
+      complete(changeListener, null)
+    }
+
+    private fun removePreDrawListener() {
+      if (to != null) {
+        val observer = to.viewTreeObserver
+        if (observer.isAlive) {
+          observer.removeOnPreDrawListener(this)
+        }
+      }
+    }
+  }
+
   private inner class OnAnimationReadyOrAbortedListener constructor(
     val container: ViewGroup,
     val from: View?,
@@ -220,9 +488,22 @@ abstract class AnimatorChangeHandler @JvmOverloads constructor(
     }
   }
 
+  enum class LayerStrategy {
+    /** Views are animated as they are, redrawing their full hierarchies on every frame. */
+    NONE,
+
+    /**
+     * Views are promoted to hardware layers while animating, so that frames only need to be composited
+     * rather than redrawn. Views that already have a layer or are larger than the container are left alone.
+     * This is best suited to animations of alpha, translation, scale and rotation.
+     */
+    HARDWARE,
+  }
+
   companion object {
     private const val KEY_DURATION = "AnimatorChangeHandler.duration"
     private const val KEY_REMOVES_FROM_ON_PUSH = "AnimatorChangeHandler.removesFromViewOnPush"
+    private const val KEY_LAYER_STRATEGY = "AnimatorChangeHandler.layerStrategy"
     const val DEFAULT_ANIMATION_DURATION: Long = -1
   }
 }
@@ -38,5 +38,6 @@ class FadeChangeHandler : AnimatorChangeHandler {
     from.alpha = 1f
   }
 
-  override fun copy(): ControllerChangeHandler = FadeChangeHandler(animationDuration, removesFromViewOnPush)
+  override fun copy(): ControllerChangeHandler =
+    FadeChangeHandler(animationDuration, removesFromViewOnPush).also { it.layerStrategy = layerStrategy }
 }
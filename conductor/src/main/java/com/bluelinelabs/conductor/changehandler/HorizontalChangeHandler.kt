@@ -48,5 +48,6 @@ class HorizontalChangeHandler : AnimatorChangeHandler {
     from.translationX = 0f
   }
 
-  override fun copy(): ControllerChangeHandler = HorizontalChangeHandler(animationDuration, removesFromViewOnPush)
+  override fun copy(): ControllerChangeHandler =
+    HorizontalChangeHandler(animationDuration, removesFromViewOnPush).also { it.layerStrategy = layerStrategy }
 }
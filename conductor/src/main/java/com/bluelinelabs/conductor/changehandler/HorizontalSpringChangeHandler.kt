@@ -0,0 +1,56 @@
+package com.bluelinelabs.conductor.changehandler
+
+import android.animation.Animator
+import android.animation.AnimatorSet
+import android.animation.ObjectAnimator
+import android.view.View
+import android.view.ViewGroup
+import com.bluelinelabs.conductor.ControllerChangeHandler
+
+/**
+ * A [SpringChangeHandler] that will slide the views left or right, depending on if it's a push or pop.
+ */
+class HorizontalSpringChangeHandler @JvmOverloads constructor(
+  stiffness: Float = SpringChangeHandler.STIFFNESS_MEDIUM,
+  dampingRatio: Float = SpringChangeHandler.DAMPING_RATIO_NO_BOUNCY,
+  removesFromViewOnPush: Boolean = true,
+) : SpringChangeHandler(stiffness, dampingRatio, removesFromViewOnPush) {
+
+  override fun getSpringAnimator(
+    container: ViewGroup,
+    from: View?,
+    to: View?,
+    isPush: Boolean,
+    toAddedToContainer: Boolean,
+  ): Animator {
+    val animatorSet = AnimatorSet()
+    if (isPush) {
+      if (from != null) {
+        animatorSet.play(ObjectAnimator.ofFloat(from, View.TRANSLATION_X, -from.width.toFloat()))
+      }
+      if (to != null) {
+        animatorSet.play(ObjectAnimator.ofFloat(to, View.TRANSLATION_X, to.width.toFloat(), 0f))
+      }
+    } else {
+      if (from != null) {
+        animatorSet.play(ObjectAnimator.ofFloat(from, View.TRANSLATION_X, from.width.toFloat()))
+      }
+      if (to != null) {
+        // Starts alongside the "from" view, which is mid-flight when taking over an aborted push
+        val fromLeft = from?.translationX ?: 0F
+        animatorSet.play(ObjectAnimator.ofFloat(to, View.TRANSLATION_X, fromLeft - to.width, 0f))
+      }
+    }
+    return animatorSet
+  }
+
+  override fun resetFromView(from: View) {
+    from.translationX = 0f
+  }
+
+  override fun copy(): ControllerChangeHandler =
+    HorizontalSpringChangeHandler(stiffness, dampingRatio, removesFromViewOnPush).also {
+      it.layerStrategy = layerStrategy
+      it.initialVelocity = initialVelocity
+    }
+}
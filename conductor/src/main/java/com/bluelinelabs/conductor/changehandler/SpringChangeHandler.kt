@@ -0,0 +1,137 @@
+package com.bluelinelabs.conductor.changehandler
+
+import android.animation.Animator
+import android.os.Bundle
+import android.view.View
+import android.view.ViewGroup
+import com.bluelinelabs.conductor.ControllerChangeHandler
+
+/**
+ * A base [AnimatorChangeHandler] that times its animations with spring physics rather than a fixed duration and
+ * easing curve. Subclasses build Animators for the properties they change (translation, scale, alpha, etc.) the
+ * same way they would for any AnimatorChangeHandler, and the spring decides how long they take and how they move.
+ *
+ * Springs can start with a velocity, so gestures such as swipe-to-dismiss can hand theirs off through
+ * [initialVelocity]. When a push is aborted by another SpringChangeHandler of the same type, the popping spring
+ * picks up from the aborted one's current position and velocity, so fast repeated navigation never jumps or stalls.
+ *
+ * @param stiffness The spring's stiffness. Higher values settle faster.
+ * @param dampingRatio The spring's damping ratio. Values below 1 overshoot before settling.
+ */
+abstract class SpringChangeHandler @JvmOverloads constructor(
+  stiffness: Float = STIFFNESS_MEDIUM,
+  dampingRatio: Float = DAMPING_RATIO_NO_BOUNCY,
+  removesFromViewOnPush: Boolean = true,
+) : AnimatorChangeHandler(DEFAULT_ANIMATION_DURATION, removesFromViewOnPush) {
+
+  var stiffness: Float = stiffness
+    private set
+
+  var dampingRatio: Float = dampingRatio
+    private set
+
+  /**
+   * The velocity the next change starts with, in units of the full change per second. For example, a gesture that
+   * drags a view at 500px/s towards where a 1000px slide would take it should pass 0.5. It only applies to one
+   * change, and is reset to 0 once that change starts.
+   */
+  var initialVelocity = 0f
+
+  // The velocity of an aborted spring this handler took over. It belongs to that one change, so it's never saved
+  // or copied.
+  private var takeOverVelocity: Float? = null
+
+  private var spring: SpringInterpolator? = null
+
+  init {
+    require(stiffness > 0f) { "stiffness must be positive, but was $stiffness" }
+    require(dampingRatio >= 0f) { "dampingRatio must not be negative, but was $dampingRatio" }
+  }
+
+  override fun saveToBundle(bundle: Bundle) {
+    super.saveToBundle(bundle)
+    bundle.putFloat(KEY_STIFFNESS, stiffness)
+    bundle.putFloat(KEY_DAMPING_RATIO, dampingRatio)
+    bundle.putFloat(KEY_INITIAL_VELOCITY, initialVelocity)
+  }
+
+  override fun restoreFromBundle(bundle: Bundle) {
+    super.restoreFromBundle(bundle)
+    stiffness = bundle.getFloat(KEY_STIFFNESS, STIFFNESS_MEDIUM)
+    dampingRatio = bundle.getFloat(KEY_DAMPING_RATIO, DAMPING_RATIO_NO_BOUNCY)
+    initialVelocity = bundle.getFloat(KEY_INITIAL_VELOCITY)
+  }
+
+  /** The current velocity of this handler's spring, in units of the full change per second. */
+  val changeVelocity: Float
+    get() {
+      val spring = spring ?: return 0f
+      val timeFraction = playedFraction
+      if (timeFraction == PROGRESS_UNKNOWN || timeFraction >= 1f) {
+        return 0f
+      }
+      return spring.velocityAt(timeFraction * spring.duration / 1000.0).toFloat()
+    }
+
+  /**
+   * Takes over aborted pushes performed by handlers of the same type from the aborted spring's current position
+   * and velocity. Subclasses must animate from the views' current property values for this to look continuous.
+   */
+  override fun onTakeOverAbortedChange(abortedHandler: ControllerChangeHandler, progress: Float): Boolean {
+    if (abortedHandler.javaClass != javaClass || progress <= 0f || progress > 1f) {
+      return false
+    }
+
+    // The reversing spring only has the completed part of the push left to cover, and starts out moving against it.
+    takeOverVelocity = -(abortedHandler as SpringChangeHandler).changeVelocity / progress
+    return true
+  }
+
+  /**
+   * Should be overridden to return the Animator for the properties being changed. Its duration and interpolator
+   * are replaced with the spring's.
+   *
+   * @see AnimatorChangeHandler.getAnimator
+   */
+  protected abstract fun getSpringAnimator(
+    container: ViewGroup,
+    from: View?,
+    to: View?,
+    isPush: Boolean,
+    toAddedToContainer: Boolean,
+  ): Animator
+
+  final override fun getAnimator(
+    container: ViewGroup,
+    from: View?,
+    to: View?,
+    isPush: Boolean,
+    toAddedToContainer: Boolean,
+  ): Animator {
+    val spring = SpringInterpolator(stiffness, dampingRatio, takeOverVelocity ?: initialVelocity)
+    this.spring = spring
+    takeOverVelocity = null
+    initialVelocity = 0f
+
+    return getSpringAnimator(container, from, to, isPush, toAddedToContainer).apply {
+      duration = spring.duration
+      interpolator = spring
+    }
+  }
+
+  companion object {
+    const val STIFFNESS_HIGH = 10_000f
+    const val STIFFNESS_MEDIUM = 1_500f
+    const val STIFFNESS_LOW = 200f
+    const val STIFFNESS_VERY_LOW = 50f
+
+    const val DAMPING_RATIO_HIGH_BOUNCY = 0.2f
+    const val DAMPING_RATIO_MEDIUM_BOUNCY = 0.5f
+    const val DAMPING_RATIO_LOW_BOUNCY = 0.75f
+    const val DAMPING_RATIO_NO_BOUNCY = 1f
+
+    private const val KEY_STIFFNESS = "SpringChangeHandler.stiffness"
+    private const val KEY_DAMPING_RATIO = "SpringChangeHandler.dampingRatio"
+    private const val KEY_INITIAL_VELOCITY = "SpringChangeHandler.initialVelocity"
+  }
+}
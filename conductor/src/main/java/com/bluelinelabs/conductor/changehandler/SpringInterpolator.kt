@@ -0,0 +1,85 @@
+package com.bluelinelabs.conductor.changehandler
+
+import android.animation.TimeInterpolator
+import kotlin.math.abs
+import kotlin.math.cos
+import kotlin.math.exp
+import kotlin.math.sin
+import kotlin.math.sqrt
+
+/**
+ * Maps an animator's fraction onto the motion of a damped spring with unit mass, moving from 0 to 1 and starting
+ * with the passed velocity (in units of the full change per second). The spring is solved analytically, so any
+ * point of the motion can be evaluated directly, which keeps it seekable. [duration] is the time it takes the
+ * spring to come to rest, and should be used as the animator's duration.
+ */
+internal class SpringInterpolator(
+  stiffness: Float,
+  private val dampingRatio: Float,
+  private val initialVelocity: Float,
+) : TimeInterpolator {
+
+  private val naturalFrequency = sqrt(stiffness.toDouble())
+
+  /** The time in milliseconds the spring takes to settle. */
+  val duration: Long = findSettleTime()
+
+  override fun getInterpolation(input: Float): Float {
+    if (input >= 1f) {
+      return 1f
+    }
+    return positionAt(input * duration / 1000.0).toFloat()
+  }
+
+  fun positionAt(seconds: Double): Double = 1 + displacementAt(seconds)
+
+  fun velocityAt(seconds: Double): Double {
+    return (displacementAt(seconds + VELOCITY_SAMPLE_SECONDS) - displacementAt(seconds)) / VELOCITY_SAMPLE_SECONDS
+  }
+
+  // The displacement from the resting position at 1, starting at -1.
+  private fun displacementAt(t: Double): Double {
+    val w0 = naturalFrequency
+    val zeta = dampingRatio.toDouble()
+    val d0 = -1.0
+    val v0 = initialVelocity.toDouble()
+
+    return when {
+      zeta < 1 -> {
+        val wd = w0 * sqrt(1 - zeta * zeta)
+        exp(-zeta * w0 * t) * (d0 * cos(wd * t) + (v0 + zeta * w0 * d0) / wd * sin(wd * t))
+      }
+      zeta == 1.0 -> exp(-w0 * t) * (d0 + (v0 + w0 * d0) * t)
+      else -> {
+        val wh = w0 * sqrt(zeta * zeta - 1)
+        val r1 = -zeta * w0 - wh
+        val r2 = -zeta * w0 + wh
+        val c2 = (v0 - r1 * d0) / (r2 - r1)
+        val c1 = d0 - c2
+        c1 * exp(r1 * t) + c2 * exp(r2 * t)
+      }
+    }
+  }
+
+  private fun findSettleTime(): Long {
+    var lastMovingMs = 0L
+    var ms = 0L
+    while (ms <= MAX_DURATION_MS) {
+      val seconds = ms / 1000.0
+      if (abs(displacementAt(seconds)) > DISPLACEMENT_THRESHOLD || abs(velocityAt(seconds)) > VELOCITY_THRESHOLD) {
+        lastMovingMs = ms
+      }
+      ms += STEP_MS
+    }
+    return lastMovingMs + STEP_MS
+  }
+
+  companion object {
+    // Close enough to rest to be indistinguishable from it on a full-screen change.
+    private const val DISPLACEMENT_THRESHOLD = 0.001
+    private const val VELOCITY_THRESHOLD = DISPLACEMENT_THRESHOLD * 62.5
+    private const val VELOCITY_SAMPLE_SECONDS = 0.001
+    private const val STEP_MS = 4L
+    private const val MAX_DURATION_MS = 5000L
+  }
+}
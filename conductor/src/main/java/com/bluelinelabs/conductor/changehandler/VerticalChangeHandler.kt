@@ -39,5 +39,6 @@ class VerticalChangeHandler : AnimatorChangeHandler {
 
   override fun resetFromView(from: View) = Unit
 
-  override fun copy(): ControllerChangeHandler = VerticalChangeHandler(animationDuration, removesFromViewOnPush)
+  override fun copy(): ControllerChangeHandler =
+    VerticalChangeHandler(animationDuration, removesFromViewOnPush).also { it.layerStrategy = layerStrategy }
 }
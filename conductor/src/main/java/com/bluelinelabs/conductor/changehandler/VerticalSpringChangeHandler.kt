@@ -0,0 +1,43 @@
+package com.bluelinelabs.conductor.changehandler
+
+import android.animation.Animator
+import android.animation.AnimatorSet
+import android.animation.ObjectAnimator
+import android.view.View
+import android.view.ViewGroup
+import com.bluelinelabs.conductor.ControllerChangeHandler
+
+/**
+ * A [SpringChangeHandler] that will either slide a new View up or slide an old View down, depending on whether a
+ * push or pop change is happening.
+ */
+class VerticalSpringChangeHandler @JvmOverloads constructor(
+  stiffness: Float = SpringChangeHandler.STIFFNESS_MEDIUM,
+  dampingRatio: Float = SpringChangeHandler.DAMPING_RATIO_NO_BOUNCY,
+  removesFromViewOnPush: Boolean = true,
+) : SpringChangeHandler(stiffness, dampingRatio, removesFromViewOnPush) {
+
+  override fun getSpringAnimator(
+    container: ViewGroup,
+    from: View?,
+    to: View?,
+    isPush: Boolean,
+    toAddedToContainer: Boolean,
+  ): Animator {
+    val animator = AnimatorSet()
+    if (isPush && to != null) {
+      animator.play(ObjectAnimator.ofFloat(to, View.TRANSLATION_Y, to.height.toFloat(), 0f))
+    } else if (!isPush && from != null) {
+      animator.play(ObjectAnimator.ofFloat(from, View.TRANSLATION_Y, from.height.toFloat()))
+    }
+    return animator
+  }
+
+  override fun resetFromView(from: View) = Unit
+
+  override fun copy(): ControllerChangeHandler =
+    VerticalSpringChangeHandler(stiffness, dampingRatio, removesFromViewOnPush).also {
+      it.layerStrategy = layerStrategy
+      it.initialVelocity = initialVelocity
+    }
+}
@@ -0,0 +1,131 @@
+package com.bluelinelabs.conductor.internal
+
+import android.animation.Animator
+import android.animation.AnimatorListenerAdapter
+import android.animation.AnimatorSet
+import android.animation.TimeInterpolator
+import android.animation.ValueAnimator
+import android.animation.ValueAnimator.AnimatorUpdateListener
+import android.os.Build
+import android.view.animation.LinearInterpolator
+import androidx.annotation.RestrictTo
+import androidx.annotation.RestrictTo.Scope.LIBRARY_GROUP
+import kotlin.math.abs
+
+/**
+ * Drives an [Animator] by progress rather than by time, as needed for predictive back gestures. The animator is
+ * never started itself. Everything needed to seek it is worked out up front, so that [seekTo] can be called for
+ * every gesture event on the main thread without allocating.
+ *
+ * AnimatorSets are seeked directly on Oreo and above. Older versions can't seek sets, so their leaf animators
+ * are seeked individually, treating every child as playing together from its own start delay.
+ */
+@RestrictTo(LIBRARY_GROUP)
+class AnimatorSeeker(private val animator: Animator) {
+
+  private val leaves = ArrayList<ValueAnimator>()
+  private val leafOffsets = ArrayList<Long>()
+  private val canSeekDirectly = animator is ValueAnimator ||
+    (animator is AnimatorSet && Build.VERSION.SDK_INT >= Build.VERSION_CODES.O)
+
+  private var driver: ValueAnimator? = null
+  private var onSettled: Runnable? = null
+
+  /** The total duration of the seeked animator, including start delays. */
+  val duration: Long = collectLeaves(animator, 0, -1, null)
+
+  /** The progress last passed to [seekTo], from 0 to 1. */
+  var progress = 0f
+    private set
+
+  private val driverListener = object : AnimatorListenerAdapter(), AnimatorUpdateListener {
+    override fun onAnimationUpdate(animation: ValueAnimator) {
+      seekTo(animation.animatedValue as Float)
+    }
+
+    override fun onAnimationEnd(animation: Animator) {
+      driver = null
+      val callback = onSettled
+      onSettled = null
+      callback?.run()
+    }
+  }
+
+  fun seekTo(progress: Float) {
+    this.progress = progress.coerceIn(0f, 1f)
+    val playTime = (this.progress * duration).toLong()
+
+    if (canSeekDirectly) {
+      if (animator is ValueAnimator) {
+        animator.currentPlayTime = playTime
+      } else if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
+        (animator as AnimatorSet).currentPlayTime = playTime
+      }
+    } else {
+      for (i in leaves.indices) {
+        val leaf = leaves[i]
+        leaf.currentPlayTime = (playTime - leafOffsets[i]).coerceIn(0, leaf.duration)
+      }
+    }
+  }
+
+  /**
+   * Animates from the current progress to [target], which is 1 when a gesture is committed or 0 when it's
+   * cancelled, then runs [onSettled]. The remaining time is scaled to the distance left to cover.
+   */
+  fun settleTo(target: Float, onSettled: Runnable) {
+    cancel()
+
+    this.onSettled = onSettled
+    driver = ValueAnimator.ofFloat(progress, target).apply {
+      duration = (abs(target - progress) * this@AnimatorSeeker.duration).toLong()
+      // The seeked animators apply their own interpolators.
+      interpolator = LinearInterpolator()
+      addUpdateListener(driverListener)
+      addListener(driverListener)
+      start()
+    }
+  }
+
+  /** Immediately finishes a running [settleTo], including running its callback. */
+  fun end() {
+    driver?.end()
+  }
+
+  /** Stops a running [settleTo] where it is, without running its callback. */
+  fun cancel() {
+    onSettled = null
+    driver?.let {
+      driver = null
+      it.removeAllListeners()
+      it.removeAllUpdateListeners()
+      it.cancel()
+    }
+  }
+
+  private fun collectLeaves(animator: Animator, offset: Long, parentDuration: Long, parentInterpolator: TimeInterpolator?): Long {
+    // AnimatorSets only push their duration and interpolator down to their children when started.
+    if (parentDuration >= 0) {
+      animator.duration = parentDuration
+    }
+    if (parentInterpolator != null) {
+      animator.interpolator = parentInterpolator
+    }
+
+    val start = offset + animator.startDelay
+    return if (animator is AnimatorSet) {
+      val interpolator = if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR2) animator.interpolator else null
+      var end = start
+      for (child in animator.childAnimations) {
+        end = maxOf(end, collectLeaves(child, start, animator.duration, interpolator))
+      }
+      end
+    } else {
+      if (animator is ValueAnimator) {
+        leaves.add(animator)
+        leafOffsets.add(start)
+      }
+      start + maxOf(animator.duration, 0)
+    }
+  }
+}
@@ -0,0 +1,27 @@
+@file:JvmName("BundleSize")
+
+package com.bluelinelabs.conductor.internal
+
+import android.os.Bundle
+import android.os.Parcel
+import androidx.annotation.RestrictTo
+import androidx.annotation.RestrictTo.Scope.LIBRARY_GROUP
+
+/**
+ * Returns the number of bytes the passed Bundle takes up once parceled, or 0 for `null`. This parcels the whole
+ * Bundle, so it's only meant for diagnostics.
+ */
+@RestrictTo(LIBRARY_GROUP)
+internal fun parceledSize(bundle: Bundle?): Int {
+  if (bundle == null) {
+    return 0
+  }
+
+  val parcel = Parcel.obtain()
+  try {
+    parcel.writeBundle(bundle)
+    return parcel.dataSize()
+  } finally {
+    parcel.recycle()
+  }
+}
@@ -4,29 +4,84 @@ import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import android.text.TextUtils;
 
+import java.lang.reflect.Constructor;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
 public class ClassUtils {
 
+    // Shared between the main thread and any threads prewarming or prefetching restored state.
+    private static final Map<String, Class<?>> classes = new ConcurrentHashMap<>();
+    private static final Map<Class<?>, Constructor<?>[]> constructors = new ConcurrentHashMap<>();
+
     @Nullable @SuppressWarnings("unchecked")
     public static <T> Class<? extends T> classForName(@NonNull String className, boolean allowEmptyName) {
         if (allowEmptyName && TextUtils.isEmpty(className)) {
             return null;
         }
 
-        try {
-            return (Class<? extends T>)Class.forName(className);
-        } catch (Exception e) {
-            throw new RuntimeException("An exception occurred while finding class for name " + className + ". " + e.getMessage());
+        Class<?> cls = classes.get(className);
+        if (cls == null) {
+            try {
+                cls = Class.forName(className);
+            } catch (Exception e) {
+                throw new RuntimeException("An exception occurred while finding class for name " + className + ". " + e.getMessage());
+            }
+            classes.put(className, cls);
         }
+        return (Class<? extends T>)cls;
     }
 
     @Nullable @SuppressWarnings("unchecked")
     public static <T> T newInstance(@NonNull String className) {
         try {
             Class<? extends T> cls = classForName(className, true);
-            return cls != null ? cls.newInstance() : null;
+            if (cls == null) {
+                return null;
+            }
+
+            Constructor<?> constructor = getDefaultConstructor(cls);
+            return constructor != null ? (T)constructor.newInstance() : cls.newInstance();
         } catch (Exception e) {
             throw new RuntimeException("An exception occurred while creating a new instance of " + className + ". " + e.getMessage());
         }
     }
 
+    /**
+     * Returns the public constructors of the passed class. The returned array is cached and must not be modified.
+     */
+    @NonNull
+    public static Constructor<?>[] getConstructors(@NonNull Class<?> cls) {
+        Constructor<?>[] classConstructors = constructors.get(cls);
+        if (classConstructors == null) {
+            classConstructors = cls.getConstructors();
+            constructors.put(cls, classConstructors);
+        }
+        return classConstructors;
+    }
+
+    @Nullable
+    public static Constructor<?> getDefaultConstructor(@NonNull Class<?> cls) {
+        for (Constructor<?> constructor : getConstructors(cls)) {
+            if (constructor.getParameterTypes().length == 0) {
+                return constructor;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Loads and initializes the passed class and caches its constructors, so that the first instantiation on the
+     * main thread doesn't have to.
+     */
+    public static void prewarm(@NonNull Class<?> cls) {
+        try {
+            Class.forName(cls.getName(), true, cls.getClassLoader());
+        } catch (ClassNotFoundException e) {
+            throw new RuntimeException("An exception occurred while initializing " + cls.getName() + ". " + e.getMessage());
+        }
+        classes.put(cls.getName(), cls);
+        getConstructors(cls);
+    }
+
 }
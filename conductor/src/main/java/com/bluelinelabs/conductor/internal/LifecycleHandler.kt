@@ -2,9 +2,11 @@ package com.bluelinelabs.conductor.internal
 
 import android.app.Activity
 import android.app.Application.ActivityLifecycleCallbacks
+import android.content.ComponentCallbacks2
 import android.content.Context
 import android.content.Intent
 import android.content.IntentSender
+import android.content.res.Configuration
 import android.os.Build
 import android.os.Bundle
 import android.os.Parcelable
@@ -18,6 +20,7 @@ import androidx.fragment.app.FragmentActivity
 import com.bluelinelabs.conductor.ActivityHostedRouter
 import com.bluelinelabs.conductor.Router
 import kotlinx.parcelize.Parcelize
+import java.util.concurrent.Executor
 
 internal interface LifecycleHandler {
   val routers: List<Router>
@@ -61,6 +64,14 @@ internal interface LifecycleHandler {
       lifecycleHandler.registerActivityListener(activity)
       return lifecycleHandler
     }
+
+    fun prefetchRouterStates(savedInstanceState: Bundle, executor: Executor) {
+      val routerStates = savedInstanceState.keySet()
+        .filter { it.startsWith(KEY_ROUTER_STATE_PREFIX) }
+        .mapNotNull { savedInstanceState.getBundle(it) }
+
+      RouterStatePrefetcher.prefetch(savedInstanceState, routerStates, executor)
+    }
   }
 }
 
@@ -344,6 +355,7 @@ private interface LifecycleHandlerDelegate : ActivityLifecycleCallbacks {
   fun handleOnDestroy() {
     data.activity?.let { activity ->
       activity.application.unregisterActivityLifecycleCallbacks(this)
+      activity.application.unregisterComponentCallbacks(data.componentCallbacks)
       activeLifecycleHandlers.remove(activity)
       destroyRouters(false)
       data.activity = null
@@ -360,6 +372,7 @@ private interface LifecycleHandlerDelegate : ActivityLifecycleCallbacks {
 
     val router = ActivityHostedRouter()
     router.setHost(handler, container)
+    savedInstanceState?.let { RouterStatePrefetcher.await(it) }
     savedInstanceState?.getBundle("$KEY_ROUTER_STATE_PREFIX${router.containerId}")?.let {
       router.restoreInstanceState(it)
     }
@@ -372,6 +385,7 @@ private interface LifecycleHandlerDelegate : ActivityLifecycleCallbacks {
     if (!data.hasRegisteredCallbacks) {
       data.hasRegisteredCallbacks = true
       activity.application.registerActivityLifecycleCallbacks(this)
+      activity.application.registerComponentCallbacks(data.componentCallbacks)
 
       // Since Fragment transactions are async, we have to keep an <Activity, LifecycleHandler> map in addition
       // to trying to find the LifecycleHandler fragment in the Activity to handle the case of the developer
@@ -578,7 +592,20 @@ internal class LifecycleHandlerData(
   var activityRequestMap: SparseArray<String> = SparseArray(),
   var pendingPermissionRequests: ArrayList<PendingPermissionRequest> = arrayListOf(),
   val routerMap: MutableMap<Int, ActivityHostedRouter> = mutableMapOf(),
-)
+) {
+
+  val componentCallbacks: ComponentCallbacks2 = object : ComponentCallbacks2 {
+    override fun onTrimMemory(level: Int) {
+      routerMap.values.toList().forEach { it.onTrimMemory(level) }
+    }
+
+    override fun onLowMemory() {
+      onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_COMPLETE)
+    }
+
+    override fun onConfigurationChanged(newConfig: Configuration) = Unit
+  }
+}
 
 private fun findInActivity(activity: Activity, allowAndroidXBacking: Boolean): LifecycleHandler? {
   var lifecycleHandler = activeLifecycleHandlers[activity]
@@ -67,6 +67,9 @@ internal class OwnViewTreeLifecycleAndRegistry private constructor(
       }
 
       override fun postAttach(controller: Controller, view: View) {
+        // The registry may have been saved when a change away from this view started. Once the view is back, its
+        // state can change again, so the next view state save needs to save the registry as well.
+        hasSavedState = false
         lifecycleRegistry.handleLifecycleEvent(Lifecycle.Event.ON_RESUME)
       }
 
@@ -83,6 +86,7 @@ internal class OwnViewTreeLifecycleAndRegistry private constructor(
           changeController.view?.windowToken != null &&
           lifecycleRegistry.currentState == Lifecycle.State.STARTED
         ) {
+          hasSavedState = false
           lifecycleRegistry.handleLifecycleEvent(Lifecycle.Event.ON_RESUME)
         }
       }
@@ -211,6 +215,19 @@ internal class OwnViewTreeLifecycleAndRegistry private constructor(
     fun own(target: Controller): OwnViewTreeLifecycleAndRegistry {
       return OwnViewTreeLifecycleAndRegistry(target)
     }
+
+    /**
+     * Removes the owners set by this class from a view that is about to be reused by another Controller, so that
+     * the new Controller can set its own. Owners set by the consumer of the library are left alone.
+     */
+    fun clearOwners(view: View) {
+      if (view.getTag(R.id.view_tree_lifecycle_owner) is OwnViewTreeLifecycleAndRegistry) {
+        view.setTag(R.id.view_tree_lifecycle_owner, null)
+      }
+      if (view.getTag(R.id.view_tree_saved_state_registry_owner) is OwnViewTreeLifecycleAndRegistry) {
+        view.setTag(R.id.view_tree_saved_state_registry_owner, null)
+      }
+    }
   }
 }
 
@@ -0,0 +1,45 @@
+package com.bluelinelabs.conductor.internal
+
+import android.os.Bundle
+import com.bluelinelabs.conductor.Router
+import java.util.WeakHashMap
+import java.util.concurrent.ExecutionException
+import java.util.concurrent.Executor
+import java.util.concurrent.FutureTask
+
+/**
+ * Decodes saved Router states on a background [Executor] so that restoring them on the main thread
+ * only has to instantiate and wire up the already-unparceled Controllers. Pending prefetches are keyed
+ * by the Activity's savedInstanceState Bundle, which is only ever touched from the main thread.
+ */
+internal object RouterStatePrefetcher {
+
+  private val pendingPrefetches = WeakHashMap<Bundle, FutureTask<Unit>>()
+
+  fun prefetch(savedInstanceState: Bundle, routerStates: List<Bundle>, executor: Executor) {
+    ensureMainThread()
+
+    if (routerStates.isEmpty() || pendingPrefetches.containsKey(savedInstanceState)) {
+      return
+    }
+
+    val task = FutureTask {
+      routerStates.forEach { Router.prefetchInstanceState(it) }
+    }
+    pendingPrefetches[savedInstanceState] = task
+    executor.execute(task)
+  }
+
+  fun await(savedInstanceState: Bundle) {
+    val task = pendingPrefetches.remove(savedInstanceState) ?: return
+
+    try {
+      task.get()
+    } catch (e: ExecutionException) {
+      // The restore will decode anything that wasn't prefetched and surface any real errors itself.
+    } catch (e: InterruptedException) {
+      // Restore without waiting any longer, keeping the interrupt for the caller.
+      Thread.currentThread().interrupt()
+    }
+  }
+}
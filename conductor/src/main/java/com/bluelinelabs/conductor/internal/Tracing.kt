@@ -0,0 +1,86 @@
+package com.bluelinelabs.conductor.internal
+
+import androidx.annotation.RestrictTo
+import androidx.annotation.RestrictTo.Scope.LIBRARY_GROUP
+import androidx.tracing.Trace
+
+/**
+ * Emits Systrace/Perfetto sections for Conductor's navigation pipeline while tracing is enabled through
+ * [com.bluelinelabs.conductor.Conductor.setTracingEnabled]. Section names are only built while enabled, so disabled
+ * tracing costs a field read per call site.
+ *
+ * Every begin call returns whether a section was actually started, which must be passed to the matching end call.
+ * This keeps sections balanced if tracing is toggled while one is open.
+ */
+@RestrictTo(LIBRARY_GROUP)
+object Tracing {
+
+  private const val PREFIX = "Conductor:"
+
+  @Volatile
+  @JvmStatic
+  var isEnabled = false
+
+  @JvmStatic
+  fun beginSection(name: String): Boolean {
+    if (!isEnabled) {
+      return false
+    }
+
+    Trace.beginSection(PREFIX + name)
+    return true
+  }
+
+  @JvmStatic
+  fun beginSection(name: String, target: Any?): Boolean {
+    if (!isEnabled) {
+      return false
+    }
+
+    Trace.beginSection(sectionName(name, target))
+    return true
+  }
+
+  @JvmStatic
+  fun endSection(began: Boolean) {
+    if (began) {
+      Trace.endSection()
+    }
+  }
+
+  /**
+   * Starts a slice that can end on a later frame. Returns the slice's name, which must be passed to
+   * [endAsyncSection] along with the same cookie, or null if tracing is disabled.
+   */
+  @JvmStatic
+  fun beginAsyncSection(name: String, target: Any?, cookie: Int): String? {
+    if (!isEnabled) {
+      return null
+    }
+
+    val sectionName = sectionName(name, target)
+    Trace.beginAsyncSection(sectionName, cookie)
+    return sectionName
+  }
+
+  @JvmStatic
+  fun endAsyncSection(sectionName: String?, cookie: Int) {
+    if (sectionName != null) {
+      Trace.endAsyncSection(sectionName, cookie)
+    }
+  }
+
+  private fun sectionName(name: String, target: Any?): String {
+    return if (target == null) PREFIX + name else PREFIX + name + " " + target.javaClass.simpleName
+  }
+}
+
+@RestrictTo(LIBRARY_GROUP)
+internal inline fun <T> traceSection(name: String, target: Any?, block: () -> T): T {
+  val began = Tracing.beginSection(name, target)
+  try {
+    return block()
+  } finally {
+    Tracing.endSection(began)
+  }
+}
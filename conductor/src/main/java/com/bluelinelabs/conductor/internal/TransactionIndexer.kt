@@ -3,22 +3,23 @@ package com.bluelinelabs.conductor.internal
 import android.os.Bundle
 import androidx.annotation.RestrictTo
 import androidx.annotation.RestrictTo.Scope.LIBRARY_GROUP
+import com.bluelinelabs.conductor.navigation.TransactionIndices
 
 @RestrictTo(LIBRARY_GROUP)
 class TransactionIndexer {
 
-    private var currentIndex = 0
+    private val indices = TransactionIndices()
 
     fun nextIndex(): Int {
-        return ++currentIndex
+        return indices.nextIndex()
     }
 
     fun saveInstanceState(outState: Bundle) {
-        outState.putInt(KEY_INDEX, currentIndex)
+        outState.putInt(KEY_INDEX, indices.currentIndex)
     }
 
     fun restoreInstanceState(savedInstanceState: Bundle) {
-        currentIndex = savedInstanceState.getInt(KEY_INDEX)
+        indices.currentIndex = savedInstanceState.getInt(KEY_INDEX)
     }
 }
 
@@ -0,0 +1,87 @@
+package com.bluelinelabs.conductor.internal;
+
+import android.os.Build;
+import android.view.View;
+import android.view.View.OnAttachStateChangeListener;
+import android.view.ViewTreeObserver;
+import android.view.ViewTreeObserver.OnPreDrawListener;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Watches a Controller's view for anything that could have changed its saved state. Any change to a view's
+ * state (text, scroll position, checked state, etc.) invalidates it, which marks it and all of its ancestors as
+ * dirty before the next frame is drawn. Checking the root view's dirty flag right before drawing is enough to
+ * know whether the previously saved view state is still up to date.
+ */
+public class ViewStateChangeTracker implements OnPreDrawListener, OnAttachStateChangeListener {
+
+    public interface ViewStateChangeListener {
+        void onViewStateChanged();
+    }
+
+    private final View view;
+    private final ViewStateChangeListener listener;
+    private ViewTreeObserver viewTreeObserver;
+
+    public ViewStateChangeTracker(@NonNull View view, @NonNull ViewStateChangeListener listener) {
+        this.view = view;
+        this.listener = listener;
+
+        view.addOnAttachStateChangeListener(this);
+        if (isAttachedToWindow(view)) {
+            startObserving();
+        }
+    }
+
+    public void release() {
+        view.removeOnAttachStateChangeListener(this);
+        stopObserving();
+    }
+
+    @Override
+    public boolean onPreDraw() {
+        // View.isDirty is only available on Lollipop and above. Older devices conservatively treat every frame as a change.
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.LOLLIPOP || view.isDirty()) {
+            listener.onViewStateChanged();
+        }
+        return true;
+    }
+
+    @Override
+    public void onViewAttachedToWindow(View v) {
+        startObserving();
+    }
+
+    @Override
+    public void onViewDetachedFromWindow(View v) {
+        stopObserving();
+    }
+
+    private void startObserving() {
+        if (viewTreeObserver == null) {
+            viewTreeObserver = view.getViewTreeObserver();
+            viewTreeObserver.addOnPreDrawListener(this);
+        }
+    }
+
+    private void stopObserving() {
+        if (viewTreeObserver != null) {
+            // The observer is replaced when the view is attached to a new window, so remove from the one we registered with.
+            if (viewTreeObserver.isAlive()) {
+                viewTreeObserver.removeOnPreDrawListener(this);
+            } else {
+                view.getViewTreeObserver().removeOnPreDrawListener(this);
+            }
+            viewTreeObserver = null;
+        }
+    }
+
+    private static boolean isAttachedToWindow(@NonNull View view) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.KITKAT) {
+            return view.isAttachedToWindow();
+        } else {
+            return view.getWindowToken() != null;
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package com.bluelinelabs.conductor
+
+import android.os.Bundle
+import android.view.LayoutInflater
+import android.view.Menu
+import android.view.MenuInflater
+import android.view.View
+import android.view.ViewGroup
+import android.widget.FrameLayout
+import android.widget.PopupMenu
+import com.bluelinelabs.conductor.changehandler.SimpleSwapChangeHandler
+import com.bluelinelabs.conductor.util.TestActivity
+import org.junit.Assert
+import org.junit.Assume
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.robolectric.Robolectric
+import org.robolectric.RobolectricTestRunner
+import org.robolectric.annotation.Config
+import java.lang.management.ManagementFactory
+
+/**
+ * Guards steady-state navigation paths against allocation regressions. Each test counts the bytes allocated by the
+ * test thread while repeating an operation and fails if they exceed the operation's budget below.
+ */
+@RunWith(RobolectricTestRunner::class)
+@Config(manifest = Config.NONE)
+class AllocationTests {
+
+  private val activityController = Robolectric.buildActivity(TestActivity::class.java).setup()
+  private val activity = activityController.get()
+  private val router = activity.router
+
+  @Test
+  fun testLifecycleFanOut() {
+    setUpHierarchy()
+
+    assertWithinBudget("lifecycle fan-out", LIFECYCLE_FAN_OUT_BUDGET) {
+      router.onActivityPaused(activity)
+      router.onActivityResumed(activity)
+    }
+  }
+
+  @Test
+  fun testOptionsMenuDispatch() {
+    setUpHierarchy()
+    val menu = PopupMenu(activity, activity.findViewById(android.R.id.content)).menu
+    val item = menu.add("item")
+    val inflater = activity.menuInflater
+
+    assertWithinBudget("options menu dispatch", OPTIONS_MENU_BUDGET) {
+      router.onCreateOptionsMenu(menu, inflater)
+      router.onPrepareOptionsMenu(menu)
+      router.onOptionsItemSelected(item)
+    }
+  }
+
+  @Test
+  fun testPushAndPop() {
+    val root = AllocationController()
+    root.retainViewMode = Controller.RetainViewMode.RETAIN_DETACH
+    router.setRoot(root.asTransaction())
+
+    // Popping destroys the pushed Controller, so each iteration pushes a new one. It's built and inflated before
+    // the measurement starts, which leaves only the routing itself and the retained root's reattachment measured.
+    lateinit var transaction: RouterTransaction
+    assertWithinBudget(
+      "push and pop",
+      PUSH_POP_BUDGET,
+      prepare = {
+        transaction = AllocationController().asTransaction()
+        router.prepare(transaction)
+      },
+    ) {
+      router.pushController(transaction)
+      router.popCurrentController()
+    }
+  }
+
+  /**
+   * Sets up a backstack whose top Controller hosts a child Router with a backstack of its own, all with options
+   * menus.
+   */
+  private fun setUpHierarchy() {
+    router.setBackstack(List(BACKSTACK_SIZE) { AllocationController().asTransaction() }, SimpleSwapChangeHandler())
+
+    val parent = router.getBackstack().last().controller
+    parent.getChildRouter(parent.view as ViewGroup)
+      .setBackstack(List(BACKSTACK_SIZE) { AllocationController().asTransaction() }, SimpleSwapChangeHandler())
+  }
+
+  private inline fun assertWithinBudget(
+    name: String,
+    budgetBytes: Long,
+    prepare: () -> Unit = {},
+    operation: () -> Unit,
+  ) {
+    val threadBean = ManagementFactory.getThreadMXBean() as? com.sun.management.ThreadMXBean
+    Assume.assumeTrue(threadBean != null && threadBean.isThreadAllocatedMemorySupported)
+    threadBean!!.isThreadAllocatedMemoryEnabled = true
+    val threadId = Thread.currentThread().id
+
+    repeat(WARMUP_ITERATIONS) {
+      prepare()
+      operation()
+    }
+
+    // The least allocating run is compared, so that one-off allocations from class loading and lazy initialization
+    // don't count against the budget.
+    var allocatedBytes = Long.MAX_VALUE
+    repeat(MEASURED_ITERATIONS) {
+      prepare()
+      val before = threadBean.getThreadAllocatedBytes(threadId)
+      operation()
+      allocatedBytes = minOf(allocatedBytes, threadBean.getThreadAllocatedBytes(threadId) - before)
+    }
+
+    Assert.assertTrue(
+      "$name allocated $allocatedBytes bytes, exceeding its budget of $budgetBytes bytes",
+      allocatedBytes <= budgetBytes
+    )
+  }
+
+  private fun Controller.asTransaction(): RouterTransaction {
+    return RouterTransaction.with(this)
+      .pushChangeHandler(SimpleSwapChangeHandler())
+      .popChangeHandler(SimpleSwapChangeHandler())
+  }
+
+  class AllocationController(args: Bundle? = null) : Controller(args) {
+
+    init {
+      setHasOptionsMenu(true)
+    }
+
+    override fun onCreateView(inflater: LayoutInflater, container: ViewGroup, savedViewState: Bundle?): View {
+      return FrameLayout(container.context).also { it.id = View.generateViewId() }
+    }
+
+    override fun onCreateOptionsMenu(menu: Menu, inflater: MenuInflater) = Unit
+  }
+
+  companion object {
+    private const val BACKSTACK_SIZE = 10
+    private const val WARMUP_ITERATIONS = 10
+    private const val MEASURED_ITERATIONS = 10
+
+    // Budgets in bytes. Lifecycle and options menu dispatch must not allocate at all. A push and pop of a prepared
+    // Controller only allocates the change bookkeeping and what the framework needs to add and remove its view.
+    private const val LIFECYCLE_FAN_OUT_BUDGET = 0L
+    private const val OPTIONS_MENU_BUDGET = 0L
+    private const val PUSH_POP_BUDGET = 32 * 1024L
+  }
+}
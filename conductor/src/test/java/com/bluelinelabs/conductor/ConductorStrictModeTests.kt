@@ -0,0 +1,138 @@
+package com.bluelinelabs.conductor
+
+import android.os.Bundle
+import android.view.View
+import com.bluelinelabs.conductor.ConductorStrictMode.Penalty
+import com.bluelinelabs.conductor.StrictModeViolation.Type
+import com.bluelinelabs.conductor.util.MockChangeHandler
+import com.bluelinelabs.conductor.util.TestActivity
+import org.junit.After
+import org.junit.Assert
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.robolectric.Robolectric
+import org.robolectric.RobolectricTestRunner
+import org.robolectric.annotation.Config
+
+@RunWith(RobolectricTestRunner::class)
+@Config(manifest = Config.NONE)
+class ConductorStrictModeTests {
+
+  private val router = Robolectric.buildActivity(TestActivity::class.java).setup().get().router
+  private val violations = ArrayList<StrictModeViolation>()
+
+  @After
+  fun teardown() {
+    Conductor.strictMode = null
+  }
+
+  @Test
+  fun testSlowCallback() {
+    router.setStrictMode(strictMode(callbackThresholdMillis = 5))
+
+    router.setRoot(SlowAttachController().asTransaction())
+
+    val violation = violations.single { it.type == Type.SLOW_CALLBACK }
+    Assert.assertEquals(SlowAttachController::class.java.name, violation.controllerClassName)
+    Assert.assertEquals("onAttach", violation.source)
+    Assert.assertTrue(violation.value >= SLOW_CALLBACK_MILLIS)
+    Assert.assertEquals(5, violation.limit)
+  }
+
+  @Test
+  fun testOversizedState() {
+    router.setStrictMode(strictMode(savedStateLimitBytes = 1024))
+    router.setRoot(LargeStateController().asTransaction())
+
+    router.saveInstanceState(Bundle())
+
+    val violation = violations.single { it.type == Type.OVERSIZED_STATE }
+    Assert.assertEquals(LargeStateController::class.java.name, violation.controllerClassName)
+    Assert.assertTrue(violation.value > 1024)
+  }
+
+  @Test
+  fun testSlowChange() {
+    router.setStrictMode(strictMode(changeCompletionLimitMillis = 0))
+
+    router.setRoot(TestController().asTransaction(pushChangeHandler = MockChangeHandler.defaultHandler()))
+
+    val violation = violations.single { it.type == Type.SLOW_CHANGE }
+    Assert.assertEquals(MockChangeHandler::class.java.name, violation.source)
+    Assert.assertEquals(TestController::class.java.name, violation.controllerClassName)
+  }
+
+  @Test
+  fun testNoViolationsWithinLimits() {
+    router.setStrictMode(strictMode())
+
+    router.setRoot(TestController().asTransaction())
+    router.pushController(TestController().asTransaction())
+    router.saveInstanceState(Bundle())
+
+    Assert.assertTrue(violations.toString(), violations.isEmpty())
+  }
+
+  @Test
+  fun testChildRoutersInheritPolicy() {
+    Conductor.strictMode = ConductorStrictMode(penalty = Penalty.NONE)
+    router.setStrictMode(strictMode(callbackThresholdMillis = 5))
+
+    val parent = TestController()
+    router.setRoot(parent.asTransaction())
+    val childRouter = parent.getChildRouter(parent.view!!.findViewById(TestController.CHILD_VIEW_ID_1))
+    Assert.assertNull(childRouter.strictMode)
+
+    childRouter.setRoot(SlowAttachController().asTransaction())
+
+    Assert.assertEquals(1, violations.count { it.type == Type.SLOW_CALLBACK })
+  }
+
+  @Test
+  fun testGlobalPolicy() {
+    Conductor.strictMode = strictMode(callbackThresholdMillis = 5)
+
+    router.setRoot(SlowAttachController().asTransaction())
+
+    Assert.assertEquals(1, violations.count { it.type == Type.SLOW_CALLBACK })
+  }
+
+  @Test(expected = IllegalStateException::class)
+  fun testThrowPenalty() {
+    router.setStrictMode(ConductorStrictMode(callbackThresholdMillis = 5, penalty = Penalty.THROW))
+
+    router.setRoot(SlowAttachController().asTransaction())
+  }
+
+  private fun strictMode(
+    callbackThresholdMillis: Long = 60_000,
+    savedStateLimitBytes: Int = Int.MAX_VALUE,
+    changeCompletionLimitMillis: Long = 60_000,
+  ): ConductorStrictMode {
+    return ConductorStrictMode(
+      callbackThresholdMillis = callbackThresholdMillis,
+      savedStateLimitBytes = savedStateLimitBytes,
+      changeCompletionLimitMillis = changeCompletionLimitMillis,
+      penalty = Penalty.NONE,
+      listener = { violations.add(it) },
+    )
+  }
+
+  class SlowAttachController : TestController() {
+    override fun onAttach(view: View) {
+      super.onAttach(view)
+      Thread.sleep(SLOW_CALLBACK_MILLIS)
+    }
+  }
+
+  class LargeStateController : TestController() {
+    override fun onSaveInstanceState(outState: Bundle) {
+      super.onSaveInstanceState(outState)
+      outState.putByteArray("data", ByteArray(4096))
+    }
+  }
+
+  companion object {
+    private const val SLOW_CALLBACK_MILLIS = 20L
+  }
+}
@@ -1,13 +1,29 @@
 package com.bluelinelabs.conductor;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.robolectric.Shadows.shadowOf;
 
+import android.content.Context;
+import android.os.Looper;
+import android.view.View;
+import android.widget.FrameLayout;
+
+import com.bluelinelabs.conductor.changehandler.AnimatorChangeHandler.LayerStrategy;
 import com.bluelinelabs.conductor.changehandler.FadeChangeHandler;
 import com.bluelinelabs.conductor.changehandler.HorizontalChangeHandler;
+import com.bluelinelabs.conductor.changehandler.HorizontalSpringChangeHandler;
+import com.bluelinelabs.conductor.changehandler.SpringChangeHandler;
+import com.bluelinelabs.conductor.changehandler.SpringInterpolator;
 
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import java.util.concurrent.TimeUnit;
 
 @RunWith(RobolectricTestRunner.class)
 public class ControllerChangeHandlerTests {
@@ -38,4 +54,129 @@ public class ControllerChangeHandlerTests {
         assertEquals(fadeChangeHandler.getRemovesFromViewOnPush(), restoredFadeCast.getRemovesFromViewOnPush());
     }
 
+    @Test
+    public void testLayerStrategySaveRestore() {
+        HorizontalChangeHandler horizontalChangeHandler = new HorizontalChangeHandler();
+        horizontalChangeHandler.setLayerStrategy(LayerStrategy.HARDWARE);
+
+        RouterTransaction transaction = RouterTransaction.with(new TestController())
+                .pushChangeHandler(horizontalChangeHandler);
+        RouterTransaction restoredTransaction = new RouterTransaction(transaction.saveInstanceState());
+
+        HorizontalChangeHandler restoredHorizontal = (HorizontalChangeHandler) restoredTransaction.pushChangeHandler();
+        assertEquals(LayerStrategy.HARDWARE, restoredHorizontal.getLayerStrategy());
+        assertEquals(LayerStrategy.HARDWARE, ((HorizontalChangeHandler) horizontalChangeHandler.copy()).getLayerStrategy());
+        assertEquals(LayerStrategy.NONE, new FadeChangeHandler().getLayerStrategy());
+    }
+
+    @Test
+    public void testPredictiveBackSeeking() {
+        Context context = RuntimeEnvironment.getApplication();
+        FrameLayout container = new FrameLayout(context);
+        View from = new View(context);
+        View to = new View(context);
+        container.addView(from);
+        from.layout(0, 0, 100, 100);
+        to.layout(0, 0, 100, 100);
+
+        FadeChangeHandler handler = new FadeChangeHandler(200);
+        handler.handleOnBackStarted(container, to, from, 0);
+        assertSame(container, to.getParent());
+        assertEquals(0, container.indexOfChild(to));
+        assertEquals(0f, to.getAlpha(), 0.01f);
+
+        handler.handleOnBackProgressed(container, to, from, 0.5f, 0);
+        assertEquals(0.5f, from.getAlpha(), 0.01f);
+        assertEquals(0.5f, to.getAlpha(), 0.01f);
+
+        handler.handleOnBackCancelled(container, to, from);
+        shadowOf(Looper.getMainLooper()).idleFor(1, TimeUnit.SECONDS);
+        assertEquals(1f, from.getAlpha(), 0.01f);
+        assertNull(to.getParent());
+
+        final boolean[] completed = new boolean[1];
+        handler.handleOnBackStarted(container, to, from, 0);
+        handler.handleOnBackProgressed(container, to, from, 0.3f, 0);
+        handler.performChange(container, from, to, false, new ControllerChangeHandler.ControllerChangeCompletedListener() {
+            @Override
+            public void onChangeCompleted() {
+                completed[0] = true;
+            }
+        });
+        shadowOf(Looper.getMainLooper()).idleFor(1, TimeUnit.SECONDS);
+        assertTrue(completed[0]);
+        assertNull(from.getParent());
+        assertSame(container, to.getParent());
+        assertEquals(1f, to.getAlpha(), 0.01f);
+    }
+
+    @Test
+    public void testSpringSaveRestore() {
+        HorizontalSpringChangeHandler springChangeHandler = new HorizontalSpringChangeHandler(
+                SpringChangeHandler.STIFFNESS_LOW, SpringChangeHandler.DAMPING_RATIO_MEDIUM_BOUNCY);
+        springChangeHandler.setInitialVelocity(2f);
+
+        RouterTransaction transaction = RouterTransaction.with(new TestController())
+                .pushChangeHandler(springChangeHandler);
+        RouterTransaction restoredTransaction = new RouterTransaction(transaction.saveInstanceState());
+
+        HorizontalSpringChangeHandler restored = (HorizontalSpringChangeHandler) restoredTransaction.pushChangeHandler();
+        assertEquals(SpringChangeHandler.STIFFNESS_LOW, restored.getStiffness(), 0f);
+        assertEquals(SpringChangeHandler.DAMPING_RATIO_MEDIUM_BOUNCY, restored.getDampingRatio(), 0f);
+        assertEquals(2f, restored.getInitialVelocity(), 0f);
+        assertEquals(2f, ((HorizontalSpringChangeHandler) springChangeHandler.copy()).getInitialVelocity(), 0f);
+    }
+
+    @Test
+    public void testSpringInitialVelocityUsedOnce() {
+        Context context = RuntimeEnvironment.getApplication();
+        FrameLayout container = new FrameLayout(context);
+        View from = new View(context);
+        View to = new View(context);
+        container.addView(from);
+        from.layout(0, 0, 100, 100);
+        to.layout(0, 0, 100, 100);
+
+        HorizontalSpringChangeHandler handler = new HorizontalSpringChangeHandler();
+        handler.setInitialVelocity(2f);
+
+        // Taking over an aborted change doesn't replace the velocity that is saved and copied.
+        assertTrue(handler.onTakeOverAbortedChange(new HorizontalSpringChangeHandler(), 0.5f));
+        assertEquals(2f, handler.getInitialVelocity(), 0f);
+        assertEquals(2f, ((HorizontalSpringChangeHandler) handler.copy()).getInitialVelocity(), 0f);
+
+        handler.performChange(container, from, to, true, new ControllerChangeHandler.ControllerChangeCompletedListener() {
+            @Override
+            public void onChangeCompleted() { }
+        });
+        assertEquals(0f, handler.getInitialVelocity(), 0f);
+        assertEquals(0f, ((HorizontalSpringChangeHandler) handler.copy()).getInitialVelocity(), 0f);
+
+        RouterTransaction restoredTransaction = new RouterTransaction(
+                RouterTransaction.with(new TestController()).pushChangeHandler(handler).saveInstanceState());
+        assertEquals(0f, ((HorizontalSpringChangeHandler) restoredTransaction.pushChangeHandler()).getInitialVelocity(), 0f);
+        shadowOf(Looper.getMainLooper()).idleFor(1, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void testSpringInterpolator() {
+        SpringInterpolator critical = new SpringInterpolator(SpringChangeHandler.STIFFNESS_MEDIUM, SpringChangeHandler.DAMPING_RATIO_NO_BOUNCY, 0f);
+        assertEquals(0f, critical.getInterpolation(0f), 0.001f);
+        assertEquals(1f, critical.getInterpolation(1f), 0f);
+        assertTrue(critical.getDuration() > 0 && critical.getDuration() < 1000);
+
+        SpringInterpolator bouncy = new SpringInterpolator(SpringChangeHandler.STIFFNESS_MEDIUM, SpringChangeHandler.DAMPING_RATIO_HIGH_BOUNCY, 0f);
+        float max = 0f;
+        for (int i = 0; i <= 100; i++) {
+            max = Math.max(max, bouncy.getInterpolation(i / 100f));
+        }
+        assertTrue(max > 1f);
+        assertTrue(bouncy.getDuration() > critical.getDuration());
+
+        // Starting with velocity towards the end gets there sooner.
+        SpringInterpolator flung = new SpringInterpolator(SpringChangeHandler.STIFFNESS_MEDIUM, SpringChangeHandler.DAMPING_RATIO_NO_BOUNCY, 10f);
+        assertTrue(flung.positionAt(0.05) > critical.positionAt(0.05));
+        assertTrue(flung.getDuration() <= critical.getDuration());
+    }
+
 }
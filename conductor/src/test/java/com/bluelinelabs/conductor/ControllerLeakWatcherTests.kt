@@ -0,0 +1,100 @@
+package com.bluelinelabs.conductor
+
+import android.os.Looper
+import com.bluelinelabs.conductor.util.TestActivity
+import org.junit.After
+import org.junit.Assert
+import org.junit.Before
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.robolectric.Robolectric
+import org.robolectric.RobolectricTestRunner
+import org.robolectric.Shadows.shadowOf
+import org.robolectric.annotation.Config
+
+@RunWith(RobolectricTestRunner::class)
+@Config(manifest = Config.NONE)
+class ControllerLeakWatcherTests {
+
+  private val router = Robolectric.buildActivity(TestActivity::class.java).setup().get().router
+  private val leakWatcher = ControllerLeakWatcher(gracePeriodMillis = 0)
+
+  @Before
+  fun setup() {
+    Conductor.leakWatcher = leakWatcher
+    router.setRoot(TestController().asTransaction())
+  }
+
+  @After
+  fun teardown() {
+    Conductor.leakWatcher = null
+    leakedControllers.clear()
+  }
+
+  @Test
+  fun testPoppedControllerIsNotReported() {
+    pushAndPop(retain = false)
+
+    leakWatcher.assertNoLeaks()
+    Assert.assertEquals(0, leakWatcher.watchedCount)
+  }
+
+  @Test
+  fun testRetainedControllerIsReported() {
+    pushAndPop(retain = true)
+
+    val leaks = leakWatcher.checkForLeaks()
+    val controllerLeak = leaks.single { it.viewClassName == null }
+    Assert.assertEquals(TestController::class.java.name, controllerLeak.controllerClassName)
+    Assert.assertEquals(leakedControllers[0].instanceId, controllerLeak.instanceId)
+
+    // Leaks are only reported once.
+    Assert.assertTrue(leakWatcher.checkForLeaks().isEmpty())
+  }
+
+  @Test(expected = AssertionError::class)
+  fun testAssertNoLeaksFailsOnLeaks() {
+    pushAndPop(retain = true)
+
+    leakWatcher.assertNoLeaks()
+  }
+
+  @Test
+  fun testControllersDestroyedWithoutWatcherAreIgnored() {
+    Conductor.leakWatcher = null
+    pushAndPop(retain = true)
+
+    Assert.assertEquals(0, leakWatcher.watchedCount)
+    leakWatcher.assertNoLeaks()
+  }
+
+  @Test
+  fun testGracePeriod() {
+    val watcher = ControllerLeakWatcher(gracePeriodMillis = 60_000)
+    Conductor.leakWatcher = watcher
+    pushAndPop(retain = true)
+
+    Assert.assertTrue(watcher.checkForLeaks().isEmpty())
+    Assert.assertTrue(watcher.watchedCount > 0)
+
+    watcher.clear()
+    Assert.assertEquals(0, watcher.watchedCount)
+  }
+
+  // Kept out of the tests themselves, so that no local variable keeps the popped Controller reachable.
+  private fun pushAndPop(retain: Boolean) {
+    val controller = TestController()
+    if (retain) {
+      leakedControllers.add(controller)
+    }
+
+    router.pushController(controller.asTransaction())
+    router.popCurrentController()
+    shadowOf(Looper.getMainLooper()).idle()
+  }
+
+  companion object {
+    // Stands in for a static cache that leaks Controllers.
+    private val leakedControllers = ArrayList<Controller>()
+  }
+}
@@ -388,6 +388,104 @@ class ControllerTests {
     Assert.assertEquals(0, childRouter.backstackSize)
   }
 
+  @Test
+  fun testViewStatePolicy() {
+    Assert.assertEquals(3, savedHierarchyStateSize(ViewStatePolicy.FULL))
+    Assert.assertEquals(1, savedHierarchyStateSize(ViewStatePolicy.allowlist(TestController.CHILD_VIEW_ID_1)))
+    Assert.assertEquals(0, savedHierarchyStateSize(ViewStatePolicy.CUSTOM_ONLY))
+
+    val transaction = TestController().asTransaction()
+      .viewStatePolicy(ViewStatePolicy.allowlist(TestController.CHILD_VIEW_ID_2))
+    val restoredTransaction = RouterTransaction(transaction.saveInstanceState())
+    Assert.assertEquals(transaction.viewStatePolicy(), restoredTransaction.viewStatePolicy())
+    Assert.assertEquals(transaction.viewStatePolicy(), restoredTransaction.controller.viewStatePolicy)
+  }
+
+  @Test
+  fun testSkipViewStateWhileRetained() {
+    val controller = TestController()
+    RouterTransaction.with(controller).viewStatePolicy(ViewStatePolicy.SKIP_WHILE_RETAINED)
+    controller.setRouter(router)
+    controller.retainViewMode = RetainViewMode.RETAIN_DETACH
+
+    val savedSizes = mutableListOf<Int>()
+    controller.addLifecycleListener(object : Controller.LifecycleListener() {
+      override fun onViewStateSaved(controller: Controller, policy: ViewStatePolicy, hierarchyStateSize: Int, durationNanos: Long) {
+        savedSizes.add(hierarchyStateSize)
+      }
+    })
+
+    val view = controller.inflate(router.container)
+    ViewUtils.reportAttached(view, true)
+    ViewUtils.reportAttached(view, false)
+    Assert.assertNotNull(controller.view)
+
+    // The hierarchy is skipped while the view is held, and saved once it's released.
+    controller.saveInstanceState()
+    Assert.assertEquals(listOf(0), savedSizes)
+
+    controller.retainViewMode = RetainViewMode.RELEASE_DETACH
+    Assert.assertNull(controller.view)
+    Assert.assertEquals(listOf(0, 3), savedSizes)
+  }
+
+  @Test
+  fun testUnchangedViewStateIsReused() {
+    val controller = TestController()
+    controller.setRouter(router)
+    controller.retainViewMode = RetainViewMode.RETAIN_DETACH
+
+    val view = controller.inflate(router.container)
+    ViewUtils.reportAttached(view, true)
+
+    val savedState = controller.saveInstanceState()
+    Assert.assertEquals(1, controller.currentCallState.saveViewStateCalls)
+
+    controller.saveInstanceState()
+    ViewUtils.reportAttached(view, false)
+    ViewUtils.reportAttached(view, true)
+    Assert.assertEquals(1, controller.currentCallState.saveViewStateCalls)
+    Assert.assertSame(
+      savedState.getBundle("Controller.viewState"),
+      controller.saveInstanceState().getBundle("Controller.viewState")
+    )
+
+    controller.invalidateViewState()
+    controller.saveInstanceState()
+    Assert.assertEquals(2, controller.currentCallState.saveViewStateCalls)
+
+    ViewUtils.reportAttached(view, false)
+    controller.retainViewMode = RetainViewMode.RELEASE_DETACH
+    Assert.assertNull(controller.view)
+    Assert.assertEquals(2, controller.currentCallState.saveViewStateCalls)
+  }
+
+  private fun savedHierarchyStateSize(policy: ViewStatePolicy): Int {
+    val controller = TestController()
+    RouterTransaction.with(controller).viewStatePolicy(policy)
+    controller.setRouter(router)
+
+    var savedSize = -1
+    controller.addLifecycleListener(object : Controller.LifecycleListener() {
+      override fun onViewStateSaved(controller: Controller, policy: ViewStatePolicy, hierarchyStateSize: Int, durationNanos: Long) {
+        savedSize = hierarchyStateSize
+      }
+    })
+
+    var view = controller.inflate(router.container)
+    ViewUtils.reportAttached(view, true)
+    ViewUtils.reportAttached(view, false)
+    Assert.assertNull(controller.view)
+    Assert.assertEquals(1, controller.currentCallState.saveViewStateCalls)
+
+    // Restoring must work regardless of how much of the hierarchy was saved
+    view = controller.inflate(router.container)
+    Assert.assertEquals(1, controller.currentCallState.restoreViewStateCalls)
+    ViewUtils.reportAttached(view, true)
+
+    return savedSize
+  }
+
   private fun assertCalls(callState: CallState, controller: TestController) {
     shadowOf(Looper.getMainLooper()).idle()
 
@@ -1,5 +1,8 @@
 package com.bluelinelabs.conductor
 
+import android.view.View
+import android.view.ViewGroup
+import com.bluelinelabs.conductor.ControllerChangeHandler.ControllerChangeCompletedListener
 import com.bluelinelabs.conductor.util.MockChangeHandler
 import com.bluelinelabs.conductor.util.TestActivity
 import org.junit.Assert
@@ -422,4 +425,70 @@ class RouterChangeHandlerTests {
     )
     Assert.assertFalse(initialController2.changeHandlerHistory.latestIsPush())
   }
-}
\ No newline at end of file
+
+  @Test
+  fun testAbortedPushIsTakenOver() {
+    router.setRoot(TestController().asTransaction(pushChangeHandler = MockChangeHandler.defaultHandler()))
+
+    val pushHandler = PausedChangeHandler()
+    val popHandler = TakeOverChangeHandler()
+    router.pushController(
+      TestController().asTransaction(
+        pushChangeHandler = pushHandler,
+        popChangeHandler = popHandler
+      )
+    )
+    Assert.assertFalse(pushHandler.isTakenOver)
+
+    router.popCurrentController()
+    Assert.assertTrue(pushHandler.isTakenOver)
+    Assert.assertTrue(pushHandler.aborted)
+    Assert.assertEquals(0.4f, popHandler.takeOverProgress, 0f)
+  }
+
+  class PausedChangeHandler : ControllerChangeHandler() {
+    var aborted = false
+
+    override val changeProgress = 0.4f
+
+    override fun performChange(
+      container: ViewGroup,
+      from: View?,
+      to: View?,
+      isPush: Boolean,
+      changeListener: ControllerChangeCompletedListener
+    ) {
+      // Never completes, leaving the push in progress until it is aborted.
+      if (to != null && to.parent == null) {
+        container.addView(to)
+      }
+    }
+
+    override fun onAbortPush(newHandler: ControllerChangeHandler, newTop: Controller?) {
+      aborted = true
+    }
+  }
+
+  class TakeOverChangeHandler : ControllerChangeHandler() {
+    var takeOverProgress = PROGRESS_UNKNOWN
+
+    override fun performChange(
+      container: ViewGroup,
+      from: View?,
+      to: View?,
+      isPush: Boolean,
+      changeListener: ControllerChangeCompletedListener
+    ) {
+      container.removeView(from)
+      if (to != null && to.parent == null) {
+        container.addView(to)
+      }
+      changeListener.onChangeCompleted()
+    }
+
+    override fun onTakeOverAbortedChange(abortedHandler: ControllerChangeHandler, progress: Float): Boolean {
+      takeOverProgress = progress
+      return true
+    }
+  }
+}
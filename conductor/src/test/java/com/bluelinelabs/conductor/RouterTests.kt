@@ -1,9 +1,16 @@
 package com.bluelinelabs.conductor
 
+import android.content.ComponentCallbacks2
+import android.os.Bundle
+import android.os.Looper
+import android.view.LayoutInflater
 import android.view.View
+import android.view.ViewGroup
+import android.widget.FrameLayout
 import com.bluelinelabs.conductor.Controller.LifecycleListener
 import com.bluelinelabs.conductor.changehandler.FadeChangeHandler
 import com.bluelinelabs.conductor.changehandler.HorizontalChangeHandler
+import com.bluelinelabs.conductor.util.ActivityProxy
 import com.bluelinelabs.conductor.util.MockChangeHandler
 import com.bluelinelabs.conductor.util.TestActivity
 import org.junit.Assert
@@ -11,7 +18,13 @@ import org.junit.Test
 import org.junit.runner.RunWith
 import org.robolectric.Robolectric
 import org.robolectric.RobolectricTestRunner
+import org.robolectric.Shadows.shadowOf
 import org.robolectric.annotation.Config
+import java.io.DataInputStream
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
 
 @RunWith(RobolectricTestRunner::class)
 @Config(manifest = Config.NONE)
@@ -435,4 +448,679 @@ class RouterTests {
     Assert.assertFalse(controller1.isBeingDestroyed())
     Assert.assertTrue(controller3.isBeingDestroyed())
   }
+
+  @Test
+  fun testPrefetchedRestoredState() {
+    var activityProxy = ActivityProxy().create(null).start().resume()
+    val controller1 = TestController()
+    val controller2 = TestController()
+    activityProxy.activity.router.setRoot(controller1.asTransaction(pushChangeHandler = MockChangeHandler.defaultHandler()))
+    activityProxy.activity.router.pushController(controller2.asTransaction(pushChangeHandler = MockChangeHandler.defaultHandler()))
+
+    val savedState = Bundle()
+    activityProxy.saveInstanceState(savedState).pause().stop(true)
+
+    var prefetchCount = 0
+    Conductor.prefetchRestoredState(savedState) {
+      prefetchCount++
+      it.run()
+    }
+    Assert.assertEquals(1, prefetchCount)
+
+    activityProxy = ActivityProxy().create(savedState)
+    val restoredRouter = activityProxy.activity.router
+    Assert.assertEquals(2, restoredRouter.backstackSize)
+    Assert.assertEquals(controller1.instanceId, restoredRouter.getBackstack()[0].controller.instanceId)
+    Assert.assertEquals(controller2.instanceId, restoredRouter.getBackstack()[1].controller.instanceId)
+    Assert.assertTrue(restoredRouter.getBackstack()[1].pushChangeHandler() is MockChangeHandler)
+  }
+
+  @Test
+  fun testPrefetchedRestoredStateOnBackgroundThread() {
+    var activityProxy = ActivityProxy().create(null).start().resume()
+    val controller1 = TestController()
+    val controller2 = TestController()
+    activityProxy.activity.router.setRoot(controller1.asTransaction(pushChangeHandler = MockChangeHandler.defaultHandler()))
+    activityProxy.activity.router.pushController(controller2.asTransaction(pushChangeHandler = MockChangeHandler.defaultHandler()))
+
+    val savedState = Bundle()
+    activityProxy.saveInstanceState(savedState).pause().stop(true)
+
+    val executor = Executors.newSingleThreadExecutor()
+    try {
+      var prefetchThread: Thread? = null
+      Conductor.prefetchRestoredState(savedState) { task ->
+        executor.execute {
+          prefetchThread = Thread.currentThread()
+          task.run()
+        }
+      }
+
+      // Restoring waits for the background decode to finish.
+      activityProxy = ActivityProxy().create(savedState)
+      Assert.assertNotNull(prefetchThread)
+      Assert.assertNotSame(Thread.currentThread(), prefetchThread)
+
+      val restoredRouter = activityProxy.activity.router
+      Assert.assertEquals(2, restoredRouter.backstackSize)
+      Assert.assertEquals(controller1.instanceId, restoredRouter.getBackstack()[0].controller.instanceId)
+      Assert.assertEquals(controller2.instanceId, restoredRouter.getBackstack()[1].controller.instanceId)
+    } finally {
+      executor.shutdown()
+    }
+  }
+
+  @Test
+  fun testHibernation() {
+    val controller1 = TestController()
+    val controller2 = TestController()
+    val controller3 = TestController()
+    router.setRoot(RouterTransaction.with(controller1).tag("controller1"))
+    router.pushController(controller2.asTransaction(pushChangeHandler = MockChangeHandler.defaultHandler()))
+    router.pushController(controller3.asTransaction(pushChangeHandler = MockChangeHandler.defaultHandler()))
+
+    router.setHibernationPolicy(HibernationPolicy(maxAwakeDepth = 1))
+    Assert.assertTrue(router.transactions[0].isHibernated)
+    Assert.assertTrue(router.transactions[1].isHibernated)
+    Assert.assertFalse(router.transactions[2].isHibernated)
+    Assert.assertTrue(controller1.isDestroyed)
+    Assert.assertTrue(controller2.isDestroyed)
+    Assert.assertEquals(3, router.backstackSize)
+
+    router.popCurrentController()
+    val rehydrated2 = router.transactions[1].controller as TestController
+    Assert.assertFalse(router.transactions[1].isHibernated)
+    Assert.assertNotSame(controller2, rehydrated2)
+    Assert.assertEquals(controller2.instanceId, rehydrated2.instanceId)
+    Assert.assertEquals(1, rehydrated2.currentCallState.restoreInstanceStateCalls)
+    Assert.assertNotNull(rehydrated2.view)
+
+    Assert.assertTrue(router.transactions[0].isHibernated)
+    val rehydrated1 = router.getControllerWithTag("controller1")
+    Assert.assertEquals(controller1.instanceId, rehydrated1!!.instanceId)
+    Assert.assertFalse(router.transactions[0].isHibernated)
+    Assert.assertSame(rehydrated1, router.getControllerWithInstanceId(controller1.instanceId))
+  }
+
+  @Test
+  fun testHibernatedChildLookup() {
+    val parent = TestController()
+    router.setRoot(parent.asTransaction())
+    val child = TestController()
+    parent.getChildRouter(parent.view!!.findViewById(TestController.CHILD_VIEW_ID_1))
+      .setRoot(child.asTransaction())
+    router.pushController(TestController().asTransaction(pushChangeHandler = MockChangeHandler.defaultHandler()))
+
+    router.setHibernationPolicy(HibernationPolicy(maxAwakeDepth = 1))
+    Assert.assertTrue(router.transactions[0].isHibernated)
+
+    // Looking up a child of a hibernated Controller recreates it along with its child Routers.
+    val restoredChild = router.getControllerWithInstanceId(child.instanceId)
+    Assert.assertNotNull(restoredChild)
+    Assert.assertNotSame(child, restoredChild)
+    Assert.assertFalse(router.transactions[0].isHibernated)
+  }
+
+  @Test
+  fun testGetBackstackKeepsHibernation() {
+    val controller1 = TestController()
+    router.setRoot(controller1.asTransaction())
+    router.pushController(TestController().asTransaction(pushChangeHandler = MockChangeHandler.defaultHandler()))
+
+    router.setHibernationPolicy(HibernationPolicy(maxAwakeDepth = 1))
+    Assert.assertTrue(router.transactions[0].isHibernated)
+
+    // Reading the backstack, and setting it back unchanged, leaves hibernated Controllers hibernated.
+    val backstack = router.getBackstack()
+    Assert.assertTrue(backstack[0].isHibernated)
+    Assert.assertEquals(controller1.instanceId, backstack[0].controller.instanceId)
+    router.setBackstack(backstack, null)
+    Assert.assertTrue(router.transactions[0].isHibernated)
+
+    val root = router.getControllerWithInstanceId(controller1.instanceId)
+    Assert.assertTrue(root is TestController)
+    Assert.assertFalse(router.transactions[0].isHibernated)
+  }
+
+  @Test
+  fun testTrimMemory() {
+    val controller1 = TestController()
+    controller1.retainViewMode = Controller.RetainViewMode.RETAIN_DETACH
+    val controller2 = TestController()
+    router.setRoot(controller1.asTransaction())
+    router.pushController(controller2.asTransaction(pushChangeHandler = MockChangeHandler.defaultHandler()))
+    Assert.assertNotNull(controller1.view)
+
+    val trimLevels = mutableListOf<Int>()
+    controller1.addLifecycleListener(object : LifecycleListener() {
+      override fun onTrimMemory(controller: Controller, level: Int) {
+        trimLevels.add(level)
+      }
+    })
+
+    val application = router.activity!!.application
+    application.onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_RUNNING_MODERATE)
+    Assert.assertNotNull(controller1.view)
+
+    application.onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW)
+    Assert.assertNull(controller1.view)
+    Assert.assertNotNull(controller2.view)
+    Assert.assertEquals(1, controller1.currentCallState.saveViewStateCalls)
+    Assert.assertEquals(
+      listOf(ComponentCallbacks2.TRIM_MEMORY_RUNNING_MODERATE, ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW),
+      trimLevels
+    )
+  }
+
+  @Test
+  fun testPrepare() {
+    router.setRoot(TestController().asTransaction())
+
+    val controller = TestController()
+    val transaction = controller.asTransaction(pushChangeHandler = MockChangeHandler.defaultHandler())
+    router.prepare(transaction)
+    Assert.assertTrue(controller.hasPreparedView())
+    Assert.assertEquals(1, controller.currentCallState.createViewCalls)
+    Assert.assertNull(controller.view)
+
+    router.pushController(transaction)
+    Assert.assertFalse(controller.hasPreparedView())
+    Assert.assertEquals(1, controller.currentCallState.createViewCalls)
+    Assert.assertNotNull(controller.view)
+  }
+
+  @Test
+  fun testPrepareOffMainThread() {
+    router.setRoot(TestController().asTransaction())
+
+    val pendingInflations = mutableListOf<Runnable>()
+    val controller = BackgroundInflatingController()
+    val transaction = controller.asTransaction(pushChangeHandler = MockChangeHandler.defaultHandler())
+    router.prepare(transaction) { pendingInflations.add(it) }
+    Assert.assertTrue(controller.hasPreparedView())
+    Assert.assertEquals(0, controller.currentCallState.createViewCalls)
+
+    pendingInflations.single().run()
+    Assert.assertEquals(1, controller.currentCallState.createViewCalls)
+
+    router.pushController(transaction)
+    Assert.assertEquals(1, controller.currentCallState.createViewCalls)
+    Assert.assertNotNull(controller.view)
+
+    // Controllers that don't allow background inflation are inflated immediately
+    val mainThreadController = TestController()
+    router.prepare(mainThreadController.asTransaction()) { pendingInflations.add(it) }
+    Assert.assertEquals(1, pendingInflations.size)
+    Assert.assertEquals(1, mainThreadController.currentCallState.createViewCalls)
+  }
+
+  @Test
+  fun testPushWhileBackgroundInflationRuns() {
+    router.setRoot(TestController().asTransaction())
+
+    val controller = BlockingInflationController()
+    val transaction = controller.asTransaction(pushChangeHandler = MockChangeHandler.defaultHandler())
+    val executor = Executors.newSingleThreadExecutor()
+    try {
+      router.prepare(transaction, executor)
+      Assert.assertTrue(controller.inflationStarted.await(5, TimeUnit.SECONDS))
+
+      // The push has to wait for the running background call rather than calling onCreateView again.
+      Thread {
+        Thread.sleep(100)
+        controller.releaseInflation.countDown()
+      }.start()
+      router.pushController(transaction)
+
+      Assert.assertEquals(1, controller.currentCallState.createViewCalls)
+      Assert.assertEquals(1, controller.maxConcurrentInflations)
+      Assert.assertSame(controller.inflatedView, controller.view)
+    } finally {
+      executor.shutdownNow()
+    }
+  }
+
+  @Test
+  fun testPrepareWhileAbandonedInflationRuns() {
+    router.setRoot(TestController().asTransaction())
+
+    val controller = BlockingInflationController()
+    val executor = Executors.newSingleThreadExecutor()
+    try {
+      router.prepare(controller.asTransaction(), executor)
+      Assert.assertTrue(controller.inflationStarted.await(5, TimeUnit.SECONDS))
+
+      // The running call can't be stopped, so preparing again waits for it to finish first.
+      router.discardPreparedViews()
+      router.prepare(controller.asTransaction(), executor)
+      Assert.assertFalse(controller.hasPreparedView())
+
+      Thread {
+        Thread.sleep(100)
+        controller.releaseInflation.countDown()
+      }.start()
+      router.pushController(controller.asTransaction(pushChangeHandler = MockChangeHandler.defaultHandler()))
+
+      Assert.assertEquals(2, controller.currentCallState.createViewCalls)
+      Assert.assertEquals(1, controller.maxConcurrentInflations)
+      Assert.assertNotSame(controller.inflatedView, controller.view)
+    } finally {
+      executor.shutdownNow()
+    }
+  }
+
+  @Test
+  fun testPreparedViewsAreBounded() {
+    router.setRoot(TestController().asTransaction())
+    router.setMaxPreparedViews(1)
+
+    val controller1 = TestController()
+    val controller2 = TestController()
+    router.prepare(controller1.asTransaction())
+    router.prepare(controller2.asTransaction())
+    Assert.assertFalse(controller1.hasPreparedView())
+    Assert.assertTrue(controller2.hasPreparedView())
+
+    // Discarded Controllers are no longer bound to the Router they were prepared for.
+    Assert.assertNull(controller1.router)
+    Assert.assertEquals(1, controller1.currentCallState.contextUnavailableCalls)
+    Assert.assertSame(router, controller2.router)
+
+    router.activity!!.application.onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW)
+    Assert.assertFalse(controller2.hasPreparedView())
+    Assert.assertNull(controller2.router)
+
+    router.pushController(controller2.asTransaction(pushChangeHandler = MockChangeHandler.defaultHandler()))
+    Assert.assertEquals(2, controller2.currentCallState.createViewCalls)
+    Assert.assertSame(router, controller2.router)
+  }
+
+  @Test
+  fun testRetainedViewPolicy() {
+    router.setRetainedViewPolicy(RetainedViewPolicy(maxViews = 1))
+
+    val controller1 = TestController()
+    val controller2 = TestController()
+    val controller3 = TestController()
+    router.setRoot(controller1.asTransaction())
+    router.pushController(
+      controller2.asTransaction(
+        pushChangeHandler = MockChangeHandler.defaultHandler(),
+        popChangeHandler = MockChangeHandler.defaultHandler()
+      )
+    )
+    Assert.assertNotNull(controller1.view)
+    Assert.assertEquals(1, router.retainedViewCount)
+
+    router.pushController(
+      controller3.asTransaction(
+        pushChangeHandler = MockChangeHandler.defaultHandler(),
+        popChangeHandler = MockChangeHandler.defaultHandler()
+      )
+    )
+    Assert.assertNull(controller1.view)
+    Assert.assertNotNull(controller2.view)
+    Assert.assertEquals(1, router.retainedViewCount)
+
+    router.popCurrentController()
+    Assert.assertEquals(1, controller2.currentCallState.createViewCalls)
+    Assert.assertEquals(1, router.retainedViewHitCount)
+    Assert.assertEquals(0, router.retainedViewCount)
+
+    router.popCurrentController()
+    Assert.assertEquals(2, controller1.currentCallState.createViewCalls)
+    Assert.assertEquals(1, router.retainedViewMissCount)
+  }
+
+  @Test
+  fun testRetainedViewsThatCantBeReleasedStayCached() {
+    router.setRetainedViewPolicy(RetainedViewPolicy(maxViews = 2))
+
+    val controller1 = TestController()
+    val controller2 = TestController()
+    router.setRoot(controller1.asTransaction())
+    router.pushController(controller2.asTransaction(pushChangeHandler = MockChangeHandler.defaultHandler()))
+    router.pushController(TestController().asTransaction(pushChangeHandler = MockChangeHandler.defaultHandler()))
+    Assert.assertEquals(2, router.retainedViewCount)
+
+    // A view that's still in a parent can't be released, so the next retained view is evicted instead.
+    val otherParent = FrameLayout(router.activity!!)
+    otherParent.addView(controller1.view)
+    router.setRetainedViewPolicy(RetainedViewPolicy(maxViews = 1))
+    Assert.assertNotNull(controller1.view)
+    Assert.assertNull(controller2.view)
+    Assert.assertEquals(1, router.retainedViewCount)
+
+    otherParent.removeView(controller1.view)
+    router.setRetainedViewPolicy(RetainedViewPolicy(maxViews = 0))
+    Assert.assertNull(controller1.view)
+    Assert.assertEquals(0, router.retainedViewCount)
+  }
+
+  @Test
+  fun testRecycledViewPool() {
+    router.setRoot(TestController().asTransaction())
+    router.setRecycledViewPoolSize(RecyclingController::class.java, 1)
+
+    val controller1 = RecyclingController()
+    router.pushController(
+      controller1.asTransaction(
+        pushChangeHandler = MockChangeHandler.defaultHandler(),
+        popChangeHandler = MockChangeHandler.defaultHandler()
+      )
+    )
+    val recycledView = controller1.view
+    Assert.assertNull(controller1.recycledView)
+
+    router.popCurrentController()
+    Assert.assertEquals(1, controller1.recycleViewCalls)
+    Assert.assertEquals(1, router.getRecycledViewCount(RecyclingController::class.java))
+
+    val controller2 = RecyclingController()
+    router.pushController(controller2.asTransaction(pushChangeHandler = MockChangeHandler.defaultHandler()))
+    Assert.assertSame(recycledView, controller2.recycledView)
+    Assert.assertSame(recycledView, controller2.view)
+    Assert.assertEquals(0, router.getRecycledViewCount(RecyclingController::class.java))
+  }
+
+  @Test
+  fun testOpaqueViewCulling() {
+    val activity = router.activity!!
+    val container = ChangeHandlerFrameLayout(activity)
+    container.id = View.generateViewId()
+    activity.findViewById<ViewGroup>(android.R.id.content).addView(container)
+    val cullingRouter = Conductor.attachRouter(activity, container, null)
+
+    val controller1 = TestController()
+    val controller2 = TestController()
+    cullingRouter.setRoot(controller1.asTransaction())
+    cullingRouter.pushController(
+      controller2.asTransaction(
+        pushChangeHandler = MockChangeHandler.noRemoveViewOnPushHandler(),
+        popChangeHandler = MockChangeHandler.defaultHandler()
+      )
+    )
+    Assert.assertEquals(2, container.childCount)
+    Assert.assertEquals(0, cullingRouter.culledLayerCount)
+
+    controller2.isViewOpaque = true
+    Assert.assertEquals(1, cullingRouter.culledLayerCount)
+
+    cullingRouter.popCurrentController()
+    Assert.assertEquals(0, cullingRouter.culledLayerCount)
+  }
+
+  @Test
+  fun testSnapshotWhileCovered() {
+    val activity = router.activity!!
+    val container = ChangeHandlerFrameLayout(activity)
+    container.id = View.generateViewId()
+    activity.findViewById<ViewGroup>(android.R.id.content).addView(container)
+    val snapshotRouter = Conductor.attachRouter(activity, container, null)
+
+    val frozenStates = mutableListOf<Boolean>()
+    val controller1 = TestController()
+    controller1.isSnapshotWhileCovered = true
+    controller1.addLifecycleListener(object : LifecycleListener() {
+      override fun onFrozen(controller: Controller) {
+        frozenStates.add(true)
+      }
+
+      override fun onUnfrozen(controller: Controller) {
+        frozenStates.add(false)
+      }
+    })
+
+    snapshotRouter.setRoot(controller1.asTransaction())
+    Assert.assertFalse(controller1.isFrozen)
+
+    snapshotRouter.pushController(
+      TestController().asTransaction(
+        pushChangeHandler = MockChangeHandler.noRemoveViewOnPushHandler(),
+        popChangeHandler = MockChangeHandler.defaultHandler()
+      )
+    )
+    Assert.assertTrue(controller1.isFrozen)
+
+    snapshotRouter.popCurrentController()
+    Assert.assertFalse(controller1.isFrozen)
+    Assert.assertEquals(listOf(true, false), frozenStates)
+  }
+
+  @Test
+  fun testSnapshotsSuppressedUnderMemoryPressure() {
+    val activity = router.activity!!
+    val container = ChangeHandlerFrameLayout(activity)
+    container.id = View.generateViewId()
+    activity.findViewById<ViewGroup>(android.R.id.content).addView(container)
+    val snapshotRouter = Conductor.attachRouter(activity, container, null)
+
+    val controller1 = TestController()
+    controller1.isSnapshotWhileCovered = true
+    snapshotRouter.setRoot(controller1.asTransaction())
+    snapshotRouter.pushController(
+      TestController().asTransaction(
+        pushChangeHandler = MockChangeHandler.noRemoveViewOnPushHandler(),
+        popChangeHandler = MockChangeHandler.defaultHandler()
+      )
+    )
+    Assert.assertTrue(controller1.isFrozen)
+
+    snapshotRouter.onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW)
+    Assert.assertFalse(controller1.isFrozen)
+    Assert.assertEquals(0, snapshotRouter.snapshotLayerCount)
+
+    // Lower trim levels, including the UI being hidden, aren't a sign that the pressure is over.
+    snapshotRouter.onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN)
+    snapshotRouter.onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_RUNNING_MODERATE)
+    Assert.assertFalse(controller1.isFrozen)
+
+    // The next change completing while the UI is visible turns snapshots back on.
+    snapshotRouter.pushController(
+      TestController().asTransaction(
+        pushChangeHandler = MockChangeHandler.noRemoveViewOnPushHandler(),
+        popChangeHandler = MockChangeHandler.defaultHandler()
+      )
+    )
+    snapshotRouter.popCurrentController()
+    Assert.assertTrue(controller1.isFrozen)
+  }
+
+  @Test
+  fun testNavigationMetrics() {
+    val reported = mutableListOf<String>()
+    val listener = NavigationMetricsListener { metrics ->
+      Assert.assertTrue(metrics.createViewNanos >= 0)
+      Assert.assertTrue(metrics.handlerSetupNanos >= 0)
+      Assert.assertTrue(metrics.totalNanos >= metrics.createViewNanos + metrics.restoreViewStateNanos)
+      reported.add("${metrics.to?.instanceId}:${metrics.isPush}")
+    }
+    router.addNavigationMetricsListener(listener)
+
+    val controller1 = TestController()
+    val controller2 = TestController()
+    router.setRoot(controller1.asTransaction(pushChangeHandler = MockChangeHandler.defaultHandler()))
+    router.pushController(
+      controller2.asTransaction(
+        pushChangeHandler = MockChangeHandler.defaultHandler(),
+        popChangeHandler = MockChangeHandler.defaultHandler()
+      )
+    )
+    shadowOf(Looper.getMainLooper()).idleFor(1, TimeUnit.SECONDS)
+    router.popCurrentController()
+    shadowOf(Looper.getMainLooper()).idleFor(1, TimeUnit.SECONDS)
+
+    Assert.assertEquals(
+      listOf("${controller1.instanceId}:true", "${controller2.instanceId}:true", "${controller1.instanceId}:false"),
+      reported
+    )
+
+    router.removeNavigationMetricsListener(listener)
+    router.pushController(TestController().asTransaction(pushChangeHandler = MockChangeHandler.defaultHandler()))
+    shadowOf(Looper.getMainLooper()).idleFor(1, TimeUnit.SECONDS)
+    Assert.assertEquals(3, reported.size)
+  }
+
+  @Test(expected = IllegalStateException::class)
+  fun testNavigationMetricsRequireRootRouter() {
+    val controller = TestController()
+    router.setRoot(controller.asTransaction())
+    val childRouter = controller.getChildRouter(controller.view!!.findViewById(TestController.CHILD_VIEW_ID_1))
+    childRouter.addNavigationMetricsListener { }
+  }
+
+  @Test
+  fun testTransitionFrameStats() {
+    val reported = mutableListOf<String>()
+    router.addTransitionFrameListener { stats ->
+      Assert.assertTrue(stats.frameIntervalNanos > 0)
+      Assert.assertTrue(stats.droppedFrames >= 0)
+      reported.add("${stats.fromClass?.simpleName}>${stats.toClass?.simpleName}:${stats.handlerClass?.simpleName}:${stats.isPush}")
+    }
+
+    router.setRoot(TestController().asTransaction(pushChangeHandler = MockChangeHandler.defaultHandler()))
+    router.pushController(
+      TestController().asTransaction(
+        pushChangeHandler = MockChangeHandler.defaultHandler(),
+        popChangeHandler = MockChangeHandler.defaultHandler()
+      )
+    )
+    router.popCurrentController()
+
+    Assert.assertEquals(
+      listOf(
+        "null>TestController:MockChangeHandler:true",
+        "TestController>TestController:MockChangeHandler:true",
+        "TestController>TestController:MockChangeHandler:false"
+      ),
+      reported
+    )
+  }
+
+  @Test
+  fun testFlightRecorder() {
+    router.enableFlightRecorder(2)
+
+    router.setRoot(TestController().asTransaction(pushChangeHandler = MockChangeHandler.defaultHandler()))
+    router.pushController(
+      TestController().asTransaction(
+        pushChangeHandler = MockChangeHandler.defaultHandler(),
+        popChangeHandler = MockChangeHandler.defaultHandler()
+      )
+    )
+    router.popCurrentController()
+
+    val recorder = router.flightRecorder!!
+    Assert.assertEquals(2, recorder.size)
+
+    // The oldest change was overwritten once the recorder was full.
+    val lines = recorder.toString().lines().filter { it.isNotEmpty() }
+    Assert.assertEquals("Conductor flight recorder: 2 of 3 changes", lines[0])
+    Assert.assertTrue(lines[1], lines[1].contains("pushController push TestController <- TestController (MockChangeHandler) took "))
+    Assert.assertTrue(lines[2], lines[2].contains("popController pop TestController <- TestController (MockChangeHandler) took "))
+
+    val bytes = DataInputStream(recorder.toByteArray().inputStream())
+    Assert.assertEquals(1, bytes.readByte().toInt())
+    Assert.assertEquals(2, bytes.readInt())
+    Assert.assertEquals(NavigationFlightRecorder.OPERATION_PUSH, bytes.readByte().toInt())
+
+    recorder.clear()
+    Assert.assertEquals(0, recorder.size)
+
+    router.disableFlightRecorder()
+    Assert.assertNull(router.flightRecorder)
+  }
+
+  @Test(expected = IllegalStateException::class)
+  fun testFlightRecorderRequiresRootRouter() {
+    val controller = TestController()
+    router.setRoot(controller.asTransaction())
+    val childRouter = controller.getChildRouter(controller.view!!.findViewById(TestController.CHILD_VIEW_ID_1))
+    childRouter.enableFlightRecorder(10)
+  }
+
+  @Test
+  fun testHierarchySnapshot() {
+    val rootController = TestController()
+    router.setRoot(rootController.asTransaction().tag("root"))
+    val childController = TestController()
+    rootController.getChildRouter(rootController.view!!.findViewById(TestController.CHILD_VIEW_ID_1))
+      .setRoot(childController.asTransaction())
+    router.pushController(TestController().asTransaction(pushChangeHandler = MockChangeHandler.noRemoveViewOnPushHandler()))
+
+    val snapshot = router.hierarchySnapshot
+    Assert.assertEquals(2, snapshot.controllers.size)
+
+    val root = snapshot.controllers[0]
+    Assert.assertEquals(TestController::class.java.name, root.className)
+    Assert.assertEquals(rootController.instanceId, root.instanceId)
+    Assert.assertEquals("root", root.tag)
+    Assert.assertTrue(root.isAttached)
+    Assert.assertTrue(root.hasView)
+    Assert.assertFalse(root.isDestroyed)
+    Assert.assertNull(root.inProgressChangeHandler)
+    Assert.assertEquals(1, root.childRouters.size)
+    Assert.assertEquals(TestController.CHILD_VIEW_ID_1, root.childRouters[0].containerId)
+    Assert.assertEquals(childController.instanceId, root.childRouters[0].controllers[0].instanceId)
+    Assert.assertTrue(snapshot.controllers[1].childRouters.isEmpty())
+
+    val lines = StringBuilder().also { router.dumpHierarchy(it) }.lines().filter { it.isNotEmpty() }
+    Assert.assertEquals(5, lines.size)
+    Assert.assertTrue(lines[0], lines[0].endsWith("backstack=2"))
+    Assert.assertTrue(lines[1], lines[1].startsWith("  TestController id=${rootController.instanceId} tag=root attached=true"))
+    Assert.assertTrue(lines[2], lines[2].startsWith("    ControllerHostedRouter container=0x"))
+    Assert.assertTrue(lines[3], lines[3].startsWith("      TestController id=${childController.instanceId} attached=true"))
+    Assert.assertTrue(lines[4], lines[4].startsWith("  TestController id="))
+  }
+
+  class RecyclingController : TestController() {
+    var recycledView: View? = null
+    var recycleViewCalls = 0
+
+    override fun onCreateView(
+      inflater: LayoutInflater,
+      container: ViewGroup,
+      savedViewState: Bundle?,
+      recycledView: View?
+    ): View {
+      this.recycledView = recycledView
+      return recycledView ?: super.onCreateView(inflater, container, savedViewState)
+    }
+
+    override fun onRecycleView(view: View) {
+      recycleViewCalls++
+    }
+  }
+
+  open class BackgroundInflatingController : TestController() {
+    override fun canInflateOffMainThread() = true
+  }
+
+  class BlockingInflationController : BackgroundInflatingController() {
+    val inflationStarted = CountDownLatch(1)
+    val releaseInflation = CountDownLatch(1)
+    private val activeInflations = AtomicInteger()
+
+    @Volatile
+    var maxConcurrentInflations = 0
+
+    @Volatile
+    var inflatedView: View? = null
+
+    override fun onCreateView(inflater: LayoutInflater, container: ViewGroup, savedViewState: Bundle?): View {
+      val active = activeInflations.incrementAndGet()
+      maxConcurrentInflations = maxOf(maxConcurrentInflations, active)
+      try {
+        val view = super.onCreateView(inflater, container, savedViewState)
+        if (Looper.myLooper() != Looper.getMainLooper()) {
+          inflatedView = view
+          inflationStarted.countDown()
+          releaseInflation.await(5, TimeUnit.SECONDS)
+        }
+        return view
+      } finally {
+        activeInflations.decrementAndGet()
+      }
+    }
+  }
 }
@@ -0,0 +1,65 @@
+package com.bluelinelabs.conductor
+
+import com.bluelinelabs.conductor.internal.Tracing
+import com.bluelinelabs.conductor.util.MockChangeHandler
+import com.bluelinelabs.conductor.util.TestActivity
+import org.junit.After
+import org.junit.Assert
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.robolectric.Robolectric
+import org.robolectric.RobolectricTestRunner
+import org.robolectric.annotation.Config
+import org.robolectric.shadows.ShadowTrace
+
+@RunWith(RobolectricTestRunner::class)
+@Config(manifest = Config.NONE)
+class TracingTests {
+
+  private val router = Robolectric.buildActivity(TestActivity::class.java).setup().get().router
+
+  @After
+  fun teardown() {
+    Conductor.setTracingEnabled(false)
+  }
+
+  @Test
+  fun testDisabledByDefault() {
+    Assert.assertFalse(Conductor.isTracingEnabled())
+    Assert.assertFalse(Tracing.beginSection("test", null))
+
+    router.setRoot(TestController().asTransaction())
+    Assert.assertTrue(ShadowTrace.getPreviousSections().none { it.startsWith("Conductor:") })
+  }
+
+  @Test
+  fun testSetTracingEnabled() {
+    Conductor.setTracingEnabled(true)
+    Assert.assertTrue(Conductor.isTracingEnabled())
+
+    router.setRoot(TestController().asTransaction())
+    router.pushController(TestController().asTransaction(pushChangeHandler = MockChangeHandler.defaultHandler()))
+
+    val sections = ShadowTrace.getPreviousSections().toList()
+    Assert.assertTrue(sections.contains("Conductor:Router.pushController TestController"))
+    Assert.assertTrue(sections.contains("Conductor:Controller.inflate TestController"))
+    Assert.assertTrue(sections.contains("Conductor:Controller.attach TestController"))
+    Assert.assertTrue(ShadowTrace.getCurrentSections().isEmpty())
+
+    Conductor.setTracingEnabled(false)
+    Assert.assertFalse(Conductor.isTracingEnabled())
+    Assert.assertFalse(Tracing.beginSection("test", null))
+  }
+
+  @Test
+  fun testSectionsStayBalancedWhenToggled() {
+    Conductor.setTracingEnabled(true)
+    val began = Tracing.beginSection("test", null)
+    Conductor.setTracingEnabled(false)
+
+    // The section that was started is still ended.
+    Tracing.endSection(began)
+    Assert.assertTrue(ShadowTrace.getCurrentSections().isEmpty())
+    Assert.assertTrue(ShadowTrace.getPreviousSections().contains("Conductor:test"))
+  }
+}
@@ -0,0 +1,72 @@
+package com.bluelinelabs.conductor.internal
+
+import android.os.Bundle
+import android.view.LayoutInflater
+import android.view.View
+import android.view.ViewGroup
+import com.bluelinelabs.conductor.Conductor
+import com.bluelinelabs.conductor.Controller
+import com.bluelinelabs.conductor.ControllerChangeHandler
+import com.bluelinelabs.conductor.TestController
+import com.bluelinelabs.conductor.changehandler.FadeChangeHandler
+import io.kotest.matchers.shouldBe
+import io.kotest.matchers.types.shouldBeInstanceOf
+import io.kotest.matchers.types.shouldBeSameInstanceAs
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.robolectric.RobolectricTestRunner
+import org.robolectric.annotation.Config
+import java.util.concurrent.Executor
+
+@RunWith(RobolectricTestRunner::class)
+@Config(manifest = Config.NONE)
+class ClassUtilsTest {
+
+  @Test
+  fun constructorsAreCached() {
+    ClassUtils.getConstructors(TestController::class.java) shouldBeSameInstanceAs
+      ClassUtils.getConstructors(TestController::class.java)
+  }
+
+  @Test
+  fun prewarmedClassesAreResolved() {
+    val pendingTasks = mutableListOf<Runnable>()
+    Conductor.prewarm(
+      controllerClasses = listOf(TestController::class.java),
+      changeHandlerClasses = listOf(FadeChangeHandler::class.java),
+      executor = Executor { pendingTasks.add(it) }
+    )
+
+    pendingTasks.size shouldBe 1
+    pendingTasks.single().run()
+
+    ClassUtils.classForName<Controller>(TestController::class.java.name, false) shouldBe TestController::class.java
+    ClassUtils.newInstance<ControllerChangeHandler>(FadeChangeHandler::class.java.name).shouldBeInstanceOf<FadeChangeHandler>()
+  }
+
+  @Test
+  fun prewarmingSurvivesFailingStaticInitializers() {
+    val pendingTasks = mutableListOf<Runnable>()
+    Conductor.prewarm(
+      controllerClasses = listOf(FailingInitController::class.java, TestController::class.java),
+      changeHandlerClasses = emptyList(),
+      executor = Executor { pendingTasks.add(it) }
+    )
+
+    // The ExceptionInInitializerError is swallowed, and the remaining classes are still prewarmed.
+    pendingTasks.single().run()
+    ClassUtils.classForName<Controller>(TestController::class.java.name, false) shouldBe TestController::class.java
+  }
+
+  class FailingInitController : Controller() {
+    override fun onCreateView(inflater: LayoutInflater, container: ViewGroup, savedViewState: Bundle?): View {
+      throw UnsupportedOperationException()
+    }
+
+    companion object {
+      init {
+        throw IllegalStateException("Failing static initializer")
+      }
+    }
+  }
+}